@@ -0,0 +1,143 @@
+package request_logger_store.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.ServletWebRequest;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.component.archive.ColdStore;
+import request_logger_store.component.cache.FlatEventCache;
+import request_logger_store.config.mapper.Mapper;
+import request_logger_store.repository.EventRecordRepository;
+import request_logger_store.repository.EventRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Разворачивание N сохранённых строк в плоский список событий: {@code /all-events} без кэша (построение DTO
+ * на каждый запрос), {@code /all-events} из {@link FlatEventCache} и {@code /all-events/stream} (копирование
+ * потоковым парсером). Репозиторий заменён заглушкой, возвращающей заранее подготовленные строки, поэтому
+ * измеряется только работа контроллера.
+ * <p>
+ * Запуск: {@code ./mvnw -Pjmh test-compile exec:exec -Djmh.include=EventFlatteningBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventFlatteningBenchmark {
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    /** Событий в одной строке {@code events.data}. */
+    @Param({"10", "100"})
+    private int eventsPerRow;
+
+    private EventController controller;
+
+    private EventController cachedController;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        List<String> data = new ArrayList<>(rows);
+        List<EventRepository.IdAndData> rowsWithIds = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            List<EventDto> events = new ArrayList<>(eventsPerRow);
+            for (int i = 0; i < eventsPerRow; i++) {
+                events.add(new EventDto(start.plusSeconds(row).plusNanos(i * 1_000_123L)));
+            }
+            data.add(objectMapper.writeValueAsString(events));
+            rowsWithIds.add(row(UUID.randomUUID(), data.get(row), start.plusSeconds(row)));
+        }
+
+        EventRepository eventRepository = Mockito.mock(EventRepository.class, Mockito.withSettings().stubOnly());
+        when(eventRepository.streamAllIdAndData()).thenAnswer(invocation -> rowsWithIds.stream());
+        when(eventRepository.streamAllDataOnly()).thenAnswer(invocation -> data.stream());
+        when(eventRepository.findState())
+            .thenReturn(Mockito.mock(EventRepository.State.class, Mockito.withSettings().stubOnly()));
+        controller = controller(eventRepository, Duration.ZERO);
+        cachedController = controller(eventRepository, Duration.ofDays(1));
+    }
+
+    @Benchmark
+    public ResponseEntity<List<EventDto>> allEvents() {
+        return controller.getAllEventsFlat(request());
+    }
+
+    @Benchmark
+    public ResponseEntity<List<EventDto>> allEventsCached() {
+        return cachedController.getAllEventsFlat(request());
+    }
+
+    @Benchmark
+    public void allEventsStream() throws IOException {
+        controller.streamAllEventsFlat(request()).getBody().writeTo(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * @param maxAge Возраст списка в кэше; {@code 0} — список перечитывается и разбирается на каждый запрос
+     */
+    private static EventController controller(EventRepository eventRepository, Duration maxAge) {
+        Mapper mapper = new Mapper();
+        ColdStore coldStore = Mockito.mock(ColdStore.class, Mockito.withSettings().stubOnly());
+        PlatformTransactionManager transactionManager =
+            Mockito.mock(PlatformTransactionManager.class, Mockito.withSettings().stubOnly());
+        FlatEventCache cache = new FlatEventCache(eventRepository, coldStore, mapper, transactionManager,
+            Integer.MAX_VALUE, Duration.ofDays(1), maxAge);
+        return new EventController(eventRepository,
+            Mockito.mock(EventRecordRepository.class, Mockito.withSettings().stubOnly()), mapper,
+            transactionManager, cache, coldStore);
+    }
+
+    private static ServletWebRequest request() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/all-events"), new MockHttpServletResponse());
+    }
+
+    private static EventRepository.IdAndData row(UUID id, String data, LocalDateTime createdAt) {
+        return new EventRepository.IdAndData() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+
+            @Override
+            public String getData() {
+                return data;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return createdAt;
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package request_logger_store.service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.Dto.EventListDto;
+import request_logger_store.model.Event;
+import request_logger_store.service.kafka.codec.BinaryEventBatchCodec;
+import request_logger_store.service.kafka.codec.EventBatchCodec;
+import request_logger_store.service.kafka.codec.JsonEventBatchCodec;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование сообщения Kafka в {@link Event} на стороне потребителя:
+ * <ul>
+ *     <li>{@code json}, {@code binary-v1} — декодирование в {@link EventListDto} и повторная сериализация
+ *     списка в JSON, как в {@link KafkaConsumer} и {@link KafkaBatchConsumer}</li>
+ *     <li>{@code raw} — потоковый разбор байтов JSON ({@link RawEventParser}), как в {@link KafkaRawBatchConsumer}</li>
+ * </ul>
+ * Запуск: {@code ./mvnw -Pjmh test-compile exec:exec -Djmh.include=ConsumerDeserializationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsumerDeserializationBenchmark {
+
+    private static final String RAW = "raw";
+
+    /** Событий в сообщении; размер сообщения растёт линейно. */
+    @Param({"10", "100", "1000"})
+    private int batchSize;
+
+    @Param({JsonEventBatchCodec.NAME, BinaryEventBatchCodec.NAME, RAW})
+    private String path;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private EventBatchCodec codec;
+    private byte[] message;
+
+    @Setup
+    public void setUp() throws IOException {
+        codec = BinaryEventBatchCodec.NAME.equals(path) ? new BinaryEventBatchCodec() : new JsonEventBatchCodec();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        List<EventDto> events = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            events.add(new EventDto(start.plusNanos(i * 1_000_123L)));
+        }
+        message = codec.encode(new EventListDto(events));
+    }
+
+    @Benchmark
+    public Event toEvent() throws IOException {
+        if (RAW.equals(path)) {
+            return RawEventParser.parse(message);
+        }
+        EventListDto eventListDto = codec.decode(message);
+        String jsonList = objectMapper.writeValueAsString(eventListDto.getEventDto());
+        return Event.fromDtos(jsonList, eventListDto.getEventDto());
+    }
+}
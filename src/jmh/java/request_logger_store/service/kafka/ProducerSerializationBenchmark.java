@@ -0,0 +1,65 @@
+package request_logger_store.service.kafka;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.Dto.EventListDto;
+import request_logger_store.service.kafka.codec.BinaryEventBatchCodec;
+import request_logger_store.service.kafka.codec.EventBatchCodecs;
+import request_logger_store.service.kafka.codec.JsonEventBatchCodec;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кодирование пакета перед отправкой в {@link KafkaProducer}: тот же вызов
+ * {@code codecs.producerCodec().encode(batch)}, что и при формировании записи.
+ * <p>
+ * Запуск: {@code ./mvnw -Pjmh test-compile exec:exec -Djmh.include=ProducerSerializationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProducerSerializationBenchmark {
+
+    /** Событий в пакете; размер сообщения растёт линейно. */
+    @Param({"10", "100", "1000"})
+    private int batchSize;
+
+    @Param({JsonEventBatchCodec.NAME, BinaryEventBatchCodec.NAME})
+    private String codec;
+
+    private EventBatchCodecs codecs;
+    private EventListDto batch;
+
+    @Setup
+    public void setUp() {
+        codecs = new EventBatchCodecs(List.of(new JsonEventBatchCodec(), new BinaryEventBatchCodec()), codec);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        List<EventDto> events = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            events.add(new EventDto(start.plusNanos(i * 1_000_123L)));
+        }
+        batch = new EventListDto(events);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return codecs.producerCodec().encode(batch);
+    }
+}
@@ -0,0 +1,32 @@
+package request_logger_store.Dto;
+
+import java.time.LocalDateTime;
+
+public class EventCountDto {
+    private LocalDateTime bucket;
+    private long count;
+
+    public EventCountDto() {
+    }
+
+    public EventCountDto(LocalDateTime bucket, long count) {
+        this.bucket = bucket;
+        this.count = count;
+    }
+
+    public LocalDateTime getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(LocalDateTime bucket) {
+        this.bucket = bucket;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
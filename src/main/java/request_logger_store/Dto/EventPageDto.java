@@ -0,0 +1,32 @@
+package request_logger_store.Dto;
+
+import java.util.List;
+
+public class EventPageDto {
+    private List<EventDto> events;
+    private String nextCursor;
+
+    public EventPageDto() {
+    }
+
+    public EventPageDto(List<EventDto> events, String nextCursor) {
+        this.events = events;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<EventDto> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<EventDto> events) {
+        this.events = events;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -2,6 +2,7 @@ package request_logger_store;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
@@ -10,6 +11,9 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @EnableKafka
 public class RequestLoggerStoreApplication {
     public static void main(String[] args) {
-        SpringApplication.run(RequestLoggerStoreApplication.class, args);
+        SpringApplication application = new SpringApplication(RequestLoggerStoreApplication.class);
+        // Фазы запуска контекста для /actuator/startup
+        application.setApplicationStartup(new BufferingApplicationStartup(2048));
+        application.run(args);
     }
 }
@@ -3,36 +3,37 @@ package request_logger_store.component;
 import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 
 /**
- * Компонент для корректного завершения работы {@link ExecutorService} при выключении Spring-контекста.
+ * Компонент для корректного завершения работы всех {@link ExecutorService} при выключении Spring-контекста.
  * <p>
- * Использует аннотацию {@link PreDestroy}, чтобы остановить пул потоков перед завершением работы приложения,
+ * Использует аннотацию {@link PreDestroy}, чтобы остановить пулы потоков перед завершением работы приложения,
  * предотвращая утечки ресурсов и обеспечивая корректное завершение задач.
  */
 @Component
 public class ExecutorShutdownHook {
 
-    private final ExecutorService executor;
+    private final List<ExecutorService> executors;
 
     /**
-     * Конструктор для инъекции пула потоков.
+     * Конструктор для инъекции пулов потоков.
      *
-     * @param executor Пул потоков, который должен быть остановлен при завершении работы приложения
+     * @param executors Пулы потоков, которые должны быть остановлены при завершении работы приложения
      */
-    public ExecutorShutdownHook(ExecutorService executor) {
-        this.executor = executor;
+    public ExecutorShutdownHook(List<ExecutorService> executors) {
+        this.executors = executors;
     }
 
     /**
      * Метод, вызываемый перед уничтожением бина.
      * <p>
-     * Прерывает выполнение всех задач и освобождает ресурсы, связанные с пулом потоков.
+     * Прерывает выполнение всех задач и освобождает ресурсы, связанные с пулами потоков.
      * Используется для корректного завершения работы приложения.
      */
     @PreDestroy
     public void shutdown() {
-        executor.shutdownNow();
+        executors.forEach(ExecutorService::shutdownNow);
     }
 }
\ No newline at end of file
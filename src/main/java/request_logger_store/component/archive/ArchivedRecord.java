@@ -0,0 +1,13 @@
+package request_logger_store.component.archive;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка {@code event_record}, перенесённая в холодное хранилище.
+ *
+ * @param eventTime Время события
+ * @param id        Идентификатор строки, сохранённый из {@code event_record}: порядок {@code (event_time, id)}
+ *                  и курсоры страниц общие для БД и архива
+ */
+public record ArchivedRecord(LocalDateTime eventTime, long id) {
+}
@@ -0,0 +1,140 @@
+package request_logger_store.component.archive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Холодное хранилище событий: сегменты {@link EventSegment} под {@code ${app.data-dir}/archive}, в которые
+ * {@link EventArchiver} переносит старые пакеты из БД.
+ * <p>
+ * Действительные сегменты перечислены в таблице {@code event_archive_segment}: строка добавляется в той же
+ * транзакции, что удаляет перенесённые строки из БД, поэтому событие видно ровно в одном месте — в БД или
+ * в архиве. Файлы, которых нет в таблице, не читаются. Список перечитывается при первом обращении и после
+ * каждого запуска архиватора ({@link #refresh()}); для нескольких экземпляров приложения каталог данных должен
+ * быть общим.
+ * <p>
+ * Сегменты отображаются в память целиком; чтение диапазона обращается только к сегментам и блокам, чьи
+ * минимальное и максимальное время его пересекают.
+ */
+@Component
+public class ColdStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColdStore.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+    private final Set<String> missing = new HashSet<>();
+    private volatile List<EventSegment> segments;
+
+    /**
+     * @param jdbcTemplate Доступ к реестру сегментов
+     * @param dataDir      Каталог данных приложения
+     */
+    public ColdStore(JdbcTemplate jdbcTemplate, @Value("${app.data-dir:data}") String dataDir) throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = Path.of(dataDir, "archive");
+        Files.createDirectories(directory);
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Возвращает строки архива из диапазона {@code [from, to)} строго после {@code (afterTime, afterId)}
+     * в порядке {@code (event_time, id)}, не больше {@code limit}.
+     */
+    public List<ArchivedRecord> findPageAfter(LocalDateTime from, LocalDateTime to, LocalDateTime afterTime,
+                                              long afterId, int limit) {
+        List<ArchivedRecord> page = new ArrayList<>();
+        for (EventSegment segment : segments()) {
+            if (segment.overlaps(from, to)) {
+                page.addAll(segment.findPageAfter(from, to, afterTime, afterId, limit));
+            }
+        }
+        page.sort(Comparator.comparing(ArchivedRecord::eventTime).thenComparingLong(ArchivedRecord::id));
+        return page.size() > limit ? page.subList(0, limit) : page;
+    }
+
+    /**
+     * @return Число событий в архиве
+     */
+    public long rows() {
+        return segments().stream().mapToLong(EventSegment::rows).sum();
+    }
+
+    /**
+     * Передаёт время каждого события архива, сегмент за сегментом.
+     */
+    public void forEachEventTime(Consumer<LocalDateTime> action) {
+        for (EventSegment segment : segments()) {
+            segment.forEachEventTime(action);
+        }
+    }
+
+    /**
+     * Перечитывает реестр: открывает новые сегменты и забывает удалённые.
+     */
+    public synchronized void refresh() {
+        List<String> files = jdbcTemplate.queryForList(
+            "SELECT file FROM event_archive_segment ORDER BY window_start, file", String.class);
+        Map<String, EventSegment> opened = new HashMap<>();
+        if (segments != null) {
+            segments.forEach(segment -> opened.put(segment.path().getFileName().toString(), segment));
+        }
+        List<EventSegment> refreshed = new ArrayList<>(files.size());
+        for (String file : files) {
+            EventSegment segment = opened.get(file);
+            if (segment == null) {
+                segment = open(file);
+            }
+            if (segment != null) {
+                refreshed.add(segment);
+            }
+        }
+        if (segments == null || refreshed.size() != segments.size()) {
+            logger.info(">>>>>>>Архив событий: {} сегментов, {} событий", refreshed.size(),
+                refreshed.stream().mapToLong(EventSegment::rows).sum());
+        }
+        segments = List.copyOf(refreshed);
+    }
+
+    private EventSegment open(String file) {
+        try {
+            EventSegment segment = EventSegment.open(directory.resolve(file));
+            missing.remove(file);
+            return segment;
+        } catch (IOException e) {
+            if (missing.add(file)) {
+                logger.error("<<<<<<<Сегмент архива {} недоступен, события из него не читаются: {}",
+                    file, e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    private List<EventSegment> segments() {
+        List<EventSegment> current = segments;
+        if (current == null) {
+            refresh();
+            current = segments;
+        }
+        return current;
+    }
+}
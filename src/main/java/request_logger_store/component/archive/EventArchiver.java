@@ -0,0 +1,410 @@
+package request_logger_store.component.archive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import request_logger_store.component.cache.FlatEventCache;
+import request_logger_store.component.db.PartitionManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Перенос старых пакетов из БД в холодное хранилище {@link ColdStore}.
+ * <p>
+ * По расписанию ({@code app.archive.check-interval}) архиватор берёт самое старое окно {@code created_at}
+ * размером {@code app.partition.interval}, целиком вышедшее за порог {@code app.archive.after}, и в одной
+ * транзакции:
+ * <ul>
+ *     <li>блокирует запись в секцию {@code event} этого окна (или в {@code event_default}, если секции нет);</li>
+ *     <li>отбирает пакеты, которые строки {@code event_record} описывают полностью: каждый элемент
+ *     {@code data} — событие со временем;</li>
+ *     <li>читает строки {@code event_record} этих пакетов в порядке {@code (event_time, id)} и пишет их
+ *     в сегменты {@link EventSegment} (новый сегмент — после {@code app.archive.max-segment-size});</li>
+ *     <li>регистрирует сегменты в {@code event_archive_segment}, удаляет перенесённые строки
+ *     {@code event_record} и {@code event}, а опустевшую секцию {@code event} — целиком.</li>
+ * </ul>
+ * Пакеты с событиями без времени, {@code null}-элементами или без событий сегмент сохранить не может, они
+ * остаются в БД.
+ * Если транзакция не зафиксирована, созданные файлы удаляются. За запуск обрабатывается не больше
+ * {@code app.archive.max-windows-per-run} окон. Если задан срок хранения {@code app.partition.retention}, окна
+ * старше него не архивируются — их обрабатывает {@link PartitionManager}; сегменты, вышедшие за этот срок,
+ * удаляются здесь же.
+ * Так архив меняет только место хранения, но не срок жизни событий. Одновременную работу нескольких
+ * экземпляров исключает advisory-блокировка PostgreSQL.
+ * <p>
+ * Пакет, повторно доставленный из Kafka после архивации своего окна, снова попадёт в БД и будет перенесён
+ * в архив следующим запуском отдельным сегментом.
+ * <p>
+ * Архиватор включается явно ({@code app.archive.enabled=true}): сегменты — единственная копия перенесённых
+ * событий, поэтому {@code app.data-dir} должен быть абсолютным путём на постоянном хранилище (в Docker —
+ * смонтированный том), иначе приложение не запускается.
+ */
+@Component
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+public class EventArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventArchiver.class);
+    private static final long ADVISORY_LOCK_KEY = 0x61726368L;
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmm");
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final ColdStore coldStore;
+    private final FlatEventCache flatEventCache;
+    private final Duration after;
+    private final Duration interval;
+    private final Duration retention;
+    private final long maxSegmentBytes;
+    private final int maxWindowsPerRun;
+
+    /**
+     * @param dataDir          Каталог данных приложения, абсолютный путь вне временного каталога
+     * @param after            Возраст окна, после которого его пакеты переносятся в архив
+     * @param interval         Размер окна, совпадает с размером секции {@code event}
+     * @param retention        Срок хранения событий, общий для БД и архива; {@code null} — без ограничения
+     * @param maxSegmentSize   Размер данных сегмента, после которого начинается следующий, не больше 1 ГБ
+     * @param maxWindowsPerRun Сколько окон переносить за один запуск
+     */
+    public EventArchiver(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        ColdStore coldStore,
+        FlatEventCache flatEventCache,
+        @Value("${app.data-dir:data}") String dataDir,
+        @Value("${app.archive.after:7d}") Duration after,
+        @Value("${app.partition.interval:1d}") Duration interval,
+        @Value("${app.partition.retention:#{null}}") Duration retention,
+        @Value("${app.archive.max-segment-size:256MB}") DataSize maxSegmentSize,
+        @Value("${app.archive.max-windows-per-run:24}") int maxWindowsPerRun) {
+        if (maxSegmentSize.toBytes() <= 0 || maxSegmentSize.toBytes() > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("app.archive.max-segment-size должен быть от 1 байта до 1 ГБ");
+        }
+        requireDurableDirectory(dataDir);
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.coldStore = coldStore;
+        this.flatEventCache = flatEventCache;
+        this.after = after;
+        this.interval = interval;
+        this.retention = retention;
+        this.maxSegmentBytes = maxSegmentSize.toBytes();
+        this.maxWindowsPerRun = maxWindowsPerRun;
+        if (retention != null && after.compareTo(retention) >= 0) {
+            logger.warn(">>>>>>>app.archive.after ({}) не меньше срока хранения ({}), архив не используется",
+                after, retention);
+        }
+    }
+
+    /**
+     * Проверяет, что каталог данных не потеряется при перезапуске: путь абсолютный (относительный в контейнере
+     * указывает в его удаляемый слой) и не лежит во временном каталоге.
+     *
+     * @throws IllegalStateException если каталог для архива не подходит
+     */
+    static void requireDurableDirectory(String dataDir) {
+        Path path = Path.of(dataDir);
+        if (!path.isAbsolute()) {
+            throw new IllegalStateException("app.archive.enabled=true требует абсолютный app.data-dir на постоянном"
+                + " хранилище, задан: " + dataDir);
+        }
+        Path tmp = Path.of(System.getProperty("java.io.tmpdir")).toAbsolutePath().normalize();
+        if (path.normalize().startsWith(tmp)) {
+            throw new IllegalStateException("app.data-dir во временном каталоге не подходит для архива: " + dataDir);
+        }
+    }
+
+    /**
+     * Удаляет устаревшие сегменты и переносит в архив окна старше {@code app.archive.after}. Окна, в которых
+     * нечего переносить (остались только пакеты, которые нельзя восстановить из архива), пропускаются и
+     * в {@code app.archive.max-windows-per-run} не засчитываются.
+     */
+    @Scheduled(fixedDelayString = "${app.archive.check-interval:PT1H}",
+        initialDelayString = "${app.archive.initial-delay:PT5M}")
+    public void archive() {
+        try {
+            expireSegments();
+            LocalDateTime next = null;
+            int archived = 0;
+            while (archived < maxWindowsPerRun) {
+                WindowResult result = archiveOldestWindow(next);
+                if (result == WindowResult.LOCKED) {
+                    logger.info(">>>>>>>Архивацию выполняет другой экземпляр приложения");
+                    break;
+                }
+                if (result == WindowResult.NONE) {
+                    break;
+                }
+                if (result.events() > 0) {
+                    archived++;
+                }
+                next = result.end();
+            }
+        } catch (Exception e) {
+            logger.error("<<<<<<<Ошибка архивации событий, повтор при следующем запуске: {}", e.getMessage());
+        } finally {
+            coldStore.refresh();
+        }
+    }
+
+    /**
+     * Удаляет из реестра сегменты, вышедшие за срок хранения, а затем их файлы и файлы, которых нет в реестре:
+     * сегменты незафиксированных транзакций, прерванных остановкой приложения. Список файлов составляется
+     * под блокировкой, поэтому сегменты, которые пишет другой экземпляр, в него не попадают; удаляются файлы
+     * только после фиксации транзакции — при откате реестр и файлы остаются согласованными.
+     */
+    private void expireSegments() {
+        List<Path> unregistered = transaction.execute(status -> {
+            if (!tryLock()) {
+                return List.of();
+            }
+            if (retention != null) {
+                List<String> expired = jdbcTemplate.queryForList(
+                    "DELETE FROM event_archive_segment WHERE window_end <= ? RETURNING file", String.class,
+                    Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+                if (!expired.isEmpty()) {
+                    logger.warn(">>>>>>>Сегменты архива удалены по сроку хранения: {}", expired);
+                }
+            }
+            Set<String> registered = new HashSet<>(
+                jdbcTemplate.queryForList("SELECT file FROM event_archive_segment", String.class));
+            try (Stream<Path> files = Files.list(coldStore.directory())) {
+                return files.filter(file -> !registered.contains(file.getFileName().toString())).toList();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        for (Path file : unregistered == null ? List.<Path>of() : unregistered) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.error("<<<<<<<Не удалось удалить файл архива {}, повтор при следующем запуске: {}",
+                    file, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Переносит самое старое окно, начинающееся не раньше {@code next}.
+     *
+     * @param next Конец предыдущего обработанного окна этого запуска или {@code null}
+     */
+    private WindowResult archiveOldestWindow(LocalDateTime next) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = PartitionManager.alignToInterval(now.minus(after), interval);
+        LocalDateTime lowerBound = retention == null ? next : later(next, now.minus(retention));
+        List<Path> created = new ArrayList<>();
+        try {
+            WindowResult result = transaction.execute(status -> {
+                if (!tryLock()) {
+                    return WindowResult.LOCKED;
+                }
+                Timestamp oldest = lowerBound == null
+                    ? jdbcTemplate.queryForObject("SELECT min(created_at) FROM event WHERE created_at < ?",
+                        Timestamp.class, Timestamp.valueOf(cutoff))
+                    : jdbcTemplate.queryForObject(
+                        "SELECT min(created_at) FROM event WHERE created_at >= ? AND created_at < ?", Timestamp.class,
+                        Timestamp.valueOf(lowerBound), Timestamp.valueOf(cutoff));
+                if (oldest == null) {
+                    return WindowResult.NONE;
+                }
+                LocalDateTime from = PartitionManager.alignToInterval(oldest.toLocalDateTime(), interval);
+                return new WindowResult(from.plus(interval), archiveWindow(from, from.plus(interval), created));
+            });
+            if (result != null && result.events() > 0) {
+                coldStore.refresh();
+                flatEventCache.invalidate();
+            }
+            return result == null ? WindowResult.NONE : result;
+        } catch (RuntimeException e) {
+            for (Path file : created) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ex) {
+                    logger.error("<<<<<<<Не удалось удалить сегмент {} неудачной архивации: {}", file, ex.getMessage());
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Переносит в архив пакеты окна, которые восстанавливаются из строк {@code event_record} без потерь: каждый
+     * элемент {@code data} — событие со временем. Пакеты с событиями без времени, {@code null}-элементами или
+     * без событий остаются в БД вместе со своими строками {@code event_record}; секция удаляется, только если
+     * после переноса она пуста.
+     *
+     * @return Число перенесённых пакетов
+     */
+    private long archiveWindow(LocalDateTime from, LocalDateTime to, List<Path> created) {
+        String partition = PartitionManager.partitionName("event", from);
+        boolean hasPartition = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition));
+        String source = hasPartition ? partition : "event_default";
+        jdbcTemplate.execute("LOCK TABLE " + source + " IN SHARE ROW EXCLUSIVE MODE");
+
+        jdbcTemplate.update("CREATE TEMP TABLE archived_event ON COMMIT DROP AS"
+                + " SELECT e.id FROM " + source + " e"
+                + " WHERE e.created_at >= ? AND e.created_at < ?"
+                + " AND EXISTS (SELECT 1 FROM event_record r WHERE r.event_id = e.id)"
+                + " AND (SELECT count(*) FROM event_record r WHERE r.event_id = e.id)"
+                + " = CASE WHEN json_typeof(e.data::json) = 'array' THEN json_array_length(e.data::json) END",
+            Timestamp.valueOf(from), Timestamp.valueOf(to));
+        long events = jdbcTemplate.queryForObject("SELECT count(*) FROM archived_event", Long.class);
+        if (events == 0) {
+            logger.info(">>>>>>>В окне {} — {} нет пакетов, которые можно перенести в архив", from, to);
+            return 0;
+        }
+
+        String prefix = "events-" + SUFFIX_FORMAT.format(from) + "-" + Long.toHexString(System.currentTimeMillis());
+        SegmentSink sink = new SegmentSink(prefix, created);
+        try (sink) {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement("SELECT r.event_time, r.id FROM event_record r"
+                    + " JOIN archived_event a ON a.id = r.event_id"
+                    + " ORDER BY r.event_time, r.id");
+                ps.setFetchSize(FETCH_SIZE);
+                return ps;
+            }, (RowCallbackHandler) rs -> sink.append(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)));
+            sink.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        for (SegmentInfo segment : sink.segments) {
+            jdbcTemplate.update("INSERT INTO event_archive_segment"
+                    + " (file, window_start, window_end, row_count, min_event_time, max_event_time)"
+                    + " VALUES (?, ?, ?, ?, ?, ?)",
+                segment.file(), Timestamp.valueOf(from), Timestamp.valueOf(to), segment.rows(),
+                Timestamp.valueOf(segment.min()), Timestamp.valueOf(segment.max()));
+        }
+        int deleted = jdbcTemplate.update("DELETE FROM event_record r USING archived_event a"
+                + " WHERE r.event_id = a.id AND r.event_time >= ? AND r.event_time <= ?",
+            Timestamp.valueOf(sink.min), Timestamp.valueOf(sink.max));
+        if (deleted != sink.rows) {
+            throw new IllegalStateException("В архив перенесено " + sink.rows + " строк event_record, удалено "
+                + deleted);
+        }
+        jdbcTemplate.update("DELETE FROM " + source + " e USING archived_event a"
+                + " WHERE e.id = a.id AND e.created_at >= ? AND e.created_at < ?",
+            Timestamp.valueOf(from), Timestamp.valueOf(to));
+        long kept = jdbcTemplate.queryForObject("SELECT count(*) FROM " + source
+            + " WHERE created_at >= ? AND created_at < ?", Long.class, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        if (hasPartition && kept == 0) {
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        }
+        logger.warn(">>>>>>>Окно {} — {} перенесено в архив: {} пакетов, {} событий, сегменты {};"
+                + " осталось в БД пакетов: {}", from, to, events, sink.rows,
+            sink.segments.stream().map(SegmentInfo::file).toList(), kept);
+        return events;
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        return a == null || b.isAfter(a) ? b : a;
+    }
+
+    private boolean tryLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY));
+    }
+
+    private record SegmentInfo(String file, long rows, LocalDateTime min, LocalDateTime max) {
+    }
+
+    /**
+     * Итог обработки окна: конец окна и число перенесённых пакетов.
+     */
+    private record WindowResult(LocalDateTime end, long events) {
+
+        /** Архивацию выполняет другой экземпляр. */
+        private static final WindowResult LOCKED = new WindowResult(null, -1);
+        /** Окон старше порога не осталось. */
+        private static final WindowResult NONE = new WindowResult(null, 0);
+    }
+
+    /**
+     * Запись строк окна в последовательность сегментов с переходом к следующему по размеру.
+     */
+    private final class SegmentSink implements AutoCloseable {
+
+        private final String prefix;
+        private final List<Path> created;
+        private final List<SegmentInfo> segments = new ArrayList<>();
+        private EventSegmentWriter writer;
+        private Path target;
+        private LocalDateTime segmentMin;
+        private LocalDateTime segmentMax;
+        private long rows;
+        private LocalDateTime min;
+        private LocalDateTime max;
+
+        private SegmentSink(String prefix, List<Path> created) {
+            this.prefix = prefix;
+            this.created = created;
+        }
+
+        private void append(LocalDateTime eventTime, long id) {
+            try {
+                if (writer != null && writer.bytes() >= maxSegmentBytes) {
+                    finishSegment();
+                }
+                if (writer == null) {
+                    target = coldStore.directory().resolve(prefix + "-" + segments.size() + SEGMENT_SUFFIX);
+                    created.add(target);
+                    writer = new EventSegmentWriter(target.resolveSibling(target.getFileName() + ".tmp"));
+                }
+                writer.append(eventTime, id);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+            segmentMin = segmentMin == null || eventTime.isBefore(segmentMin) ? eventTime : segmentMin;
+            segmentMax = segmentMax == null || eventTime.isAfter(segmentMax) ? eventTime : segmentMax;
+            min = min == null || eventTime.isBefore(min) ? eventTime : min;
+            max = max == null || eventTime.isAfter(max) ? eventTime : max;
+        }
+
+        private void finish() throws IOException {
+            if (writer != null) {
+                finishSegment();
+            }
+        }
+
+        private void finishSegment() throws IOException {
+            writer.finish(target);
+            segments.add(new SegmentInfo(target.getFileName().toString(), writer.rows(), segmentMin, segmentMax));
+            writer = null;
+            segmentMin = null;
+            segmentMax = null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
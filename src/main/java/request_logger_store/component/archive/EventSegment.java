@@ -0,0 +1,254 @@
+package request_logger_store.component.archive;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Неизменяемый файл сегмента холодного хранилища, отображаемый в память только для чтения.
+ * <p>
+ * Сегмент хранит строки {@code event_record} (время события и идентификатор) в порядке {@code (event_time, id)}
+ * столбцами, сжатыми разностным кодированием:
+ * <ul>
+ *     <li>Строки разбиты на блоки по {@value #BLOCK_ROWS}; в блоке для каждой строки записаны приращение времени
+ *     в микросекундах (varint) и приращение идентификатора (zigzag varint), первая строка блока — относительно
+ *     времени из индекса и нуля. Для событий, поступающих потоком, строка занимает 3–5 байт вместо десятков
+ *     байт JSON и индексов в PostgreSQL</li>
+ *     <li>Индекс блоков — первое и последнее время блока, смещение и число строк ({@value #INDEX_ENTRY_SIZE} байт
+ *     на блок): поиск по диапазону читает только блоки, пересекающие его</li>
+ *     <li>Заголовок в конце файла ({@value #FOOTER_SIZE} байт): число строк, минимальное и максимальное время
+ *     сегмента, число блоков, смещение индекса, CRC32 данных и индекса, сигнатура</li>
+ * </ul>
+ * События без времени хранятся первыми со значением {@link Long#MIN_VALUE} и в диапазоны не попадают.
+ * Время хранится как микросекунды от начала эпохи без учёта часового пояса — так же, как {@code TIMESTAMP}
+ * в PostgreSQL. Методы потокобезопасны: чтение использует только абсолютные позиции буфера.
+ */
+public final class EventSegment {
+
+    static final int BLOCK_ROWS = 4096;
+    static final int INDEX_ENTRY_SIZE = 28;
+    static final int FOOTER_SIZE = 44;
+    static final int MAGIC = 0x45565331;
+    static final long NULL_MICROS = Long.MIN_VALUE;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long rows;
+    private final long minMicros;
+    private final long maxMicros;
+    private final long[] blockFirstMicros;
+    private final long[] blockLastMicros;
+    private final int[] blockOffsets;
+    private final int[] blockRows;
+
+    private EventSegment(Path path, MappedByteBuffer buffer, long rows, long minMicros, long maxMicros,
+                         long[] blockFirstMicros, long[] blockLastMicros, int[] blockOffsets, int[] blockRows) {
+        this.path = path;
+        this.buffer = buffer;
+        this.rows = rows;
+        this.minMicros = minMicros;
+        this.maxMicros = maxMicros;
+        this.blockFirstMicros = blockFirstMicros;
+        this.blockLastMicros = blockLastMicros;
+        this.blockOffsets = blockOffsets;
+        this.blockRows = blockRows;
+    }
+
+    /**
+     * Отображает сегмент в память и проверяет его целостность.
+     *
+     * @throws IOException если файл недоступен, повреждён или больше 2 ГБ
+     */
+    public static EventSegment open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FOOTER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Недопустимый размер сегмента " + path + ": " + size);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        int footer = buffer.capacity() - FOOTER_SIZE;
+        if (buffer.getInt(footer + 40) != MAGIC) {
+            throw new IOException("Файл " + path + " не является сегментом архива");
+        }
+        long rows = buffer.getLong(footer);
+        long minMicros = buffer.getLong(footer + 8);
+        long maxMicros = buffer.getLong(footer + 16);
+        int blockCount = buffer.getInt(footer + 24);
+        long indexOffset = buffer.getLong(footer + 28);
+        if (indexOffset < 0 || indexOffset + (long) blockCount * INDEX_ENTRY_SIZE != footer) {
+            throw new IOException("Повреждён индекс сегмента " + path);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, footer));
+        if ((int) crc.getValue() != buffer.getInt(footer + 36)) {
+            throw new IOException("Не совпадает контрольная сумма сегмента " + path);
+        }
+        long[] blockFirstMicros = new long[blockCount];
+        long[] blockLastMicros = new long[blockCount];
+        int[] blockOffsets = new int[blockCount];
+        int[] blockRows = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            int entry = (int) indexOffset + i * INDEX_ENTRY_SIZE;
+            blockFirstMicros[i] = buffer.getLong(entry);
+            blockLastMicros[i] = buffer.getLong(entry + 8);
+            blockOffsets[i] = (int) buffer.getLong(entry + 16);
+            blockRows[i] = buffer.getInt(entry + 24);
+        }
+        return new EventSegment(path, buffer, rows, minMicros, maxMicros, blockFirstMicros, blockLastMicros,
+            blockOffsets, blockRows);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    /**
+     * @return Минимальное время события или {@code null}, если в сегменте нет событий со временем
+     */
+    public LocalDateTime minEventTime() {
+        return minMicros > maxMicros ? null : toTime(minMicros);
+    }
+
+    public LocalDateTime maxEventTime() {
+        return minMicros > maxMicros ? null : toTime(maxMicros);
+    }
+
+    /**
+     * @return {@code true}, если минимальное и максимальное время сегмента допускают строки из {@code [from, to)}
+     */
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return minMicros <= maxMicros && maxMicros >= toMicros(from) && minMicros < toMicros(to);
+    }
+
+    /**
+     * Возвращает строки из диапазона {@code [from, to)} строго после позиции {@code (afterTime, afterId)}
+     * в порядке {@code (event_time, id)} — так же, как
+     * {@link request_logger_store.repository.EventRecordRepository#findPageAfter}.
+     *
+     * @param limit Максимальное число строк
+     */
+    public List<ArchivedRecord> findPageAfter(LocalDateTime from, LocalDateTime to, LocalDateTime afterTime,
+                                              long afterId, int limit) {
+        List<ArchivedRecord> page = new ArrayList<>(Math.min(limit, 1024));
+        if (!overlaps(from, to)) {
+            return page;
+        }
+        long fromMicros = toMicros(from);
+        long toMicros = toMicros(to);
+        long afterMicros = toMicros(afterTime);
+        int block = firstBlockEndingAtOrAfter(Math.max(fromMicros, afterMicros));
+        for (; block < blockRows.length && page.size() < limit; block++) {
+            if (blockFirstMicros[block] >= toMicros) {
+                break;
+            }
+            Decoder decoder = new Decoder(blockOffsets[block], blockFirstMicros[block]);
+            for (int i = 0; i < blockRows[block] && page.size() < limit; i++) {
+                decoder.next();
+                if (decoder.micros >= toMicros) {
+                    return page;
+                }
+                if (decoder.micros >= fromMicros
+                    && (decoder.micros > afterMicros || decoder.micros == afterMicros && decoder.id > afterId)) {
+                    page.add(new ArchivedRecord(toTime(decoder.micros), decoder.id));
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Передаёт время каждого события сегмента в порядке хранения.
+     */
+    public void forEachEventTime(Consumer<LocalDateTime> action) {
+        for (int block = 0; block < blockRows.length; block++) {
+            Decoder decoder = new Decoder(blockOffsets[block], blockFirstMicros[block]);
+            for (int i = 0; i < blockRows[block]; i++) {
+                decoder.next();
+                action.accept(decoder.micros == NULL_MICROS ? null : toTime(decoder.micros));
+            }
+        }
+    }
+
+    /**
+     * @return Номер первого блока, последнее время которого не меньше {@code micros}
+     */
+    private int firstBlockEndingAtOrAfter(long micros) {
+        int low = 0;
+        int high = blockLastMicros.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (blockLastMicros[middle] < micros) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static long toMicros(LocalDateTime time) {
+        if (time == null) {
+            return NULL_MICROS;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime toTime(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+            (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Последовательное чтение строк одного блока.
+     */
+    private final class Decoder {
+
+        private int position;
+        private long micros;
+        private long id;
+        private boolean first = true;
+
+        private Decoder(int position, long firstMicros) {
+            this.position = position;
+            this.micros = firstMicros;
+        }
+
+        private void next() {
+            long timeDelta = readVarint();
+            long idDelta = readVarint();
+            micros += timeDelta;
+            id = first ? unzigzag(idDelta) : id + unzigzag(idDelta);
+            first = false;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package request_logger_store.component.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Запись файла сегмента холодного хранилища; формат описан в {@link EventSegment}.
+ * <p>
+ * Строки передаются в порядке {@code (event_time, id)}, события без времени — первыми. Файл пишется во временный
+ * {@code <имя>.tmp} и появляется под итоговым именем только после {@link #finish(Path)}: сегмент либо записан
+ * целиком, либо отсутствует. {@link #close()} без {@link #finish(Path)} удаляет временный файл.
+ */
+public class EventSegmentWriter implements AutoCloseable {
+
+    private final Path temp;
+    private final OutputStream out;
+    private final CRC32 crc = new CRC32();
+    private final List<long[]> blocks = new ArrayList<>();
+    private final byte[] varint = new byte[10];
+
+    private long bytes;
+    private long rows;
+    private long minMicros = Long.MAX_VALUE;
+    private long maxMicros = Long.MIN_VALUE;
+    private long lastMicros;
+    private long lastId;
+    private int blockRows;
+    private long blockFirstMicros;
+    private long blockOffset;
+    private boolean finished;
+
+    /**
+     * @param temp Временный файл; не должен существовать
+     */
+    public EventSegmentWriter(Path temp) throws IOException {
+        this.temp = temp;
+        this.out = new BufferedOutputStream(Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.WRITE), 64 * 1024);
+    }
+
+    /**
+     * Дописывает строку {@code event_record}.
+     *
+     * @param eventTime Время события или {@code null}
+     * @param id        Идентификатор строки {@code event_record}
+     * @throws IllegalArgumentException если строка не следует за предыдущей в порядке {@code (event_time, id)}
+     */
+    public void append(LocalDateTime eventTime, long id) throws IOException {
+        long micros = EventSegment.toMicros(eventTime);
+        if (rows > 0 && (micros < lastMicros || micros == lastMicros && id <= lastId)) {
+            throw new IllegalArgumentException("Строки сегмента должны следовать в порядке (event_time, id)");
+        }
+        if (blockRows == EventSegment.BLOCK_ROWS) {
+            endBlock();
+        }
+        if (blockRows == 0) {
+            blockFirstMicros = micros;
+            blockOffset = bytes;
+            writeVarint(0);
+            writeVarint(zigzag(id));
+        } else {
+            writeVarint(micros - lastMicros);
+            writeVarint(zigzag(id - lastId));
+        }
+        blockRows++;
+        rows++;
+        lastMicros = micros;
+        lastId = id;
+        if (micros != EventSegment.NULL_MICROS) {
+            minMicros = Math.min(minMicros, micros);
+            maxMicros = Math.max(maxMicros, micros);
+        }
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    /**
+     * @return Размер уже записанных данных в байтах, без индекса блоков
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Дописывает индекс блоков и заголовок, сбрасывает файл на диск и атомарно переименовывает его в {@code target}.
+     */
+    public void finish(Path target) throws IOException {
+        if (blockRows > 0) {
+            endBlock();
+        }
+        long indexOffset = bytes;
+        ByteBuffer index = ByteBuffer.allocate(blocks.size() * EventSegment.INDEX_ENTRY_SIZE);
+        for (long[] block : blocks) {
+            index.putLong(block[0]).putLong(block[1]).putLong(block[2]).putInt((int) block[3]);
+        }
+        write(index.array(), index.array().length);
+        ByteBuffer footer = ByteBuffer.allocate(EventSegment.FOOTER_SIZE)
+            .putLong(rows)
+            .putLong(minMicros)
+            .putLong(maxMicros)
+            .putInt(blocks.size())
+            .putLong(indexOffset)
+            .putInt((int) crc.getValue())
+            .putInt(EventSegment.MAGIC);
+        out.write(footer.array());
+        out.close();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            out.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void endBlock() {
+        blocks.add(new long[]{blockFirstMicros, lastMicros, blockOffset, blockRows});
+        blockRows = 0;
+    }
+
+    private void writeVarint(long value) throws IOException {
+        int length = 0;
+        while ((value & ~0x7FL) != 0) {
+            varint[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        varint[length++] = (byte) value;
+        write(varint, length);
+    }
+
+    private void write(byte[] data, int length) throws IOException {
+        out.write(data, 0, length);
+        crc.update(data, 0, length);
+        bytes += length;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
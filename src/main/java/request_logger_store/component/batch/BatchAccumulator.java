@@ -0,0 +1,305 @@
+package request_logger_store.component.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Накопитель элементов в пакеты с ограниченной ёмкостью.
+ * <p>
+ * Пакет передаётся обработчику, как только выполняется первое из условий:
+ * <ul>
+ *     <li>накоплено {@code maxCount} элементов ({@link FlushReason#COUNT})</li>
+ *     <li>суммарный размер элементов достиг {@code maxBytes} ({@link FlushReason#BYTES})</li>
+ *     <li>самый старый элемент ждёт дольше {@code linger} ({@link FlushReason#LINGER})</li>
+ * </ul>
+ * Отправка выполняется отдельным потоком, поэтому обработчик не блокирует добавляющих.
+ * Если в очереди уже {@code capacity} элементов, поведение {@link #offer(Object)} определяется
+ * {@link OverflowPolicy}. Глубина очереди и счётчики причин отправки доступны для мониторинга.
+ *
+ * @param <T> Тип накапливаемых элементов
+ */
+public class BatchAccumulator<T> implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchAccumulator.class);
+
+    /**
+     * Поведение при заполненной очереди.
+     */
+    public enum OverflowPolicy {
+        /** Ждать освобождения места. */
+        BLOCK,
+        /** Вытеснить самый старый элемент. */
+        DROP_OLDEST,
+        /** Отклонить новый элемент. */
+        REJECT
+    }
+
+    /**
+     * Причина отправки пакета.
+     */
+    public enum FlushReason {
+        COUNT,
+        BYTES,
+        LINGER,
+        CLOSE
+    }
+
+    private final int maxCount;
+    private final long maxBytes;
+    private final long lingerNanos;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final ToIntFunction<T> sizeEstimator;
+    private final Consumer<List<T>> flushHandler;
+
+    private final ArrayDeque<Entry<T>> buffer = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushable = lock.newCondition();
+    private final Thread flusher;
+    private long bufferedBytes;
+    private boolean closed;
+
+    private final Map<FlushReason, AtomicLong> flushCounters = new EnumMap<>(FlushReason.class);
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * @param name           Имя, используемое для потока отправки
+     * @param maxCount       Максимальное число элементов в пакете
+     * @param maxBytes       Максимальный суммарный размер пакета в байтах
+     * @param linger         Максимальное время ожидания самого старого элемента
+     * @param capacity       Максимальное число элементов в очереди, не меньше {@code maxCount}
+     * @param overflowPolicy Поведение при заполненной очереди
+     * @param sizeEstimator  Оценка размера элемента в байтах
+     * @param flushHandler   Обработчик готового пакета
+     */
+    public BatchAccumulator(
+        String name,
+        int maxCount,
+        long maxBytes,
+        Duration linger,
+        int capacity,
+        OverflowPolicy overflowPolicy,
+        ToIntFunction<T> sizeEstimator,
+        Consumer<List<T>> flushHandler) {
+        if (maxCount < 1 || maxBytes < 1 || capacity < maxCount) {
+            throw new IllegalArgumentException("Требуется maxCount >= 1, maxBytes >= 1 и capacity >= maxCount");
+        }
+        this.maxCount = maxCount;
+        this.maxBytes = maxBytes;
+        this.lingerNanos = linger.toNanos();
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.sizeEstimator = sizeEstimator;
+        this.flushHandler = flushHandler;
+        for (FlushReason reason : FlushReason.values()) {
+            flushCounters.put(reason, new AtomicLong());
+        }
+        this.flusher = new Thread(this::runFlusher, name + "-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Добавляет элемент в очередь.
+     *
+     * @param item Элемент
+     * @return {@code false}, если элемент отклонён ({@link OverflowPolicy#REJECT}) или накопитель закрыт
+     * @throws InterruptedException если поток прерван в ожидании места ({@link OverflowPolicy#BLOCK})
+     */
+    public boolean offer(T item) throws InterruptedException {
+        return offer(item, false, 0);
+    }
+
+    /**
+     * Добавляет элемент в очередь, ожидая места ({@link OverflowPolicy#BLOCK}) не дольше {@code timeout}.
+     *
+     * @param item    Элемент
+     * @param timeout Максимальное ожидание места в очереди
+     * @return {@code false}, если элемент отклонён, накопитель закрыт или место не освободилось за {@code timeout}
+     * @throws InterruptedException если поток прерван в ожидании места
+     */
+    public boolean offer(T item, Duration timeout) throws InterruptedException {
+        return offer(item, true, timeout.toNanos());
+    }
+
+    private boolean offer(T item, boolean timed, long timeoutNanos) throws InterruptedException {
+        Entry<T> entry = new Entry<>(item, sizeEstimator.applyAsInt(item), System.nanoTime());
+        long remaining = timeoutNanos;
+        lock.lockInterruptibly();
+        try {
+            while (buffer.size() >= capacity && !closed) {
+                switch (overflowPolicy) {
+                    case BLOCK -> {
+                        if (!timed) {
+                            notFull.await();
+                        } else if (remaining <= 0) {
+                            return false;
+                        } else {
+                            remaining = notFull.awaitNanos(remaining);
+                        }
+                    }
+                    case DROP_OLDEST -> {
+                        bufferedBytes -= buffer.removeFirst().bytes;
+                        droppedCount.incrementAndGet();
+                    }
+                    case REJECT -> {
+                        rejectedCount.incrementAndGet();
+                        return false;
+                    }
+                }
+            }
+            if (closed) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+            buffer.addLast(entry);
+            bufferedBytes += entry.bytes;
+            if (buffer.size() == 1 || buffer.size() >= maxCount || bufferedBytes >= maxBytes) {
+                flushable.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Текущее число элементов в очереди
+     */
+    public int getDepth() {
+        lock.lock();
+        try {
+            return buffer.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getFlushCount(FlushReason reason) {
+        return flushCounters.get(reason).get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Останавливает приём элементов, отправляет оставшиеся и дожидается завершения потока отправки.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            flushable.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flusher.join();
+    }
+
+    private void runFlusher() {
+        while (true) {
+            List<T> batch;
+            FlushReason reason;
+            lock.lock();
+            try {
+                reason = awaitFlushReason();
+                if (reason == null) {
+                    return;
+                }
+                batch = takeBatch();
+                notFull.signalAll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            flushCounters.get(reason).incrementAndGet();
+            try {
+                flushHandler.accept(batch);
+            } catch (Exception e) {
+                logger.error("<<<<<<<Ошибка обработки пакета из {} элементов: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Ожидает, пока очередь будет готова к отправке. Вызывается под блокировкой.
+     *
+     * @return Причина отправки или {@code null}, если накопитель закрыт и очередь пуста
+     */
+    private FlushReason awaitFlushReason() throws InterruptedException {
+        while (true) {
+            if (buffer.isEmpty()) {
+                if (closed) {
+                    return null;
+                }
+                flushable.await();
+                continue;
+            }
+            if (buffer.size() >= maxCount) {
+                return FlushReason.COUNT;
+            }
+            if (bufferedBytes >= maxBytes) {
+                return FlushReason.BYTES;
+            }
+            if (closed) {
+                return FlushReason.CLOSE;
+            }
+            long remaining = buffer.peekFirst().enqueuedAt + lingerNanos - System.nanoTime();
+            if (remaining <= 0) {
+                return FlushReason.LINGER;
+            }
+            flushable.awaitNanos(remaining);
+        }
+    }
+
+    private List<T> takeBatch() {
+        List<T> batch = new ArrayList<>(Math.min(buffer.size(), maxCount));
+        long batchBytes = 0;
+        while (!buffer.isEmpty() && batch.size() < maxCount) {
+            Entry<T> next = buffer.peekFirst();
+            if (!batch.isEmpty() && batchBytes + next.bytes > maxBytes) {
+                break;
+            }
+            buffer.removeFirst();
+            bufferedBytes -= next.bytes;
+            batchBytes += next.bytes;
+            batch.add(next.item);
+        }
+        return batch;
+    }
+
+    private static final class Entry<T> {
+        private final T item;
+        private final int bytes;
+        private final long enqueuedAt;
+
+        private Entry(T item, int bytes, long enqueuedAt) {
+            this.item = item;
+            this.bytes = bytes;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
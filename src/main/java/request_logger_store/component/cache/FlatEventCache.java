@@ -0,0 +1,419 @@
+package request_logger_store.component.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.component.archive.ColdStore;
+import request_logger_store.config.mapper.Mapper;
+import request_logger_store.model.Event;
+import request_logger_store.repository.EventRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Кэш плоского списка событий для {@code /all-events}.
+ * <p>
+ * Список загружается при первом запросе — сначала события архива {@link ColdStore}, затем пакеты из БД;
+ * одновременные запросы ждут одну и ту же загрузку.
+ * После каждой фиксации пакета потребитель передаёт сохранённые события в {@link #append(List)}, и они
+ * дописываются в конец списка без обращения к БД. События, зафиксированные во время загрузки, откладываются
+ * и применяются после неё, если их пакета ещё нет в прочитанных строках.
+ * <p>
+ * Каждое изменение (фиксация пакета, {@link #invalidate()} после удаления секций или переноса в архив) меняет
+ * {@link Tag} — ETag и время последнего изменения, поэтому клиент, уже получивший актуальный список, получает
+ * {@code 304 Not Modified} без обращения к БД, даже если сам список не закэширован. Изменения, сделанные не через
+ * этот экземпляр (записи других экземпляров, перенос в архив и удаление секций на другом узле), обнаруживаются
+ * по числу пакетов и времени создания последнего из них: {@link #currentTag()} сверяет их с БД не чаще раза
+ * в {@code max-age}, а загрузка списка — с прочитанными строками.
+ * <p>
+ * Ограничения памяти и вытеснение:
+ * <ul>
+ *     <li>{@code app.cache.all-events.max-events} — список длиннее не хранится: загрузка читает БД через
+ *     серверный курсор и прекращается, как только событий становится больше лимита, {@link #view()} возвращает
+ *     {@code null}, и ответ выгружается из БД потоково; закэшированный список, выросший сверх лимита,
+ *     удаляется</li>
+ *     <li>{@code app.cache.all-events.expire-after-idle} — список, который не запрашивали дольше, удаляется</li>
+ *     <li>{@code app.cache.all-events.max-age} — список старше перечитывается из БД при следующем запросе:
+ *     так ограничено отставание от записей других экземпляров приложения и удаления секций; с тем же интервалом
+ *     {@link #currentTag()} сверяется с БД</li>
+ * </ul>
+ */
+@Component
+public class FlatEventCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlatEventCache.class);
+
+    /**
+     * Версия содержимого для условных запросов.
+     *
+     * @param etag         Значение заголовка {@code ETag}
+     * @param lastModified Время последнего изменения
+     */
+    public record Tag(String etag, Instant lastModified) {
+    }
+
+    /**
+     * Плоский список событий вместе с версией, которой он соответствует.
+     */
+    public record View(List<EventDto> events, Tag tag) {
+    }
+
+    /**
+     * Закэшированный список: элементы {@code [0, size)} массива не меняются после публикации,
+     * новые события дописываются за {@code size}.
+     */
+    private record Snapshot(EventDto[] events, int size, long loadedAtNanos) {
+    }
+
+    /**
+     * События, прочитанные из архива и БД, идентификаторы прочитанных пакетов и состояние таблицы.
+     */
+    private record Loaded(List<EventDto> events, Set<UUID> ids, DbState state) {
+    }
+
+    /**
+     * Число пакетов в БД и время создания последнего из них.
+     */
+    private record DbState(long rows, LocalDateTime lastCreatedAt) {
+
+        static DbState of(EventRepository.State state) {
+            return new DbState(state.getTotal(), state.getLastCreatedAt());
+        }
+
+        DbState plus(List<Event> events) {
+            LocalDateTime last = lastCreatedAt;
+            for (Event event : events) {
+                last = later(last, event.getCreatedAt());
+            }
+            return new DbState(rows + events.size(), last);
+        }
+
+        static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+            return a == null || (b != null && b.isAfter(a)) ? b : a;
+        }
+    }
+
+    private final EventRepository eventRepository;
+    private final ColdStore coldStore;
+    private final Mapper mapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxEvents;
+    private final long expireAfterIdleNanos;
+    private final long maxAgeNanos;
+    private final String instance = Long.toHexString(System.currentTimeMillis());
+
+    private final Object lock = new Object();
+    private volatile Snapshot snapshot;
+    private volatile Tag tag;
+    private volatile long lastAccessNanos = System.nanoTime();
+    private final AtomicLong verifiedAtNanos = new AtomicLong(System.nanoTime());
+    private long version;
+    private DbState knownState;
+    private long generation;
+    private CompletableFuture<View> loading;
+    private List<Event> committedDuringLoad;
+
+    /**
+     * @param eventRepository    Репозиторий для загрузки списка
+     * @param coldStore          Архив событий, перенесённых из БД
+     * @param mapper             Объект для разбора сохранённых JSON-массивов
+     * @param transactionManager Менеджер транзакций для курсора загрузки
+     * @param maxEvents          Максимальное число событий в кэше
+     * @param expireAfterIdle    Время без запросов, после которого список удаляется
+     * @param maxAge             Время после загрузки, после которого список перечитывается
+     */
+    public FlatEventCache(
+        EventRepository eventRepository,
+        ColdStore coldStore,
+        Mapper mapper,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.cache.all-events.max-events:1000000}") int maxEvents,
+        @Value("${app.cache.all-events.expire-after-idle:10m}") Duration expireAfterIdle,
+        @Value("${app.cache.all-events.max-age:5m}") Duration maxAge) {
+        this.eventRepository = eventRepository;
+        this.coldStore = coldStore;
+        this.mapper = mapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxEvents = maxEvents;
+        this.expireAfterIdleNanos = expireAfterIdle.toNanos();
+        this.maxAgeNanos = maxAge.toNanos();
+        this.tag = newTag();
+    }
+
+    /**
+     * Возвращает текущую версию. Не чаще раза в {@code max-age} сверяет с БД число пакетов и время последнего
+     * из них; если они изменились не через этот экземпляр, версия меняется, а закэшированный список удаляется.
+     *
+     * @return Текущая версия
+     */
+    public Tag currentTag() {
+        long now = System.nanoTime();
+        long verifiedAt = verifiedAtNanos.get();
+        if (now - verifiedAt >= maxAgeNanos && verifiedAtNanos.compareAndSet(verifiedAt, now)) {
+            verify();
+        }
+        return tag;
+    }
+
+    /**
+     * Возвращает плоский список событий из кэша или загружает его из БД.
+     *
+     * @return Список или {@code null}, если событий больше {@code max-events}
+     * @throws UncheckedIOException если сохранённый JSON не удалось разобрать
+     */
+    public View view() {
+        long now = System.nanoTime();
+        lastAccessNanos = now;
+        CompletableFuture<View> load;
+        boolean owner = false;
+        synchronized (lock) {
+            Snapshot current = snapshot;
+            if (current != null && now - current.loadedAtNanos() < maxAgeNanos) {
+                return toView(current, tag);
+            }
+            if (loading == null) {
+                loading = new CompletableFuture<>();
+                committedDuringLoad = new ArrayList<>();
+                owner = true;
+            }
+            load = loading;
+        }
+        if (owner) {
+            load(load);
+        }
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Дописывает в кэш события пакета, зафиксированного в БД.
+     *
+     * @param events События с назначенными идентификаторами
+     */
+    public void append(List<Event> events) {
+        synchronized (lock) {
+            version++;
+            tag = newTag();
+            if (knownState != null) {
+                knownState = knownState.plus(events);
+            }
+            if (loading != null) {
+                committedDuringLoad.addAll(events);
+                return;
+            }
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+            if (System.nanoTime() - lastAccessNanos > expireAfterIdleNanos) {
+                logger.info(">>>>>>Кэш /all-events не запрашивался {} с, удалён",
+                    expireAfterIdleNanos / 1_000_000_000);
+                snapshot = null;
+                return;
+            }
+            try {
+                snapshot = appendTo(current, events);
+            } catch (UncheckedIOException e) {
+                logger.warn("<<<<<<<Не удалось разобрать зафиксированный пакет, кэш /all-events удалён: {}",
+                    e.getMessage());
+                snapshot = null;
+            }
+        }
+    }
+
+    /**
+     * Удаляет закэшированный список и меняет версию, например после удаления устаревших секций.
+     */
+    public void invalidate() {
+        synchronized (lock) {
+            version++;
+            generation++;
+            tag = newTag();
+            snapshot = null;
+        }
+    }
+
+    private void verify() {
+        DbState state;
+        try {
+            state = DbState.of(eventRepository.findState());
+        } catch (DataAccessException e) {
+            logger.warn("<<<<<<<Не удалось сверить кэш /all-events с БД: {}", e.getMessage());
+            return;
+        }
+        boolean changed;
+        synchronized (lock) {
+            changed = knownState != null && !knownState.equals(state);
+            if (changed) {
+                version++;
+                generation++;
+                tag = newTag();
+                snapshot = null;
+            }
+            knownState = state;
+        }
+        if (changed) {
+            logger.info(">>>>>>Таблица событий изменена не через этот экземпляр, кэш /all-events удалён");
+            coldStore.refresh();
+        }
+    }
+
+    private void load(CompletableFuture<View> load) {
+        long startGeneration;
+        synchronized (lock) {
+            startGeneration = generation;
+        }
+        try {
+            Loaded loaded = read();
+            View view = null;
+            synchronized (lock) {
+                if (loaded == null) {
+                    logger.info(">>>>>>Список /all-events превысил {} событий и не хранится в кэше", maxEvents);
+                    snapshot = null;
+                } else {
+                    Snapshot loadedSnapshot = new Snapshot(loaded.events().toArray(EventDto[]::new),
+                        loaded.events().size(), System.nanoTime());
+                    List<Event> missed = committedDuringLoad.stream()
+                        .filter(event -> !loaded.ids().contains(event.getId()))
+                        .toList();
+                    DbState loadedState = loaded.state().plus(missed);
+                    if (knownState != null && !knownState.equals(loadedState)) {
+                        version++;
+                        tag = newTag();
+                    }
+                    knownState = loadedState;
+                    loadedSnapshot = appendTo(loadedSnapshot, missed);
+                    view = toView(loadedSnapshot, tag);
+                    snapshot = generation == startGeneration ? loadedSnapshot : null;
+                    if (snapshot != null) {
+                        logger.info(">>>>>>Кэш /all-events загружен: {} событий", loadedSnapshot.size());
+                    }
+                }
+                loading = null;
+                committedDuringLoad = null;
+            }
+            load.complete(view);
+        } catch (RuntimeException e) {
+            fail(load, e);
+        }
+    }
+
+    /**
+     * Читает события архива, затем пакеты БД через серверный курсор. Чтение прекращается, как только событий
+     * становится больше {@code max-events}, поэтому большая таблица не загружается в память целиком.
+     *
+     * @return Прочитанные события или {@code null}, если их больше {@code max-events}
+     */
+    private Loaded read() {
+        if (coldStore.rows() > maxEvents) {
+            return null;
+        }
+        return readOnlyTransaction.execute(status -> {
+            List<EventDto> events = new ArrayList<>();
+            coldStore.forEachEventTime(eventTime -> events.add(new EventDto(eventTime)));
+            Set<UUID> ids = new HashSet<>();
+            long rows = 0;
+            LocalDateTime lastCreatedAt = null;
+            try (Stream<EventRepository.IdAndData> stream = eventRepository.streamAllIdAndData()) {
+                Iterator<EventRepository.IdAndData> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    EventRepository.IdAndData row = iterator.next();
+                    rows++;
+                    lastCreatedAt = DbState.later(lastCreatedAt, row.getCreatedAt());
+                    ids.add(row.getId());
+                    events.addAll(parse(row.getData()));
+                    if (events.size() > maxEvents) {
+                        return null;
+                    }
+                }
+            }
+            return new Loaded(events, ids, new DbState(rows, lastCreatedAt));
+        });
+    }
+
+    private void fail(CompletableFuture<View> load, RuntimeException e) {
+        synchronized (lock) {
+            loading = null;
+            committedDuringLoad = null;
+        }
+        load.completeExceptionally(e);
+    }
+
+    /**
+     * Дописывает события пакетов, разобранные из {@code data} так же, как при загрузке из БД: в список попадают
+     * и элементы без времени, у которых нет строк {@code event_record}.
+     *
+     * @return Снимок с дописанными событиями или {@code null}, если он превысил {@code max-events}
+     * @throws UncheckedIOException если {@code data} пакета не удалось разобрать
+     */
+    private Snapshot appendTo(Snapshot current, List<Event> events) {
+        List<EventDto> parsed = new ArrayList<>();
+        for (Event event : events) {
+            parsed.addAll(parse(event.getData()));
+        }
+        int added = parsed.size();
+        if ((long) current.size() + added > maxEvents) {
+            logger.info(">>>>>>Список /all-events превысил {} событий и не хранится в кэше", maxEvents);
+            return null;
+        }
+        EventDto[] array = current.events();
+        if (current.size() + added > array.length) {
+            array = Arrays.copyOf(array, Math.max(current.size() + added, array.length * 2));
+        }
+        int size = current.size();
+        for (EventDto event : parsed) {
+            array[size++] = event;
+        }
+        return new Snapshot(array, size, current.loadedAtNanos());
+    }
+
+    private List<EventDto> parse(String data) {
+        try {
+            return mapper.objectMapper().readValue(data, new TypeReference<List<EventDto>>() {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static View toView(Snapshot snapshot, Tag tag) {
+        if (snapshot == null) {
+            return null;
+        }
+        return new View(Collections.unmodifiableList(Arrays.asList(snapshot.events()).subList(0, snapshot.size())),
+            tag);
+    }
+
+    private Tag newTag() {
+        return new Tag("\"" + instance + "-" + version + "\"", Instant.now());
+    }
+}
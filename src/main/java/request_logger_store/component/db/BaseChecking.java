@@ -1,60 +1,56 @@
 package request_logger_store.component.db;
 
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
-import request_logger_store.service.kafka.KafkaControlService;
 
 /**
  * Компонент для проверки доступности базы данных и управления состоянием Kafka-потребителя.
  * <p>
- * Если при сохранении данных в БД происходит ошибка, вызывается метод {@link #checking()},
- * который:
- * <ul>
- *     <li>Проверяет доступность базы данных</li>
- *     <li>При необходимости приостанавливает Kafka-потребителя</li>
- *     <li>Запускает проверку восстановления соединения с БД через {@link DatabaseWatchdog}</li>
- * </ul>
+ * Сохранение в БД выполняется через {@link #protect(Runnable)}: при разомкнутом {@code databaseCircuitBreaker}
+ * вызов сразу завершается {@link io.github.resilience4j.circuitbreaker.CallNotPermittedException}, не занимая
+ * соединение пула. Если при сохранении данных в БД происходит ошибка, вызывается метод {@link #checking()},
+ * который передаёт её в {@link DatabaseHealthMonitor}: тот проверяет доступность базы данных, при необходимости
+ * приостанавливает Kafka-потребителя и возобновляет его после восстановления соединения.
  */
 @Component
 public class BaseChecking {
 
-    private final DatabaseConnectionService databaseConnectionService;
-    private final KafkaControlService kafkaControlService;
-    private final DatabaseWatchdog databaseWatchdog;
+    private final DatabaseHealthMonitor databaseHealthMonitor;
+    private final CircuitBreaker circuitBreaker;
     private static final Logger logger = LoggerFactory.getLogger(BaseChecking.class);
 
     /**
      * Конструктор для создания экземпляра BaseChecking.
      *
-     * @param databaseConnectionService Сервис для проверки доступности базы данных
-     * @param kafkaControlService       Сервис для управления состоянием Kafka-потребителя (пауза/возобновление)
-     * @param databaseWatchdog          Компонент для отслеживания восстановления соединения с БД
+     * @param databaseHealthMonitor Автомат состояния БД
+     * @param circuitBreaker        Размыкатель, защищающий сохранение в БД
      */
     public BaseChecking(
-        DatabaseConnectionService databaseConnectionService,
-        KafkaControlService kafkaControlService,
-        DatabaseWatchdog databaseWatchdog) {
-        this.databaseConnectionService = databaseConnectionService;
-        this.kafkaControlService = kafkaControlService;
-        this.databaseWatchdog = databaseWatchdog;
+        DatabaseHealthMonitor databaseHealthMonitor,
+        @Qualifier("databaseCircuitBreaker") CircuitBreaker circuitBreaker) {
+        this.databaseHealthMonitor = databaseHealthMonitor;
+        this.circuitBreaker = circuitBreaker;
     }
 
     /**
-     * Основной метод проверки состояния базы данных.
-     * <p>
-     * Если база данных недоступна:
-     * <ul>
-     *     <li>Приостанавливается Kafka-потребитель</li>
-     *     <li>Запускается watchdog для отслеживания восстановления подключения</li>
-     * </ul>
+     * Оборачивает операцию сохранения в {@code databaseCircuitBreaker}.
+     *
+     * @param save Операция сохранения
+     * @return Операция, учитываемая размыкателем
+     */
+    public Runnable protect(Runnable save) {
+        return CircuitBreaker.decorateRunnable(circuitBreaker, save);
+    }
+
+    /**
+     * Сообщает об ошибке сохранения: если БД недоступна, потребитель будет приостановлен
+     * до восстановления соединения.
      */
     public void checking() {
-        logger.error(">>>>>>>>> BaseChecking");
-        if (!databaseConnectionService.isDatabaseAvailable()) {
-            kafkaControlService.pause();
-            logger.error("<<<<<<<<<<База данных недоступна, консьюмер установлен на паузу");
-            databaseWatchdog.checkAndResumeIfPossible();
-        }
+        logger.error(">>>>>>>>> BaseChecking, состояние БД: {}", databaseHealthMonitor.getState());
+        databaseHealthMonitor.reportFailure();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,115 @@
+package request_logger_store.component.db;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Источник данных, ограничивающий семафором число одновременно выданных соединений.
+ * <p>
+ * На виртуальных потоках ({@code app.execution.mode=virtual}) число запросов, одновременно обращающихся к БД,
+ * не ограничено размером пула потоков. Без семафора все они ждали бы соединение внутри Hikari с коротким
+ * {@code connection-timeout} и завершались бы ошибкой сверх размера пула. Семафор с честной очередью пропускает
+ * к пулу не больше {@code permits} потоков, остальные ждут разрешения до {@code acquireTimeout}; ожидание на
+ * семафоре не занимает поток-носитель. Разрешение возвращается при закрытии соединения.
+ */
+public class BoundedDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+
+    /**
+     * @param target         Пул соединений
+     * @param permits        Максимум одновременно выданных соединений
+     * @param acquireTimeout Максимальное ожидание разрешения
+     */
+    public BoundedDataSource(DataSource target, int permits, Duration acquireTimeout) {
+        super(target);
+        this.permits = new Semaphore(permits, true);
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasing(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasing(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Потоки, ожидающие разрешения
+     */
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("Соединение с БД не получено за " + acquireTimeout
+                    + ": все разрешения заняты");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Ожидание соединения с БД прервано", e);
+        }
+    }
+
+    /**
+     * Оборачивает соединение так, что первое {@link Connection#close()} возвращает разрешение.
+     */
+    private Connection releasing(Connection target) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+            new Class<?>[]{ConnectionProxy.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getTargetConnection":
+                        return target;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "close":
+                        try {
+                            target.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    default:
+                        try {
+                            return method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                }
+            });
+    }
+}
@@ -2,47 +2,71 @@ package request_logger_store.component.db;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 
 /**
  * Сервис для проверки доступности базы данных.
  * <p>
- * Предоставляет методы для проверки соединения с БД, что может быть использовано,
- * например, для определения необходимости приостановки Kafka-потребителя при недоступности БД.
+ * Проверка выполняется через отдельное соединение, открытое в обход пула Hikari: во время сбоя проверки
+ * не конкурируют с сохранением за соединения пула. Соединение переиспользуется между проверками
+ * и открывается заново, если перестало быть рабочим. Бин создаётся в
+ * {@link request_logger_store.config.DatabaseHealthConfig}.
  */
-@Component
-public class DatabaseConnectionService {
+public class DatabaseConnectionService implements AutoCloseable {
 
     private final DataSource dataSource;
+    private final int validationTimeoutSeconds;
+    private Connection connection;
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConnectionService.class);
 
     /**
      * Конструктор для создания экземпляра DatabaseConnectionService.
      *
-     * @param dataSource Источник данных, используемый для подключения к базе данных
+     * @param dataSource        Источник данных без пула, используемый только для проверок
+     * @param validationTimeout Максимальное время проверки соединения
      */
-    public DatabaseConnectionService(DataSource dataSource) {
+    public DatabaseConnectionService(DataSource dataSource, Duration validationTimeout) {
         this.dataSource = dataSource;
+        this.validationTimeoutSeconds = (int) Math.max(1, validationTimeout.toSeconds());
     }
 
     /**
-     * Проверяет, доступна ли база данных, пытаясь установить соединение.
+     * Проверяет, доступна ли база данных, через выделенное соединение.
      *
-     * @return true, если соединение установлено и не закрыто, иначе false
+     * @return true, если соединение рабочее, иначе false
      */
-    public boolean isDatabaseAvailable() {
-        try (Connection connection = dataSource.getConnection()) {
-            if (connection != null && !connection.isClosed()) {
-                logger.warn(">>>>>>Подключение восстановлено");
+    public synchronized boolean isDatabaseAvailable() {
+        try {
+            if (connection != null && connection.isValid(validationTimeoutSeconds)) {
                 return true;
             }
+            close();
+            connection = dataSource.getConnection();
+            return connection.isValid(validationTimeoutSeconds);
         } catch (SQLException e) {
             logger.error(">>>>>>Ошибка подключения к БД{}", e.getMessage());
+            close();
         }
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Закрывает выделенное соединение.
+     */
+    @Override
+    public synchronized void close() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn(">>>>>>Ошибка закрытия проверочного соединения: {}", e.getMessage());
+        }
+        connection = null;
+    }
+}
@@ -0,0 +1,159 @@
+package request_logger_store.component.db;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import request_logger_store.service.kafka.KafkaControlService;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Единый конечный автомат состояния базы данных.
+ * <p>
+ * Состояния:
+ * <ul>
+ *     <li>{@link State#CLOSED} — БД доступна, сохранение идёт обычным образом</li>
+ *     <li>{@link State#HALF_OPEN} — выполняется проверка соединения</li>
+ *     <li>{@link State#OPEN} — БД недоступна: Kafka-потребитель на паузе, {@link CircuitBreaker} сохранения
+ *     разомкнут, следующая проверка запланирована</li>
+ * </ul>
+ * Ошибка сохранения ({@link #reportFailure()}) или размыкание {@code databaseCircuitBreaker} запускают
+ * одну проверку; пока проверка не закончилась, повторные сигналы игнорируются, поэтому при сбое
+ * работает ровно одна цепочка проверок в одном потоке планировщика. Неудачная проверка переводит автомат
+ * в OPEN и планирует следующую с экспоненциальной задержкой от {@code app.db.health.initial-backoff}
+ * до {@code app.db.health.max-backoff} со случайным разбросом ±50%, чтобы экземпляры приложения
+ * не проверяли БД синхронно. Успешная проверка замыкает {@link CircuitBreaker} и возобновляет потребителя.
+ */
+@Component
+public class DatabaseHealthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseHealthMonitor.class);
+    private static final double JITTER = 0.5;
+
+    /**
+     * Состояние БД с точки зрения приложения.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final DatabaseConnectionService databaseConnectionService;
+    private final KafkaControlService kafkaControlService;
+    private final CircuitBreaker circuitBreaker;
+    private final ScheduledExecutorService scheduler;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private long backoffMillis;
+
+    /**
+     * Конструктор для создания экземпляра DatabaseHealthMonitor.
+     *
+     * @param databaseConnectionService Проверка доступности БД через выделенное соединение
+     * @param kafkaControlService       Сервис для управления состоянием Kafka-потребителя (пауза/возобновление)
+     * @param circuitBreaker            Размыкатель, защищающий сохранение в БД
+     * @param scheduler                 Планировщик проверок
+     * @param initialBackoff            Задержка перед второй проверкой
+     * @param maxBackoff                Максимальная задержка между проверками
+     */
+    public DatabaseHealthMonitor(
+        DatabaseConnectionService databaseConnectionService,
+        KafkaControlService kafkaControlService,
+        @Qualifier("databaseCircuitBreaker") CircuitBreaker circuitBreaker,
+        @Qualifier("databaseHealthScheduler") ScheduledExecutorService scheduler,
+        @Value("${app.db.health.initial-backoff:1s}") Duration initialBackoff,
+        @Value("${app.db.health.max-backoff:30s}") Duration maxBackoff) {
+        this.databaseConnectionService = databaseConnectionService;
+        this.kafkaControlService = kafkaControlService;
+        this.circuitBreaker = circuitBreaker;
+        this.scheduler = scheduler;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = Math.max(initialBackoffMillis, maxBackoff.toMillis());
+        this.backoffMillis = initialBackoffMillis;
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            if (event.getStateTransition().getToState() == CircuitBreaker.State.OPEN) {
+                reportFailure();
+            }
+        });
+    }
+
+    /**
+     * Сообщает об ошибке работы с БД. Если БД считалась доступной, запускает проверку соединения.
+     */
+    public void reportFailure() {
+        if (state.compareAndSet(State.CLOSED, State.HALF_OPEN)) {
+            logger.warn(">>>>>>>Ошибка работы с БД, проверяю соединение");
+            schedule(0);
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    private void probe() {
+        state.set(State.HALF_OPEN);
+        if (databaseConnectionService.isDatabaseAvailable()) {
+            close();
+        } else {
+            open();
+        }
+    }
+
+    private void close() {
+        backoffMillis = initialBackoffMillis;
+        if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+            circuitBreaker.transitionToClosedState();
+        }
+        state.set(State.CLOSED);
+        if (kafkaControlService.isPaused()) {
+            kafkaControlService.resume();
+            logger.warn("<<<<<<<<Подключение к БД восстановлено, консьюмер возобновлён");
+        }
+    }
+
+    private void open() {
+        state.set(State.OPEN);
+        if (circuitBreaker.getState() != CircuitBreaker.State.OPEN) {
+            circuitBreaker.transitionToOpenState();
+        }
+        kafkaControlService.pause();
+        long delay = jittered(backoffMillis);
+        logger.error("<<<<<<<<<<База данных недоступна, консьюмер на паузе, следующая проверка через {} мс", delay);
+        backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+        schedule(delay);
+    }
+
+    private void schedule(long delayMillis) {
+        try {
+            scheduler.schedule(this::runProbe, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.warn(">>>>>>>Планировщик проверок БД остановлен");
+        }
+    }
+
+    private void runProbe() {
+        try {
+            probe();
+        } catch (RuntimeException e) {
+            logger.error(">>>>>>>Ошибка проверки БД: {}", e.getMessage());
+            state.set(State.OPEN);
+            schedule(jittered(backoffMillis));
+        }
+    }
+
+    private static long jittered(long millis) {
+        double factor = 1 + JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return (long) (millis * factor);
+    }
+}
@@ -0,0 +1,217 @@
+package request_logger_store.component.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import request_logger_store.component.cache.FlatEventCache;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Компонент управления секциями таблиц {@code event} (по {@code created_at}) и {@code event_record}
+ * (по {@code event_time}).
+ * <p>
+ * По расписанию ({@code app.partition.check-interval}, первый запуск — при старте приложения):
+ * <ul>
+ *     <li>Заранее создаёт секции на {@code app.partition.premake} интервалов вперёд;
+ *     строки, уже попавшие в секцию DEFAULT за этот диапазон, переносятся в новую секцию</li>
+ *     <li>Если задан срок хранения {@code app.partition.retention}, отсоединяет (по умолчанию,
+ *     {@code app.partition.retention-mode=detach}) или удаляет ({@code drop}) секции, целиком вышедшие
+ *     за этот срок; в режиме удаления устаревшие строки секции DEFAULT удаляются построчно</li>
+ * </ul>
+ * Срок хранения по умолчанию не задан: история, перенесённая миграцией v-1.2 ({@code created_at} заполнен
+ * по самому раннему {@code event_time} пакета), не должна пропадать без явной настройки. Отсоединённая
+ * секция остаётся обычной таблицей, её можно выгрузить и удалить вручную или снова присоединить.
+ * Удаление секции — операция над метаданными, без построчного {@code DELETE}. Одновременная работа
+ * нескольких экземпляров приложения исключается advisory-блокировкой PostgreSQL. После удаления устаревших
+ * строк кэш {@link FlatEventCache} сбрасывается.
+ */
+@Component
+public class PartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionManager.class);
+    private static final long ADVISORY_LOCK_KEY = 0x6576656e74L;
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmm");
+    private static final Pattern BOUND_PATTERN =
+        Pattern.compile("FROM \\('([^']+)'\\) TO \\('([^']+)'\\)");
+    private static final Map<String, String> PARTITIONED_TABLES = Map.of(
+        "event", "created_at",
+        "event_record", "event_time");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final Duration interval;
+    private final int premake;
+    private final Duration retention;
+    private final boolean detachExpired;
+    private final FlatEventCache flatEventCache;
+
+    public PartitionManager(
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        FlatEventCache flatEventCache,
+        @Value("${app.partition.interval:1d}") Duration interval,
+        @Value("${app.partition.premake:3}") int premake,
+        @Value("${app.partition.retention:#{null}}") Duration retention,
+        @Value("${app.partition.retention-mode:detach}") String retentionMode) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.interval = interval;
+        this.premake = premake;
+        this.retention = retention;
+        this.detachExpired = "detach".equalsIgnoreCase(retentionMode);
+        this.flatEventCache = flatEventCache;
+        if (retention == null) {
+            logger.info(">>>>>>>Срок хранения app.partition.retention не задан, устаревшие секции не удаляются");
+        }
+    }
+
+    /**
+     * Создаёт недостающие секции и применяет срок хранения ко всем секционированным таблицам.
+     */
+    @Scheduled(fixedDelayString = "${app.partition.check-interval:PT1H}")
+    public void maintainPartitions() {
+        Boolean locked;
+        AtomicBoolean expired = new AtomicBoolean();
+        try {
+            locked = transaction.execute(status -> {
+                if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY))) {
+                    return false;
+                }
+                LocalDateTime now = LocalDateTime.now();
+                PARTITIONED_TABLES.forEach((table, column) -> {
+                    createPartitions(table, column, now);
+                    if (retention != null && expirePartitions(table, column, now)) {
+                        expired.set(true);
+                    }
+                });
+                return true;
+            });
+        } catch (Exception e) {
+            logger.error("<<<<<<<Ошибка обслуживания секций, повтор при следующем запуске: {}", e.getMessage());
+            return;
+        }
+        if (!Boolean.TRUE.equals(locked)) {
+            logger.info(">>>>>>>Секции обслуживает другой экземпляр приложения");
+            return;
+        }
+        if (expired.get()) {
+            flatEventCache.invalidate();
+        }
+    }
+
+    private void createPartitions(String table, String column, LocalDateTime now) {
+        LocalDateTime from = alignToInterval(now, interval);
+        for (int i = 0; i <= premake; i++) {
+            LocalDateTime to = from.plus(interval);
+            String partition = partitionName(table, from);
+            if (!partitionExists(partition)) {
+                createPartition(table, column, partition, from, to);
+            }
+            from = to;
+        }
+    }
+
+    private void createPartition(String table, String column, String partition, LocalDateTime from, LocalDateTime to) {
+        String bounds = String.format("FOR VALUES FROM ('%s') TO ('%s')", Timestamp.valueOf(from), Timestamp.valueOf(to));
+        Boolean hasDefaultRows = jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM " + table + "_default WHERE " + column + " >= ? AND " + column + " < ?)",
+            Boolean.class, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        if (Boolean.TRUE.equals(hasDefaultRows)) {
+            jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + table + " INCLUDING DEFAULTS)");
+            jdbcTemplate.update("WITH moved AS (DELETE FROM " + table + "_default WHERE " + column + " >= ? AND "
+                    + column + " < ? RETURNING *) INSERT INTO " + partition + " SELECT * FROM moved",
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+            jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + partition + " " + bounds);
+            logger.warn(">>>>>>>Создана секция {} с переносом строк из {}_default", partition, table);
+        } else {
+            jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + table + " " + bounds);
+            logger.info(">>>>>>>Создана секция {}", partition);
+        }
+    }
+
+    /**
+     * @return {@code true}, если были удалены строки или секции
+     */
+    private boolean expirePartitions(String table, String column, LocalDateTime now) {
+        LocalDateTime cutoff = now.minus(retention);
+        boolean expired = false;
+        if (!detachExpired) {
+            int deleted = jdbcTemplate.update(
+                "DELETE FROM " + table + "_default WHERE " + column + " < ?", Timestamp.valueOf(cutoff));
+            if (deleted > 0) {
+                logger.warn(">>>>>>>Из {}_default удалено {} строк по сроку хранения", table, deleted);
+                expired = true;
+            }
+        }
+        List<Map<String, Object>> partitions = jdbcTemplate.queryForList(
+            "SELECT c.relname AS name, pg_get_expr(c.relpartbound, c.oid) AS bound"
+                + " FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+                + " WHERE i.inhparent = ?::regclass", table);
+        for (Map<String, Object> partition : partitions) {
+            String name = (String) partition.get("name");
+            LocalDateTime upperBound = parseUpperBound((String) partition.get("bound"));
+            if (upperBound == null || upperBound.isAfter(cutoff)) {
+                continue;
+            }
+            if (detachExpired) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + name);
+                logger.warn(">>>>>>>Секция {} отсоединена по сроку хранения", name);
+            } else {
+                jdbcTemplate.execute("DROP TABLE " + name);
+                logger.warn(">>>>>>>Секция {} удалена по сроку хранения", name);
+            }
+            expired = true;
+        }
+        return expired;
+    }
+
+    private boolean partitionExists(String partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition));
+    }
+
+    /**
+     * Выравнивает момент времени по сетке интервалов, отсчитываемой от начала эпохи.
+     */
+    public static LocalDateTime alignToInterval(LocalDateTime time, Duration interval) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        long step = interval.getSeconds();
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(seconds, step) * step, 0, ZoneOffset.UTC);
+    }
+
+    public static String partitionName(String table, LocalDateTime from) {
+        return table + "_p" + SUFFIX_FORMAT.format(from);
+    }
+
+    /**
+     * Извлекает верхнюю границу из выражения {@code FOR VALUES FROM (...) TO (...)}.
+     *
+     * @return Верхняя граница или {@code null} для секции DEFAULT
+     */
+    static LocalDateTime parseUpperBound(String bound) {
+        if (bound == null) {
+            return null;
+        }
+        Matcher matcher = BOUND_PATTERN.matcher(bound);
+        if (!matcher.find()) {
+            return null;
+        }
+        return Timestamp.valueOf(matcher.group(2)).toLocalDateTime();
+    }
+}
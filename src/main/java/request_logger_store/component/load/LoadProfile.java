@@ -0,0 +1,71 @@
+package request_logger_store.component.load;
+
+import java.time.Duration;
+
+/**
+ * Профиль нагрузки генератора событий: базовая частота и периодические всплески.
+ * <p>
+ * В начале каждого периода {@code burstPeriod} события в течение {@code burstDuration} создаются с частотой
+ * {@code burstRate}, остальное время периода — с частотой {@code rate}. При {@code burstDuration = 0}
+ * частота постоянна.
+ * <p>
+ * Профиль задаёт расписание, а не задержку между событиями: генератор создаёт столько событий, сколько
+ * должно было появиться к текущему моменту ({@link #eventsDue(long)}), поэтому отставание, накопленное
+ * при заполненной очереди, догоняется, а не теряется.
+ */
+public final class LoadProfile {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double rate;
+    private final double burstRate;
+    private final long periodNanos;
+    private final long burstNanos;
+
+    /**
+     * @param rate          Базовая частота, событий в секунду
+     * @param burstRate     Частота во время всплеска, событий в секунду
+     * @param burstPeriod   Период повторения всплесков
+     * @param burstDuration Длительность всплеска, не больше периода; 0 — без всплесков
+     */
+    public LoadProfile(double rate, double burstRate, Duration burstPeriod, Duration burstDuration) {
+        if (rate < 0 || burstRate < 0) {
+            throw new IllegalArgumentException("Частота генерации не может быть отрицательной");
+        }
+        if (!burstDuration.isZero() && (burstPeriod.isZero() || burstDuration.compareTo(burstPeriod) > 0)) {
+            throw new IllegalArgumentException("Длительность всплеска " + burstDuration
+                + " должна быть не больше периода " + burstPeriod);
+        }
+        this.rate = rate;
+        this.burstRate = burstRate;
+        this.periodNanos = burstPeriod.toNanos();
+        this.burstNanos = burstDuration.toNanos();
+    }
+
+    /**
+     * @return Профиль с постоянной частотой
+     */
+    public static LoadProfile constant(double rate) {
+        return new LoadProfile(rate, 0, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * @param elapsedNanos Время с начала генерации
+     * @return Сколько событий должно быть создано к этому моменту
+     */
+    public long eventsDue(long elapsedNanos) {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        if (burstNanos == 0) {
+            return (long) (rate * elapsedNanos / NANOS_PER_SECOND);
+        }
+        long periods = elapsedNanos / periodNanos;
+        long inPeriod = elapsedNanos % periodNanos;
+        double perPeriod = burstRate * burstNanos + rate * (periodNanos - burstNanos);
+        double current = inPeriod <= burstNanos
+            ? burstRate * inPeriod
+            : burstRate * burstNanos + rate * (inPeriod - burstNanos);
+        return (long) ((periods * perPeriod + current) / NANOS_PER_SECOND);
+    }
+}
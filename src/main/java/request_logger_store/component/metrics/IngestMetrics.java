@@ -0,0 +1,151 @@
+package request_logger_store.component.metrics;
+
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import request_logger_store.model.Event;
+import request_logger_store.model.EventRecord;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики конвейера приёма событий, публикуемые через Micrometer ({@code /actuator/prometheus}).
+ * <p>
+ * Здесь собраны метрики, которые пишутся по ходу обработки:
+ * <ul>
+ *     <li>{@code ingest.producer.send} — время от запуска отправки до подтверждения брокера (с повторами),
+ *     тег {@code outcome}: success | failure</li>
+ *     <li>{@code ingest.producer.spooled} — пакеты, сохранённые в дисковую очередь</li>
+ *     <li>{@code ingest.retry.attempts} — повторные попытки {@link Retry}, тег {@code name}</li>
+ *     <li>{@code ingest.consumer.records} — обработанные сообщения, тег {@code outcome}:
+ *     saved | duplicate | retry | dead-letter; {@code duplicate} — повторно доставленные, уже сохранённые пакеты</li>
+ *     <li>{@code ingest.consumer.persist} — время записи пакета в БД</li>
+ *     <li>{@code ingest.end-to-end.latency} — от {@code EventDto.dateTime} до фиксации в БД</li>
+ *     <li>{@code ingest.consumer.pause.transitions} — паузы и возобновления потребителя, тег {@code action}</li>
+ * </ul>
+ * Таймеры публикуют гистограммы для расчёта перцентилей в Prometheus. Метрики состояния (глубина очередей,
+ * лаг партиций) регистрируются в {@link request_logger_store.config.MetricsConfig}.
+ */
+@Component
+public class IngestMetrics {
+
+    private final MeterRegistry registry;
+    private final Timer sendSuccess;
+    private final Timer sendFailure;
+    private final Counter spooled;
+    private final Timer persist;
+    private final Timer endToEnd;
+    private final Counter saved;
+    private final Counter duplicates;
+    private final Counter retried;
+    private final Counter deadLettered;
+
+    public IngestMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.sendSuccess = sendTimer("success");
+        this.sendFailure = sendTimer("failure");
+        this.spooled = Counter.builder("ingest.producer.spooled")
+            .description("Пакеты, сохранённые в дисковую очередь отправки")
+            .register(registry);
+        this.persist = Timer.builder("ingest.consumer.persist")
+            .description("Время записи пакета в БД")
+            .publishPercentileHistogram()
+            .register(registry);
+        this.endToEnd = Timer.builder("ingest.end-to-end.latency")
+            .description("Время от создания события до фиксации в БД")
+            .publishPercentileHistogram()
+            .maximumExpectedValue(Duration.ofHours(1))
+            .register(registry);
+        this.saved = recordsCounter("saved");
+        this.duplicates = recordsCounter("duplicate");
+        this.retried = recordsCounter("retry");
+        this.deadLettered = recordsCounter("dead-letter");
+    }
+
+    /**
+     * @param startNanos Значение {@link System#nanoTime()} в момент запуска отправки
+     */
+    public void recordSend(long startNanos, boolean success) {
+        (success ? sendSuccess : sendFailure).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSpooled() {
+        spooled.increment();
+    }
+
+    /**
+     * Считает повторные попытки {@link Retry}.
+     */
+    public Retry bindRetry(Retry retry) {
+        Counter attempts = Counter.builder("ingest.retry.attempts")
+            .description("Повторные попытки")
+            .tag("name", retry.getName())
+            .register(registry);
+        retry.getEventPublisher().onRetry(event -> attempts.increment());
+        return retry;
+    }
+
+    /**
+     * Записывает время сохранения пакета, число сохранённых сообщений и сквозную задержку каждого события.
+     *
+     * @param startNanos Значение {@link System#nanoTime()} перед записью
+     * @param events     Сохранённые пакеты
+     */
+    public void recordPersisted(long startNanos, List<Event> events) {
+        persist.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        saved.increment(events.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (Event event : events) {
+            for (EventRecord record : event.getRecords()) {
+                if (record.getEventTime() != null) {
+                    endToEnd.record(Duration.between(record.getEventTime(), now));
+                }
+            }
+        }
+    }
+
+    /**
+     * Считает пакеты, пропущенные при записи, так как они уже были сохранены.
+     */
+    public void recordDuplicates(int count) {
+        if (count > 0) {
+            duplicates.increment(count);
+        }
+    }
+
+    public void recordRetried() {
+        retried.increment();
+    }
+
+    public void recordDeadLettered() {
+        deadLettered.increment();
+    }
+
+    public void recordPaused() {
+        registry.counter("ingest.consumer.pause.transitions", "action", "pause").increment();
+    }
+
+    public void recordResumed() {
+        registry.counter("ingest.consumer.pause.transitions", "action", "resume").increment();
+    }
+
+    private Counter recordsCounter(String outcome) {
+        return Counter.builder("ingest.consumer.records")
+            .description("Обработанные сообщения Kafka")
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+
+    private Timer sendTimer(String outcome) {
+        return Timer.builder("ingest.producer.send")
+            .description("Время отправки пакета в Kafka до подтверждения брокера")
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+}
@@ -0,0 +1,283 @@
+package request_logger_store.component.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Дисковая FIFO-очередь записей на отображаемых в память файлах.
+ * <p>
+ * Записи дописываются в конец текущего сегмента {@code segment-<номер>.spool} фиксированного размера;
+ * заполненный сегмент закрывается и создаётся следующий. Запись хранится как {@code [длина][CRC32][данные]}
+ * и сбрасывается на диск сразу после добавления. Позиция чтения хранится в файле {@code cursor}
+ * и обновляется после каждого {@link #advance()}; полностью прочитанные сегменты удаляются.
+ * <p>
+ * При открытии очередь восстанавливается: конец записи ищется сканированием последнего сегмента,
+ * недописанная или повреждённая запись в его конце отбрасывается. Так как позиция чтения сохраняется
+ * после обработки записи, после аварийного перезапуска последняя запись может быть выдана повторно.
+ * <p>
+ * В памяти одновременно отображаются не более двух сегментов — читаемый и записываемый.
+ * Методы потокобезопасны.
+ */
+public class MappedSpool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedSpool.class);
+    private static final int HEADER_SIZE = 8;
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("segment-(\\d{20})\\.spool");
+    private static final String CURSOR_FILE = "cursor";
+
+    private final Path directory;
+    private final int segmentSize;
+
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private long readSegment;
+    private MappedByteBuffer readBuffer;
+    private int readPosition;
+    private long pending;
+    private boolean closed;
+
+    /**
+     * @param directory   Каталог очереди, создаётся при отсутствии
+     * @param segmentSize Размер файла сегмента в байтах; ограничивает и максимальный размер записи
+     * @throws IOException если каталог или сегменты недоступны
+     */
+    public MappedSpool(Path directory, int segmentSize) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Размер сегмента должен быть больше " + HEADER_SIZE);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    /**
+     * Добавляет запись в конец очереди и сбрасывает её на диск.
+     *
+     * @throws IOException если запись больше сегмента или не удалась запись на диск
+     */
+    public synchronized void append(byte[] entry) throws IOException {
+        ensureOpen();
+        if (entry.length == 0 || entry.length > segmentSize - HEADER_SIZE) {
+            throw new IOException("Недопустимый размер записи: " + entry.length);
+        }
+        if (writeBuffer.position() + HEADER_SIZE + entry.length > segmentSize) {
+            writeSegment++;
+            writeBuffer = map(writeSegment);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(entry);
+        int start = writeBuffer.position();
+        writeBuffer.putInt(entry.length).putInt((int) crc.getValue()).put(entry);
+        writeBuffer.force(start, HEADER_SIZE + entry.length);
+        pending++;
+    }
+
+    /**
+     * @return Первая непрочитанная запись или {@code null}, если очередь пуста
+     */
+    public synchronized byte[] peek() throws IOException {
+        ensureOpen();
+        while (true) {
+            if (readPosition + HEADER_SIZE <= segmentSize) {
+                int length = readBuffer.getInt(readPosition);
+                if (length > 0 && readPosition + HEADER_SIZE + length <= segmentSize) {
+                    byte[] entry = new byte[length];
+                    readBuffer.get(readPosition + HEADER_SIZE, entry);
+                    CRC32 crc = new CRC32();
+                    crc.update(entry);
+                    if ((int) crc.getValue() == readBuffer.getInt(readPosition + 4)) {
+                        return entry;
+                    }
+                    logger.error("<<<<<<<Очередь {}: повреждена запись в сегменте {}, остаток сегмента пропущен",
+                        directory, readSegment);
+                }
+            }
+            if (readSegment >= writeSegment) {
+                return null;
+            }
+            moveToNextSegment();
+        }
+    }
+
+    /**
+     * Отмечает первую запись прочитанной и сохраняет позицию чтения.
+     */
+    public synchronized void advance() throws IOException {
+        if (peek() == null) {
+            return;
+        }
+        readPosition += HEADER_SIZE + readBuffer.getInt(readPosition);
+        pending--;
+        writeCursor();
+    }
+
+    public synchronized boolean isEmpty() {
+        return pending == 0;
+    }
+
+    /**
+     * @return Число непрочитанных записей
+     */
+    public synchronized long size() {
+        return pending;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        writeBuffer = null;
+        readBuffer = null;
+    }
+
+    private void recover() throws IOException {
+        TreeMap<Long, Path> segments = listSegments();
+        long[] cursor = readCursor();
+        if (segments.isEmpty()) {
+            writeSegment = cursor == null ? 0 : cursor[0];
+            writeBuffer = map(writeSegment);
+            readSegment = writeSegment;
+            readBuffer = writeBuffer;
+            readPosition = 0;
+            return;
+        }
+        if (cursor == null || !segments.containsKey(cursor[0])) {
+            readSegment = segments.firstKey();
+            readPosition = 0;
+        } else {
+            readSegment = cursor[0];
+            readPosition = (int) cursor[1];
+        }
+        for (Long segment : new ArrayList<>(segments.headMap(readSegment).keySet())) {
+            Files.deleteIfExists(segments.remove(segment));
+        }
+
+        writeSegment = segments.lastKey();
+        for (Long segment : segments.keySet()) {
+            MappedByteBuffer buffer = map(segment);
+            int end = scan(buffer, segment == readSegment ? readPosition : 0, segment == writeSegment);
+            if (segment == writeSegment) {
+                writeBuffer = buffer;
+                writeBuffer.position(end);
+            }
+            if (segment == readSegment) {
+                readBuffer = buffer;
+            }
+        }
+        logger.info(">>>>>>>Очередь {} восстановлена: {} записей к отправке", directory, pending);
+    }
+
+    /**
+     * Считает записи сегмента начиная с {@code from}; в последнем сегменте обрезает повреждённый хвост.
+     *
+     * @return Позиция после последней целой записи
+     */
+    private int scan(MappedByteBuffer buffer, int from, boolean truncateTail) {
+        int position = from;
+        int count = 0;
+        while (position + HEADER_SIZE <= segmentSize) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > segmentSize) {
+                break;
+            }
+            byte[] entry = new byte[length];
+            buffer.get(position + HEADER_SIZE, entry);
+            CRC32 crc = new CRC32();
+            crc.update(entry);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            position += HEADER_SIZE + length;
+            count++;
+        }
+        if (truncateTail && position + HEADER_SIZE <= segmentSize && buffer.getInt(position) != 0) {
+            logger.warn(">>>>>>>Очередь {}: отброшена недописанная запись в конце сегмента", directory);
+            for (int i = position; i < segmentSize && i < position + HEADER_SIZE; i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+        pending += count;
+        return position;
+    }
+
+    private void moveToNextSegment() throws IOException {
+        Files.deleteIfExists(segmentPath(readSegment));
+        readSegment++;
+        readBuffer = readSegment == writeSegment ? writeBuffer : map(readSegment);
+        readPosition = 0;
+        writeCursor();
+    }
+
+    private MappedByteBuffer map(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private void writeCursor() throws IOException {
+        ByteBuffer cursor = ByteBuffer.allocate(12).putLong(readSegment).putInt(readPosition).flip();
+        Path temp = directory.resolve(CURSOR_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(cursor);
+            channel.force(false);
+        }
+        Files.move(temp, directory.resolve(CURSOR_FILE), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private long[] readCursor() throws IOException {
+        Path cursorFile = directory.resolve(CURSOR_FILE);
+        if (!Files.exists(cursorFile)) {
+            return null;
+        }
+        byte[] bytes = Files.readAllBytes(cursorFile);
+        if (bytes.length != 12) {
+            return null;
+        }
+        ByteBuffer cursor = ByteBuffer.wrap(bytes);
+        return new long[]{cursor.getLong(), cursor.getInt()};
+    }
+
+    private TreeMap<Long, Path> listSegments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> paths = files.toList();
+            for (Path path : paths) {
+                Matcher matcher = SEGMENT_PATTERN.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.put(Long.parseLong(matcher.group(1)), path);
+                }
+            }
+        }
+        return segments;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("segment-%020d.spool", segment));
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Очередь " + directory + " закрыта");
+        }
+    }
+}
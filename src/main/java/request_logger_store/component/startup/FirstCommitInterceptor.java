@@ -0,0 +1,42 @@
+package request_logger_store.component.startup;
+
+import org.apache.kafka.clients.consumer.ConsumerInterceptor;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Map;
+
+/**
+ * Перехватчик потребителя Kafka, отмечающий в {@link StartupReport} первую успешную фиксацию offset'ов.
+ * <p>
+ * Kafka создаёт перехватчик сам, поэтому отчёт передаётся через свойства потребителя под ключом
+ * {@link #REPORT_CONFIG}, см. {@link request_logger_store.config.KafkaConfig}.
+ */
+public class FirstCommitInterceptor implements ConsumerInterceptor<Object, Object> {
+
+    public static final String REPORT_CONFIG = "app.startup.report";
+
+    private StartupReport report;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        report = (StartupReport) configs.get(REPORT_CONFIG);
+    }
+
+    @Override
+    public ConsumerRecords<Object, Object> onConsume(ConsumerRecords<Object, Object> records) {
+        return records;
+    }
+
+    @Override
+    public void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        if (report != null && !offsets.isEmpty()) {
+            report.mark(StartupReport.Phase.FIRST_COMMIT);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,117 @@
+package request_logger_store.component.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Отчёт о запуске: время от старта JVM до каждого этапа, вплоть до первой фиксации offset'ов основным потребителем.
+ * <p>
+ * Этапы публикуются метрикой {@code app.startup.time} с тегом {@code phase} и в {@code /actuator/info}
+ * ({@code startup}, миллисекунды). Фазы запуска контекста Spring подробно — на {@code /actuator/startup}.
+ * Когда фиксируется первый offset, итог записывается в журнал.
+ */
+@Component
+public class StartupReport implements InfoContributor {
+
+    /**
+     * Этапы запуска в порядке прохождения.
+     */
+    public enum Phase {
+        /** Контекст Spring запущен, HTTP принимает запросы */
+        CONTEXT_READY("context-ready"),
+        /** Прогрев завершён ({@link StartupWarmUp}) */
+        WARMED_UP("warmed-up"),
+        /** Контейнер основного потребителя запущен */
+        LISTENER_STARTED("listener-started"),
+        /** Первая фиксация offset'ов основного потребителя */
+        FIRST_COMMIT("first-commit");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupReport.class);
+
+    private final long jvmStartMillis;
+    private final LongSupplier clock;
+    private final Map<Phase, Long> reached = new EnumMap<>(Phase.class);
+
+    @Autowired
+    public StartupReport(MeterRegistry registry) {
+        this(registry, ManagementFactory.getRuntimeMXBean().getStartTime(), System::currentTimeMillis);
+    }
+
+    /**
+     * @param jvmStartMillis Время старта JVM
+     * @param clock          Текущее время в миллисекундах
+     */
+    StartupReport(MeterRegistry registry, long jvmStartMillis, LongSupplier clock) {
+        this.jvmStartMillis = jvmStartMillis;
+        this.clock = clock;
+        for (Phase phase : Phase.values()) {
+            TimeGauge.builder("app.startup.time", this, TimeUnit.MILLISECONDS, report -> report.elapsed(phase))
+                .description("Время от старта JVM до этапа запуска")
+                .tag("phase", phase.tag())
+                .register(registry);
+        }
+    }
+
+    /**
+     * Отмечает этап; повторные отметки игнорируются.
+     */
+    public void mark(Phase phase) {
+        long elapsed = clock.getAsLong() - jvmStartMillis;
+        synchronized (reached) {
+            if (reached.putIfAbsent(phase, elapsed) != null) {
+                return;
+            }
+        }
+        if (phase == Phase.FIRST_COMMIT) {
+            logger.info(">>>>>>>Запуск: {} мс от старта JVM до первой фиксации offset'ов, этапы: {}", elapsed,
+                phases());
+        }
+    }
+
+    /**
+     * @return Пройденные этапы и время от старта JVM до них в миллисекундах
+     */
+    public Map<String, Long> phases() {
+        Map<String, Long> phases = new LinkedHashMap<>();
+        synchronized (reached) {
+            reached.forEach((phase, elapsed) -> phases.put(phase.tag(), elapsed));
+        }
+        return phases;
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        builder.withDetail("startup", phases());
+    }
+
+    private double elapsed(Phase phase) {
+        synchronized (reached) {
+            Long elapsed = reached.get(phase);
+            return elapsed != null ? elapsed : Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package request_logger_store.component.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.Dto.EventListDto;
+import request_logger_store.config.mapper.Mapper;
+import request_logger_store.service.kafka.RawEventParser;
+import request_logger_store.service.kafka.codec.EventBatchCodec;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Прогрев перед вступлением в группу потребителей.
+ * <p>
+ * Основной слушатель ({@code myCustomConsumerId}) не запускается вместе с контекстом ({@code autoStartup = "false"}):
+ * после {@link ApplicationReadyEvent} этот компонент
+ * <ul>
+ *     <li>многократно кодирует и разбирает тестовый пакет всеми форматами {@link EventBatchCodec}, потоковым
+ *     разбором {@link RawEventParser} и {@link ObjectMapper}, чтобы JIT скомпилировал горячие пути Jackson
+ *     до первых записей из топика</li>
+ *     <li>одновременно берёт из пула Hikari {@code app.startup.warm-up.connections} соединений (по умолчанию
+ *     {@code maximum-pool-size}) и проверяет их запросом, чтобы первые пакеты не ждали открытия соединений</li>
+ * </ul>
+ * и только затем запускает контейнер слушателя. Прогрев ограничен {@code app.startup.warm-up.max-duration}; если БД
+ * недоступна, потребитель всё равно запускается — её состояние отслеживает
+ * {@link request_logger_store.component.db.DatabaseHealthMonitor}.
+ * <p>
+ * При {@code app.startup.training-run=true} после прогрева приложение завершается, не подключаясь к БД и брокеру:
+ * так выполняется пробный запуск для архива AppCDS при сборке образа (профиль {@code cds-training}, см. Dockerfile).
+ */
+@Component
+public class StartupWarmUp {
+
+    static final String LISTENER_ID = "myCustomConsumerId";
+    private static final int SAMPLE_EVENTS = 100;
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmUp.class);
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final List<EventBatchCodec> codecs;
+    private final Mapper mapper;
+    private final DataSource dataSource;
+    private final StartupReport report;
+    private final boolean enabled;
+    private final int iterations;
+    private final int connections;
+    private final Duration maxDuration;
+    private final boolean trainingRun;
+
+    /**
+     * @param registry    Реестр контейнеров слушателей Kafka
+     * @param codecs      Форматы пакетов событий
+     * @param mapper      Общий {@link ObjectMapper}
+     * @param dataSource  Пул соединений с БД
+     * @param report      Отчёт о запуске
+     * @param enabled     Прогревать ли перед запуском слушателя
+     * @param iterations  Число кодирований и разборов тестового пакета каждым форматом
+     * @param connections Число соединений, открываемых заранее; 0 — размер пула
+     * @param maxDuration Максимальная длительность прогрева
+     * @param trainingRun Завершить приложение после прогрева
+     */
+    @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
+    public StartupWarmUp(
+        KafkaListenerEndpointRegistry registry,
+        List<EventBatchCodec> codecs,
+        Mapper mapper,
+        DataSource dataSource,
+        StartupReport report,
+        @Value("${app.startup.warm-up.enabled:true}") boolean enabled,
+        @Value("${app.startup.warm-up.iterations:2000}") int iterations,
+        @Value("${app.startup.warm-up.connections:0}") int connections,
+        @Value("${app.startup.warm-up.max-duration:30s}") Duration maxDuration,
+        @Value("${app.startup.training-run:false}") boolean trainingRun) {
+        this.registry = registry;
+        this.codecs = codecs;
+        this.mapper = mapper;
+        this.dataSource = dataSource;
+        this.report = report;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.connections = connections;
+        this.maxDuration = maxDuration;
+        this.trainingRun = trainingRun;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        report.mark(StartupReport.Phase.CONTEXT_READY);
+        if (enabled) {
+            long deadline = System.nanoTime() + maxDuration.toNanos();
+            warmUpCodecs(deadline);
+            if (!trainingRun) {
+                primeConnectionPool(deadline);
+            }
+        }
+        report.mark(StartupReport.Phase.WARMED_UP);
+        if (trainingRun) {
+            logger.info(">>>>>>>Пробный запуск завершён, приложение останавливается");
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+            return;
+        }
+        startListener();
+    }
+
+    void warmUpCodecs(long deadline) {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        List<EventDto> events = new ArrayList<>(SAMPLE_EVENTS);
+        for (int i = 0; i < SAMPLE_EVENTS; i++) {
+            events.add(new EventDto(now.plusNanos(i * 1_000L)));
+        }
+        EventListDto batch = new EventListDto(events);
+        ObjectMapper objectMapper = mapper.objectMapper();
+        int done = 0;
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(batch);
+            for (; done < iterations && System.nanoTime() < deadline; done++) {
+                for (EventBatchCodec codec : codecs) {
+                    EventListDto decoded = codec.decode(codec.encode(batch));
+                    objectMapper.writeValueAsString(decoded.getEventDto());
+                }
+                RawEventParser.parse(json);
+            }
+        } catch (IOException e) {
+            logger.warn("<<<<<<<Прогрев форматов пакетов прерван: {}", e.getMessage());
+        }
+        logger.info(">>>>>>>Прогрев форматов пакетов: {} итераций за {} мс", done,
+            Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    void primeConnectionPool(long deadline) {
+        long start = System.nanoTime();
+        List<Connection> opened = new ArrayList<>();
+        try {
+            int target = connections > 0 ? connections : poolSize();
+            while (opened.size() < target && System.nanoTime() < deadline) {
+                Connection connection = dataSource.getConnection();
+                opened.add(connection);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("<<<<<<<Пул соединений прогрет не полностью, БД недоступна: {}", e.getMessage());
+        } finally {
+            for (Connection connection : opened) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    logger.warn("<<<<<<<Не удалось вернуть соединение в пул: {}", e.getMessage());
+                }
+            }
+        }
+        logger.info(">>>>>>>Прогрев пула: {} соединений за {} мс", opened.size(),
+            Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    private int poolSize() throws SQLException {
+        return dataSource.isWrapperFor(HikariDataSource.class)
+            ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+            : 1;
+    }
+
+    private void startListener() {
+        MessageListenerContainer container = registry.getListenerContainer(LISTENER_ID);
+        if (container == null) {
+            throw new IllegalStateException("Контейнер Kafka с ID '" + LISTENER_ID + "' не найден");
+        }
+        container.start();
+        report.mark(StartupReport.Phase.LISTENER_STARTED);
+        logger.info(">>>>>>>Потребитель {} запущен после прогрева", LISTENER_ID);
+    }
+}
@@ -0,0 +1,54 @@
+package request_logger_store.component.trace;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Дописывает участки в {@code ${app.data-dir}/traces/spans.jsonl} по одному JSON-объекту на строку.
+ */
+@Component
+@ConditionalOnProperty(name = "app.tracing.exporter", havingValue = "file")
+public class FileSpanExporter implements SpanExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private final ObjectMapper objectMapper;
+    private final BufferedWriter writer;
+
+    public FileSpanExporter(ObjectMapper objectMapper, @Value("${app.data-dir:data}") String dataDir)
+        throws IOException {
+        this.objectMapper = objectMapper;
+        Path file = Path.of(dataDir, "traces", "spans.jsonl");
+        Files.createDirectories(file.getParent());
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void export(Span span) {
+        try {
+            writer.write(objectMapper.writeValueAsString(span));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            logger.warn("<<<<<<Не удалось записать участок трассы {}: {}", span.traceId(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
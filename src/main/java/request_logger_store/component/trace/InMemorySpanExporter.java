@@ -0,0 +1,82 @@
+package request_logger_store.component.trace;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Хранит последние {@code app.tracing.memory.capacity} участков в памяти для просмотра через {@code /traces}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.tracing.exporter", havingValue = "memory", matchIfMissing = true)
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int capacity;
+    private final ArrayDeque<Span> spans;
+
+    public InMemorySpanExporter(@Value("${app.tracing.memory.capacity:10000}") int capacity) {
+        this.capacity = capacity;
+        this.spans = new ArrayDeque<>(capacity);
+    }
+
+    @Override
+    public synchronized void export(Span span) {
+        if (spans.size() >= capacity) {
+            spans.removeFirst();
+        }
+        spans.addLast(span);
+    }
+
+    /**
+     * @return Участки трассы по времени начала
+     */
+    public List<Span> trace(String traceId) {
+        List<Span> trace = new ArrayList<>();
+        synchronized (this) {
+            for (Span span : spans) {
+                if (span.traceId().equals(traceId)) {
+                    trace.add(span);
+                }
+            }
+        }
+        trace.sort(Comparator.comparingLong(Span::startMicros));
+        return trace;
+    }
+
+    /**
+     * Возвращает трассы с наибольшим временем от начала первого до конца последнего участка.
+     *
+     * @param limit Максимальное число трасс
+     * @return Участки каждой трассы по времени начала, трассы — по убыванию длительности
+     */
+    public List<List<Span>> slowest(int limit) {
+        Map<String, List<Span>> traces = new LinkedHashMap<>();
+        synchronized (this) {
+            for (Span span : spans) {
+                traces.computeIfAbsent(span.traceId(), id -> new ArrayList<>()).add(span);
+            }
+        }
+        return traces.values().stream()
+            .sorted(Comparator.comparingLong(InMemorySpanExporter::duration).reversed())
+            .limit(limit)
+            .peek(trace -> trace.sort(Comparator.comparingLong(Span::startMicros)))
+            .toList();
+    }
+
+    static long duration(List<Span> trace) {
+        long start = Long.MAX_VALUE;
+        long end = Long.MIN_VALUE;
+        for (Span span : trace) {
+            start = Math.min(start, span.startMicros());
+            end = Math.max(end, span.startMicros() + span.durationMicros());
+        }
+        return end - start;
+    }
+}
@@ -0,0 +1,183 @@
+package request_logger_store.component.trace;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Трассировка пакета по этапам конвейера приёма.
+ * <p>
+ * Продюсер начинает трассу для каждого пакета и передаёт её в заголовках записи Kafka:
+ * <ul>
+ *     <li>{@value #TRACEPARENT} — контекст W3C Trace Context</li>
+ *     <li>{@value #QUEUED_AT_HEADER}, {@value #FLUSHED_AT_HEADER}, {@value #SENT_AT_HEADER} — создание самого
+ *     старого события пакета, передача пакета продюсеру и начало отправки, микросекунды от начала эпохи
+ *     (8 байт)</li>
+ * </ul>
+ * Участки трассы:
+ * <ul>
+ *     <li>{@code processor.queue} — ожидание в очереди {@code ProcessorEvent}</li>
+ *     <li>{@code producer.executor} — ожидание кодирования ({@code kafkaEventExecutor}) и очереди
+ *     отправки ({@code kafkaSendExecutor})</li>
+ *     <li>{@code producer.send} — отправка до подтверждения брокера, включая повторы</li>
+ *     <li>{@code kafka.delivery} — от начала отправки до получения потребителем; для топиков повторов
+ *     включает задержку уровня повтора (атрибут {@code topic})</li>
+ *     <li>{@code consumer.deserialize} и {@code consumer.persist} — разбор сообщения и запись в БД</li>
+ * </ul>
+ * Заголовки копируются в топики повторов, поэтому повторная обработка продолжает ту же трассу. Участки
+ * экспортируются для доли {@code app.tracing.sample-rate} пакетов во все {@link SpanExporter}; без экспортёров
+ * ({@code app.tracing.exporter=none}) трассировка выключена. Время продюсера и потребителя сравнивается
+ * по системным часам, поэтому на разных хостах {@code kafka.delivery} включает расхождение часов.
+ */
+@Component
+public class IngestTracer {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestTracer.class);
+
+    public static final String TRACEPARENT = "traceparent";
+    public static final String QUEUED_AT_HEADER = "ingest-queued-at";
+    public static final String FLUSHED_AT_HEADER = "ingest-flushed-at";
+    public static final String SENT_AT_HEADER = "ingest-sent-at";
+
+    private final List<SpanExporter> exporters;
+    private final double sampleRate;
+
+    /**
+     * @param exporters  Получатели участков
+     * @param sampleRate Доля трассируемых пакетов, от 0 до 1
+     */
+    public IngestTracer(List<SpanExporter> exporters, @Value("${app.tracing.sample-rate:1.0}") double sampleRate) {
+        this.exporters = exporters;
+        this.sampleRate = exporters.isEmpty() ? 0 : sampleRate;
+    }
+
+    /**
+     * @return Контекст новой трассы; решение об экспорте принимается здесь и передаётся потребителю
+     */
+    public TraceContext newTrace() {
+        return TraceContext.newRoot(sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * Записывает контекст трассы и время этапов продюсера в заголовки.
+     *
+     * @param queuedAtMicros Создание самого старого события пакета или {@code 0}, если неизвестно
+     */
+    public void inject(Headers headers, TraceContext trace, long queuedAtMicros, long flushedAtMicros) {
+        headers.add(TRACEPARENT, trace.traceparent().getBytes(StandardCharsets.UTF_8));
+        if (queuedAtMicros > 0) {
+            headers.add(QUEUED_AT_HEADER, toBytes(queuedAtMicros));
+        }
+        headers.add(FLUSHED_AT_HEADER, toBytes(flushedAtMicros));
+    }
+
+    /**
+     * Отмечает начало отправки. Вызывается один раз до первой попытки: после отправки заголовки записи
+     * становятся неизменяемыми.
+     */
+    public void markSent(Headers headers, long sentAtMicros) {
+        headers.remove(SENT_AT_HEADER);
+        headers.add(SENT_AT_HEADER, toBytes(sentAtMicros));
+    }
+
+    /**
+     * @return Контекст из заголовков или {@code null}, если трасса не передана или не экспортируется
+     */
+    public TraceContext extract(ConsumerRecord<?, ?> record) {
+        if (sampleRate <= 0) {
+            return null;
+        }
+        Header header = record.headers().lastHeader(TRACEPARENT);
+        if (header == null) {
+            return null;
+        }
+        TraceContext trace = TraceContext.parse(new String(header.value(), StandardCharsets.UTF_8));
+        return trace != null && trace.sampled() ? trace : null;
+    }
+
+    /**
+     * Записывает участок {@code kafka.delivery} от начала отправки до получения сообщения.
+     */
+    public void recordDelivery(ConsumerRecord<?, ?> record, long receivedMicros) {
+        TraceContext trace = extract(record);
+        long sentAt = headerMicros(record.headers(), SENT_AT_HEADER);
+        if (trace != null && sentAt > 0) {
+            record(trace, "kafka.delivery", sentAt, receivedMicros, Map.of(
+                "topic", record.topic(),
+                "partition", String.valueOf(record.partition()),
+                "offset", String.valueOf(record.offset())));
+        }
+    }
+
+    /**
+     * Записывает участок с одинаковыми границами для каждого сообщения пакета, например запись пакета в БД.
+     */
+    public void recordEach(List<? extends ConsumerRecord<?, ?>> records, String name, long startMicros,
+                           long endMicros, Map<String, String> attributes) {
+        if (sampleRate <= 0) {
+            return;
+        }
+        for (ConsumerRecord<?, ?> record : records) {
+            TraceContext trace = extract(record);
+            if (trace != null) {
+                record(trace, name, startMicros, endMicros, attributes);
+            }
+        }
+    }
+
+    /**
+     * Экспортирует участок, дочерний к {@code trace}. Ничего не делает, если трасса не экспортируется.
+     */
+    public void record(TraceContext trace, String name, long startMicros, long endMicros,
+                       Map<String, String> attributes) {
+        if (trace == null || !trace.sampled()) {
+            return;
+        }
+        Span span = new Span(trace.traceId(), TraceContext.newSpanId(), trace.spanId(), name, startMicros,
+            Math.max(0, endMicros - startMicros), attributes);
+        for (SpanExporter exporter : exporters) {
+            try {
+                exporter.export(span);
+            } catch (RuntimeException e) {
+                logger.warn("<<<<<<Ошибка экспорта участка {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return Текущее время в микросекундах от начала эпохи
+     */
+    public long nowMicros() {
+        return toMicros(Instant.now());
+    }
+
+    public static long toMicros(LocalDateTime time) {
+        return toMicros(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    static long headerMicros(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        return header == null || header.value().length != Long.BYTES ? 0 : ByteBuffer.wrap(header.value()).getLong();
+    }
+
+    private static long toMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+    }
+
+    private static byte[] toBytes(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+}
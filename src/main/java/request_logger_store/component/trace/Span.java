@@ -0,0 +1,24 @@
+package request_logger_store.component.trace;
+
+import java.util.Map;
+
+/**
+ * Завершённый участок трассы.
+ *
+ * @param traceId        Идентификатор трассы
+ * @param spanId         Идентификатор участка
+ * @param parentSpanId   Идентификатор родительского участка
+ * @param name           Этап конвейера, например {@code producer.send}
+ * @param startMicros    Начало, микросекунды от начала эпохи
+ * @param durationMicros Длительность в микросекундах
+ * @param attributes     Дополнительные сведения: топик, партиция, размер пакета, результат
+ */
+public record Span(
+    String traceId,
+    String spanId,
+    String parentSpanId,
+    String name,
+    long startMicros,
+    long durationMicros,
+    Map<String, String> attributes) {
+}
@@ -0,0 +1,13 @@
+package request_logger_store.component.trace;
+
+/**
+ * Получатель завершённых участков трассы.
+ * <p>
+ * Реализации выбираются свойством {@code app.tracing.exporter}: {@code memory} ({@link InMemorySpanExporter},
+ * по умолчанию), {@code file} ({@link FileSpanExporter}) или {@code none}. Метод вызывается в потоках
+ * продюсера и потребителя, поэтому не должен блокироваться надолго и выбрасывать исключения.
+ */
+public interface SpanExporter {
+
+    void export(Span span);
+}
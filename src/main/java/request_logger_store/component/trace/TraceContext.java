@@ -0,0 +1,68 @@
+package request_logger_store.component.trace;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Контекст трассировки пакета в формате W3C Trace Context ({@code traceparent}).
+ *
+ * @param traceId Идентификатор трассы, 32 шестнадцатеричных символа
+ * @param spanId  Идентификатор родительского участка, 16 шестнадцатеричных символов
+ * @param sampled Экспортируются ли участки трассы
+ */
+public record TraceContext(String traceId, String spanId, boolean sampled) {
+
+    private static final String VERSION = "00";
+
+    /**
+     * Создаёт контекст новой трассы со случайными идентификаторами.
+     */
+    public static TraceContext newRoot(boolean sampled) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new TraceContext(hex(random.nextLong()) + hex(random.nextLong()), newSpanId(), sampled);
+    }
+
+    static String newSpanId() {
+        return hex(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * @return Значение заголовка {@code traceparent}
+     */
+    public String traceparent() {
+        return VERSION + "-" + traceId + "-" + spanId + "-" + (sampled ? "01" : "00");
+    }
+
+    /**
+     * Разбирает заголовок {@code traceparent}.
+     *
+     * @return Контекст или {@code null}, если значение некорректно
+     */
+    public static TraceContext parse(String traceparent) {
+        if (traceparent == null || traceparent.length() != 55) {
+            return null;
+        }
+        String[] parts = traceparent.split("-");
+        if (parts.length != 4 || !VERSION.equals(parts[0]) || !isHex(parts[1], 32) || !isHex(parts[2], 16)
+            || !isHex(parts[3], 2)) {
+            return null;
+        }
+        return new TraceContext(parts[1], parts[2], (Integer.parseInt(parts[3], 16) & 1) == 1);
+    }
+
+    private static boolean isHex(String value, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String hex(long value) {
+        String hex = Long.toHexString(value);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+}
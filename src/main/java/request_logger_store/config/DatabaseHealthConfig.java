@@ -0,0 +1,65 @@
+package request_logger_store.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import request_logger_store.component.db.DatabaseConnectionService;
+import request_logger_store.service.kafka.retry.FailedRecordRouter;
+
+import java.time.Duration;
+import java.util.Properties;
+
+@Configuration
+public class DatabaseHealthConfig {
+
+    /**
+     * Проверка доступности БД через соединение вне пула Hikari. Источник данных не регистрируется как бин,
+     * чтобы не заменить основной {@code DataSource} приложения.
+     */
+    @Bean(destroyMethod = "close")
+    public DatabaseConnectionService databaseConnectionService(
+        DataSourceProperties dataSourceProperties,
+        @Value("${app.db.health.probe-timeout:3s}") Duration probeTimeout) {
+        DriverManagerDataSource probeDataSource = new DriverManagerDataSource(
+            dataSourceProperties.determineUrl(),
+            dataSourceProperties.determineUsername(),
+            dataSourceProperties.determinePassword());
+        probeDataSource.setDriverClassName(dataSourceProperties.determineDriverClassName());
+        Properties connectionProperties = new Properties();
+        connectionProperties.setProperty("connectTimeout", String.valueOf(Math.max(1, probeTimeout.toSeconds())));
+        connectionProperties.setProperty("loginTimeout", String.valueOf(Math.max(1, probeTimeout.toSeconds())));
+        probeDataSource.setConnectionProperties(connectionProperties);
+        return new DatabaseConnectionService(probeDataSource, probeTimeout);
+    }
+
+    /**
+     * Размыкатель сохранения в БД с настройками {@code resilience4j.circuitbreaker.configs.default}.
+     * Из OPEN его выводит {@link request_logger_store.component.db.DatabaseHealthMonitor} после успешной проверки.
+     * <p>
+     * Неудачей считается только недоступность БД ({@link FailedRecordRouter#isOutage(Throwable)}): строки,
+     * отвергнутые ограничениями БД, и другие ошибки данных уходят в повторы и не размыкают цепь, пока БД работает.
+     */
+    @Bean("databaseCircuitBreaker")
+    public CircuitBreaker databaseCircuitBreaker(
+        @Value("${resilience4j.circuitbreaker.configs.default.failure-rate-threshold:50}") float failureRateThreshold,
+        @Value("${resilience4j.circuitbreaker.configs.default.minimum-number-of-calls:100}") int minimumNumberOfCalls,
+        @Value("${resilience4j.circuitbreaker.configs.default.sliding-window-size:100}") int slidingWindowSize,
+        @Value("${resilience4j.circuitbreaker.configs.default.sliding-window-type:COUNT_BASED}")
+        CircuitBreakerConfig.SlidingWindowType slidingWindowType,
+        @Value("${resilience4j.circuitbreaker.configs.default.wait-duration-in-open-state:60s}")
+        Duration waitDurationInOpenState,
+        @Value("${resilience4j.circuitbreaker.configs.default.permitted-number-of-calls-in-half-open-state:10}")
+        int permittedNumberOfCallsInHalfOpenState) {
+        return CircuitBreaker.of("database", CircuitBreakerConfig.custom()
+            .failureRateThreshold(failureRateThreshold)
+            .slidingWindow(slidingWindowSize, minimumNumberOfCalls, slidingWindowType)
+            .waitDurationInOpenState(waitDurationInOpenState)
+            .permittedNumberOfCallsInHalfOpenState(permittedNumberOfCallsInHalfOpenState)
+            .recordException(FailedRecordRouter::isOutage)
+            .build());
+    }
+}
@@ -1,17 +1,88 @@
 package request_logger_store.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
+/**
+ * Пулы потоков приложения.
+ * <p>
+ * {@code app.execution.mode} выбирает, на чём выполняются отправка в Kafka и обработка частей пакета:
+ * {@code platform} — ограниченные пулы обычных потоков, {@code virtual} — новый виртуальный поток на каждую
+ * задачу (JDK 21+). В режиме {@code virtual} запросы HTTP тоже обрабатываются виртуальными потоками, а число
+ * одновременных обращений к БД ограничивает семафор, см. {@link VirtualThreadConfig}. Планировщики остаются
+ * на обычных потоках: они только ставят задачи по времени.
+ */
 @Configuration
 public class ExecutorConfig {
 
+    private final boolean virtual;
+
+    public ExecutorConfig(@Value("${app.execution.mode:platform}") String mode) {
+        this.virtual = switch (mode) {
+            case "platform" -> false;
+            case "virtual" -> true;
+            default -> throw new IllegalArgumentException("Неизвестный режим app.execution.mode: " + mode
+                + ", доступны platform, virtual");
+        };
+    }
+
+    /**
+     * Пул кодирования пакетов в {@code KafkaProducer}. В режиме {@code virtual} пакеты кодируются параллельно,
+     * а порядок отправки сохраняет {@link #kafkaSendExecutor()}.
+     */
     @Bean("kafkaEventExecutor")
     public ExecutorService executorService() {
-        return Executors.newSingleThreadExecutor();
+        return virtual ? VirtualThreads.newThreadPerTaskExecutor("kafka-encode-") : Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Очередь отправки пакетов в {@code KafkaProducer}: один поток передаёт закодированные пакеты
+     * в {@code KafkaTemplate} в порядке их формирования (в режиме {@code virtual} — один виртуальный поток).
+     * Подтверждения брокера поток не ждёт, число одновременных отправок ограничено
+     * {@code app.kafka.producer.max-in-flight}.
+     */
+    @Bean("kafkaSendExecutor")
+    public ExecutorService kafkaSendExecutor() {
+        return virtual ? VirtualThreads.newSingleThreadExecutor("kafka-send-") : Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Планировщик отложенных повторных отправок в Kafka: ожидание между попытками не занимает поток.
+     */
+    @Bean("kafkaRetryScheduler")
+    public ScheduledExecutorService kafkaRetryScheduler() {
+        return Executors.newSingleThreadScheduledExecutor();
+    }
+
+    /**
+     * Планировщик проверок доступности БД: при сбое работает одна цепочка проверок в одном потоке.
+     */
+    @Bean("databaseHealthScheduler")
+    public ScheduledExecutorService databaseHealthScheduler() {
+        return Executors.newSingleThreadScheduledExecutor();
+    }
+
+    /**
+     * Пул параллельной обработки частей пакета в {@code KafkaBatchConsumer}. Каждый поток потребителя
+     * делит свой пакет не больше чем на {@code app.kafka.consumer.parallel.workers} частей, а пул общий для всех
+     * {@code app.kafka.consumer.concurrency} потоков (0 — по числу партиций, как в {@link KafkaConfig}),
+     * поэтому в режиме {@code platform} в нём {@code workers × concurrency} потоков: части одного потребителя
+     * не ждут в очереди за частями другого.
+     */
+    @Bean("kafkaIngestExecutor")
+    public ExecutorService kafkaIngestExecutor(
+        @Value("${app.kafka.consumer.parallel.workers:1}") int workers,
+        @Value("${app.kafka.consumer.concurrency:0}") int concurrency,
+        @Value("${app.kafka.topic.partitions:3}") int partitions) {
+        int listeners = concurrency > 0 ? concurrency : partitions;
+        return virtual
+            ? VirtualThreads.newThreadPerTaskExecutor("kafka-ingest-")
+            : Executors.newFixedThreadPool(Math.max(1, workers) * Math.max(1, listeners));
     }
 
 }
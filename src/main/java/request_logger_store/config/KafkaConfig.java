@@ -1,20 +1,131 @@
 package request_logger_store.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
-import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.listener.ContainerProperties;
+import request_logger_store.component.startup.FirstCommitInterceptor;
+import request_logger_store.component.startup.StartupReport;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
 
 @Configuration
 public class KafkaConfig {
+
+    private final boolean batchEnabled;
+    private final int maxBatchSize;
+    private final Duration maxWait;
+    private final int minBytes;
+    private final int concurrency;
+
+    public KafkaConfig(
+        @Value("${app.kafka.consumer.batch.enabled:true}") boolean batchEnabled,
+        @Value("${app.kafka.consumer.batch.max-size:500}") int maxBatchSize,
+        @Value("${app.kafka.consumer.batch.max-wait:500ms}") Duration maxWait,
+        @Value("${app.kafka.consumer.batch.min-bytes:65536}") int minBytes,
+        @Value("${app.kafka.consumer.concurrency:0}") int concurrency,
+        @Value("${app.kafka.topic.partitions:3}") int partitions) {
+        this.batchEnabled = batchEnabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWait = maxWait;
+        this.minBytes = minBytes;
+        this.concurrency = concurrency > 0 ? concurrency : partitions;
+    }
+
+    /**
+     * Фабрика контейнеров слушателей с ручным подтверждением offset'ов.
+     * <p>
+     * Значения сообщений читаются как {@code byte[]}: формат пакета (JSON или двоичный) определяется
+     * заголовком сообщения, см. {@link request_logger_store.service.kafka.codec.EventBatchCodecs}.
+     * <p>
+     * В пакетном режиме ({@code app.kafka.consumer.batch.enabled=true}) слушатель получает весь результат poll'а
+     * целиком. Размер пакета ограничивается {@code max.poll.records}, а время ожидания его накопления на брокере —
+     * {@code fetch.max.wait.ms} вместе с {@code fetch.min.bytes}: брокер отвечает, как только набралось
+     * {@code min-bytes} или прошло {@code max-wait}. При {@code min-bytes = 1} (значение Kafka по умолчанию) ответ
+     * уходит с первой же записью и {@code max-wait} не действует, поэтому по умолчанию {@code min-bytes} — 64 КБ.
+     * <p>
+     * Число потребителей в группе задаётся {@code app.kafka.consumer.concurrency}; при значении 0 оно равно
+     * числу партиций топика ({@code app.kafka.topic.partitions}), чтобы каждая партиция читалась своим потоком.
+     * <p>
+     * Метрики клиентов публикуются в {@link MeterRegistry}, в том числе лаг каждой партиции
+     * ({@code kafka.consumer.fetch.manager.records.lag}), а первая фиксация offset'ов отмечается в
+     * {@link StartupReport} через {@link FirstCommitInterceptor}.
+     */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> manualKafkaListenerContainerFactory(
-        ConsumerFactory<String, String> consumerFactory) {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> manualKafkaListenerContainerFactory(
+        KafkaProperties kafkaProperties, MeterRegistry meterRegistry, StartupReport startupReport) {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
             new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory);
-        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setConsumerFactory(consumerFactory(kafkaProperties, meterRegistry, Map.of(
+            ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG, FirstCommitInterceptor.class.getName(),
+            FirstCommitInterceptor.REPORT_CONFIG, startupReport)));
+        configure(factory, batchEnabled);
         return factory;
     }
+
+    /**
+     * Фабрика контейнера слушателя топиков повторов: пакетный режим с ручной фиксацией offset'ов,
+     * один поток — повторов немного, а отложенные сообщения не занимают поток, см.
+     * {@link request_logger_store.service.kafka.KafkaRetryTopicConsumer}.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> retryKafkaListenerContainerFactory(
+        KafkaProperties kafkaProperties, MeterRegistry meterRegistry) {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory(kafkaProperties, meterRegistry, Map.of()));
+        configure(factory, true);
+        factory.setConcurrency(1);
+        return factory;
+    }
+
+    /**
+     * Шаблон отправки пакетов событий: значение — уже закодированные байты пакета.
+     */
+    @Bean
+    public KafkaTemplate<String, byte[]> kafkaTemplate(KafkaProperties kafkaProperties, MeterRegistry meterRegistry) {
+        DefaultKafkaProducerFactory<String, byte[]> producerFactory = new DefaultKafkaProducerFactory<>(
+            kafkaProperties.buildProducerProperties(), new StringSerializer(), new ByteArraySerializer());
+        producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    private static DefaultKafkaConsumerFactory<String, byte[]> consumerFactory(KafkaProperties kafkaProperties,
+                                                                              MeterRegistry meterRegistry,
+                                                                              Map<String, Object> extraProperties) {
+        Map<String, Object> properties = kafkaProperties.buildConsumerProperties();
+        properties.putAll(extraProperties);
+        DefaultKafkaConsumerFactory<String, byte[]> consumerFactory = new DefaultKafkaConsumerFactory<>(
+            properties, new StringDeserializer(), new ByteArrayDeserializer());
+        consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return consumerFactory;
+    }
+
+    private void configure(ConcurrentKafkaListenerContainerFactory<String, ?> factory, boolean batch) {
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setConcurrency(concurrency);
+        factory.setBatchListener(batch);
+        if (batch) {
+            Properties batchProperties = new Properties();
+            batchProperties.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxBatchSize));
+            batchProperties.setProperty(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, String.valueOf(maxWait.toMillis()));
+            batchProperties.setProperty(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, String.valueOf(minBytes));
+            factory.getContainerProperties().setKafkaConsumerProperties(batchProperties);
+        }
+    }
 }
@@ -4,12 +4,32 @@ import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaAdmin;
+import request_logger_store.service.kafka.retry.FailedRecordRouter;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 public class KafkaTopicManager {
     @Bean
-    public NewTopic ordersTopic() {
-        return new NewTopic("new-event-topic", 3, (short) 1);
+    public NewTopic ordersTopic(@Value("${app.kafka.topic.partitions:3}") int partitions) {
+        return new NewTopic("new-event-topic", partitions, (short) 1);
+    }
+
+    /**
+     * Топики уровней повторов и DLT, см. {@link FailedRecordRouter}.
+     */
+    @Bean
+    public KafkaAdmin.NewTopics failedRecordTopics(
+        FailedRecordRouter failedRecordRouter,
+        @Value("${app.kafka.topic.partitions:3}") int partitions) {
+        List<NewTopic> topics = new ArrayList<>();
+        for (String retryTopic : failedRecordRouter.retryTopics()) {
+            topics.add(new NewTopic(retryTopic, partitions, (short) 1));
+        }
+        topics.add(new NewTopic(FailedRecordRouter.DLT_TOPIC, partitions, (short) 1));
+        return new KafkaAdmin.NewTopics(topics.toArray(NewTopic[]::new));
     }
 
 }
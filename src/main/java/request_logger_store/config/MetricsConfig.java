@@ -0,0 +1,76 @@
+package request_logger_store.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import request_logger_store.component.batch.BatchAccumulator;
+import request_logger_store.service.ProcessorEvent;
+import request_logger_store.service.kafka.KafkaControlService;
+import request_logger_store.service.kafka.KafkaProducer;
+import request_logger_store.service.kafka.KafkaSpool;
+
+/**
+ * Метрики состояния конвейера приёма: значения читаются из компонентов в момент сбора.
+ * <p>
+ * Метрики, которые пишутся по ходу обработки, описаны в
+ * {@link request_logger_store.component.metrics.IngestMetrics}; метрики клиентов Kafka, включая лаг
+ * каждой партиции ({@code kafka.consumer.fetch.manager.records.lag}), подключаются в {@link KafkaConfig}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * <ul>
+     *     <li>{@code ingest.processor.queue.depth} — события в накопителе {@link ProcessorEvent}</li>
+     *     <li>{@code ingest.processor.flushes} — отправленные пакеты, тег {@code reason}</li>
+     *     <li>{@code ingest.processor.dropped} / {@code rejected} — события, потерянные при переполнении</li>
+     *     <li>{@code ingest.producer.in-flight} — неподтверждённые отправки</li>
+     *     <li>{@code ingest.producer.spool.depth} — пакеты в дисковой очереди</li>
+     *     <li>{@code ingest.consumer.paused} — 1, если основной потребитель приостановлен</li>
+     * </ul>
+     */
+    @Bean
+    public MeterBinder ingestStateMetrics(ProcessorEvent processorEvent, KafkaProducer kafkaProducer,
+                                          KafkaSpool spool, KafkaControlService kafkaControlService) {
+        return registry -> {
+            BatchAccumulator<?> accumulator = processorEvent.getEventAccumulator();
+            Gauge.builder("ingest.processor.queue.depth", accumulator, BatchAccumulator::getDepth)
+                .description("События, ожидающие отправки пакетом")
+                .register(registry);
+            for (BatchAccumulator.FlushReason reason : BatchAccumulator.FlushReason.values()) {
+                FunctionCounter.builder("ingest.processor.flushes", accumulator, a -> a.getFlushCount(reason))
+                    .description("Отправленные пакеты событий")
+                    .tag("reason", reason.name().toLowerCase())
+                    .register(registry);
+            }
+            FunctionCounter.builder("ingest.processor.dropped", accumulator, BatchAccumulator::getDroppedCount)
+                .description("События, вытесненные из переполненной очереди")
+                .register(registry);
+            FunctionCounter.builder("ingest.processor.rejected", accumulator, BatchAccumulator::getRejectedCount)
+                .description("События, отклонённые переполненной очередью")
+                .register(registry);
+            Gauge.builder("ingest.producer.in-flight", kafkaProducer, KafkaProducer::getInFlightCount)
+                .description("Отправки, ожидающие подтверждения брокера")
+                .register(registry);
+            Gauge.builder("ingest.producer.spool.depth", spool, KafkaSpool::getDepth)
+                .description("Пакеты в дисковой очереди отправки")
+                .register(registry);
+            Gauge.builder("ingest.consumer.paused", kafkaControlService, MetricsConfig::paused)
+                .description("1, если потребитель приостановлен до восстановления БД")
+                .register(registry);
+        };
+    }
+
+    /**
+     * До запуска контейнера слушателя состояние неизвестно.
+     */
+    private static double paused(KafkaControlService kafkaControlService) {
+        try {
+            return kafkaControlService.isPaused() ? 1 : 0;
+        } catch (IllegalStateException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -3,17 +3,13 @@ package request_logger_store.config;
 import io.github.resilience4j.retry.Retry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import request_logger_store.component.metrics.IngestMetrics;
 
 @Configuration
 public class RetryConfig {
     @Bean
-    public Retry kafkaProducerRetry() {
-        return RetryProvider.getKafkaProducerRetry();
-    }
-
-    @Bean("kafkaConsumerRetry")
-    public Retry kafkaConsumerRetry() {
-        return RetryProvider.getDatabaseSaveRetry();
+    public Retry kafkaProducerRetry(IngestMetrics metrics) {
+        return metrics.bindRetry(RetryProvider.getKafkaProducerRetry());
     }
 
 }
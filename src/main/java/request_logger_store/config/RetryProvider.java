@@ -6,45 +6,34 @@ import io.github.resilience4j.retry.Retry;
 import io.github.resilience4j.retry.RetryConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.dao.DataAccessException;
 
-import java.sql.SQLException;
 import java.time.Duration;
 
 public class RetryProvider {
-    public static int maxAttemptsDatabase = 3;
     private static final Logger logger = LoggerFactory.getLogger(RetryProvider.class);
 
+    public static int maxAttemptsKafkaProducer = 5;
+
+    /**
+     * Повторы асинхронной отправки: экспоненциальная задержка 0.5s, 1s, 2s, 4s со случайным разбросом,
+     * чтобы одновременно упавшие отправки не повторялись синхронно.
+     */
     public static Retry getKafkaProducerRetry() {
         RetryConfig config = RetryConfig.<Throwable>custom()
-            .maxAttempts(5)
-            .intervalFunction(IntervalFunction.of(Duration.ofSeconds(1)))
+            .maxAttempts(maxAttemptsKafkaProducer)
+            .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(Duration.ofMillis(500), 2.0, 0.5))
             .retryExceptions(
                 RuntimeException.class,
                 JsonProcessingException.class
             )
             .build();
-        return Retry.of("kafkaProducer", config);
-    }
-
-    public static Retry getDatabaseSaveRetry() {
-        RetryConfig config = RetryConfig.<Throwable>custom()
-            .maxAttempts(maxAttemptsDatabase)
-            .waitDuration(Duration.ofSeconds(1))
-            .retryExceptions(SQLException.class,
-                DataAccessException.class,
-                JsonProcessingException.class,
-                RuntimeException.class
-            )
-            .build();
-
-        Retry retry = Retry.of("database", config);
+        Retry retry = Retry.of("kafkaProducer", config);
 
         retry.getEventPublisher()
-            .onError(event -> logger.warn(">>>>Retry>>>>> Attempt #{} for '{}' failed, retries left: {}",
+            .onRetry(event -> logger.warn(">>>>Retry>>>>> Send attempt #{} failed, next in {} ms: {}",
                 event.getNumberOfRetryAttempts(),
-                event.getName(),
-                maxAttemptsDatabase - event.getNumberOfRetryAttempts()
+                event.getWaitInterval().toMillis(),
+                event.getLastThrowable() == null ? null : event.getLastThrowable().getMessage()
             ));
         return retry;
     }
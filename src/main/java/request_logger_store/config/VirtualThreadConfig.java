@@ -0,0 +1,77 @@
+package request_logger_store.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import request_logger_store.component.db.BoundedDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Режим виртуальных потоков ({@code app.execution.mode=virtual}, JDK 21+) для HTTP и доступа к БД.
+ * <ul>
+ *     <li>Tomcat обрабатывает каждый запрос в новом виртуальном потоке вместо пула {@code server.tomcat.threads}</li>
+ *     <li>Асинхронные ответы Spring MVC ({@code /all-events/stream}) пишутся тоже в виртуальных потоках</li>
+ *     <li>Пул Hikari оборачивается в {@link BoundedDataSource}: к пулу одновременно обращаются не больше
+ *     {@code app.execution.db.permits} потоков (по умолчанию {@code maximum-pool-size}), остальные ждут
+ *     в очереди семафора до {@code app.execution.db.acquire-timeout}. Длина очереди — метрика
+ *     {@code app.db.permits.waiting}</li>
+ * </ul>
+ * Исполнители отправки в Kafka и обработки частей пакета выбираются в {@link ExecutorConfig}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.execution.mode", havingValue = "virtual")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newThreadPerTaskExecutor("http-"));
+    }
+
+    @Bean
+    public WebMvcConfigurer virtualThreadAsyncSupport() {
+        TaskExecutorAdapter executor = new TaskExecutorAdapter(VirtualThreads.newThreadPerTaskExecutor("mvc-async-"));
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(executor);
+            }
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor(
+        @Value("${app.execution.db.permits:0}") int permits,
+        @Value("${app.execution.db.acquire-timeout:30s}") Duration acquireTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    return new BoundedDataSource(hikari, permits > 0 ? permits : hikari.getMaximumPoolSize(),
+                        acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder boundedDataSourceMetrics(DataSource dataSource) throws SQLException {
+        BoundedDataSource bounded = dataSource.unwrap(BoundedDataSource.class);
+        return registry -> Gauge.builder("app.db.permits.waiting", bounded, BoundedDataSource::getWaiting)
+            .description("Потоки, ожидающие разрешения на соединение с БД")
+            .register(registry);
+    }
+}
@@ -0,0 +1,55 @@
+package request_logger_store.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Исполнители на виртуальных потоках для {@code app.execution.mode=virtual}.
+ * <p>
+ * Проект собирается под Java 17, поэтому API виртуальных потоков JDK 21 вызывается через отражение: один и тот же
+ * артефакт работает на JDK 17 в режиме {@code platform} и на JDK 21 в любом режиме.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @param prefix Префикс имён потоков, к нему добавляется номер
+     * @return Исполнитель, запускающий каждую задачу в новом виртуальном потоке
+     * @throws IllegalStateException если JVM не поддерживает виртуальные потоки
+     */
+    static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        ThreadFactory factory = factory(prefix);
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Не удалось создать исполнитель на виртуальных потоках", e);
+        }
+    }
+
+    /**
+     * @param prefix Префикс имени потока
+     * @return Исполнитель, выполняющий задачи по одной в порядке постановки в одном виртуальном потоке
+     * @throws IllegalStateException если JVM не поддерживает виртуальные потоки
+     */
+    static ExecutorService newSingleThreadExecutor(String prefix) {
+        return Executors.newSingleThreadExecutor(factory(prefix));
+    }
+
+    private static ThreadFactory factory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (NoSuchMethodException | ClassNotFoundException e) {
+            throw new IllegalStateException("app.execution.mode=virtual требует JDK 21 или новее, запущено на "
+                + Runtime.version());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Не удалось создать исполнитель на виртуальных потоках", e);
+        }
+    }
+}
@@ -1,46 +1,102 @@
 package request_logger_store.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import request_logger_store.Dto.EventDto;
+import request_logger_store.Dto.EventPageDto;
+import request_logger_store.component.archive.ArchivedRecord;
+import request_logger_store.component.archive.ColdStore;
+import request_logger_store.component.cache.FlatEventCache;
 import request_logger_store.config.mapper.Mapper;
+import request_logger_store.model.EventRecord;
+import request_logger_store.repository.EventRecordRepository;
 import request_logger_store.repository.EventRepository;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 public class EventController {
 
     private static final Logger logger = LoggerFactory.getLogger(EventController.class);
 
+    private static final LocalDateTime MIN_EVENT_TIME = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_EVENT_TIME = LocalDateTime.of(9999, 12, 31, 23, 59);
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final EventRepository eventRepository;
+    private final EventRecordRepository eventRecordRepository;
     private final Mapper mapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final FlatEventCache flatEventCache;
+    private final ColdStore coldStore;
 
-    public EventController(EventRepository eventRepository, Mapper mapper) {
+    public EventController(
+        EventRepository eventRepository,
+        EventRecordRepository eventRecordRepository,
+        Mapper mapper,
+        PlatformTransactionManager transactionManager,
+        FlatEventCache flatEventCache,
+        ColdStore coldStore) {
         this.eventRepository = eventRepository;
+        this.eventRecordRepository = eventRecordRepository;
         this.mapper = mapper;
+        this.flatEventCache = flatEventCache;
+        this.coldStore = coldStore;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
+    /**
+     * Возвращает все события плоским списком из {@link FlatEventCache}.
+     * <p>
+     * Ответ содержит {@code ETag} и {@code Last-Modified}; если с тех пор не было зафиксировано ни одного пакета,
+     * возвращается {@code 304 Not Modified} без чтения списка (изменения других экземпляров приложения
+     * обнаруживаются не позже чем через {@code app.cache.all-events.max-age}).
+     * <p>
+     * Если событий больше {@code app.cache.all-events.max-events}, список не строится в памяти: ответ
+     * выгружается из БД потоково, как в {@code /all-events/stream}.
+     */
     @GetMapping("/all-events")
-    public ResponseEntity<List<EventDto>> getAllEventsFlat() {
+    public ResponseEntity<List<EventDto>> getAllEventsFlat(NativeWebRequest webRequest) {
         logger.info(">>>EventController");
+        FlatEventCache.Tag tag = flatEventCache.currentTag();
+        if (webRequest.checkNotModified(tag.etag(), tag.lastModified().toEpochMilli())) {
+            return null;
+        }
         try {
-            List<String> allData = eventRepository.findAllDataOnly();
-            List<EventDto> result = new ArrayList<>();
-            for (String json : allData) {
-                List<EventDto> events = mapper.objectMapper().readValue(json, new TypeReference<>() {
-                });
-                result.addAll(events);
+            FlatEventCache.View view = flatEventCache.view();
+            if (view == null) {
+                HttpServletResponse response = webRequest.getNativeResponse(HttpServletResponse.class);
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                writeAllEvents(response.getOutputStream());
+                return null;
             }
-            return ResponseEntity.ok(result);
-        } catch (JsonProcessingException e) {
+            return ResponseEntity.ok(view.events());
+        } catch (UncheckedIOException e) {
             logger.error("<<<<<<<Ошибка десериализации JSON из БД", e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         } catch (Exception e) {
@@ -48,4 +104,117 @@ public class EventController {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Возвращает события из диапазона {@code [from, to)} постранично, в порядке {@code (event_time, id)}.
+     * <p>
+     * Используется keyset-пагинация: ответ содержит непрозрачный {@code nextCursor}, который передаётся
+     * в следующем запросе. Фильтрация и ограничение выполняются в SQL по индексу, поэтому время ответа
+     * не зависит от номера страницы. {@code nextCursor} равен {@code null} на последней странице.
+     * <p>
+     * События, перенесённые в архив ({@link ColdStore}), читаются из сегментов тем же курсором и сливаются
+     * со строками БД: идентификаторы строк в архиве сохранены, поэтому порядок и курсоры общие.
+     *
+     * @param from   Нижняя граница времени события (включительно), по умолчанию не ограничена
+     * @param to     Верхняя граница времени события (не включительно), по умолчанию не ограничена
+     * @param limit  Размер страницы, от 1 до {@value #MAX_PAGE_SIZE}
+     * @param cursor Курсор из предыдущего ответа
+     */
+    @GetMapping("/events")
+    public ResponseEntity<EventPageDto> getEvents(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @RequestParam(defaultValue = "100") int limit,
+        @RequestParam(required = false) String cursor) {
+        logger.info(">>>EventController page");
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        LocalDateTime lowerBound = from != null ? from : MIN_EVENT_TIME;
+        LocalDateTime upperBound = to != null ? to : MAX_EVENT_TIME;
+        EventCursor after;
+        try {
+            after = cursor != null ? EventCursor.decode(cursor) : new EventCursor(lowerBound, 0);
+        } catch (IllegalArgumentException e) {
+            logger.warn("<<<<<<<Некорректный курсор: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        List<EventRecord> records = eventRecordRepository.findPageAfter(
+            lowerBound, upperBound, after.getEventTime(), after.getId(), limit + 1);
+        List<ArchivedRecord> archived = coldStore.findPageAfter(
+            lowerBound, upperBound, after.getEventTime(), after.getId(), limit + 1);
+        List<EventCursor> rows = new ArrayList<>(records.size() + archived.size());
+        records.forEach(record -> rows.add(new EventCursor(record.getEventTime(), record.getId())));
+        archived.forEach(record -> rows.add(new EventCursor(record.eventTime(), record.id())));
+        if (!archived.isEmpty()) {
+            rows.sort(Comparator.comparing(EventCursor::getEventTime).thenComparingLong(EventCursor::getId));
+        }
+        boolean hasMore = rows.size() > limit;
+        List<EventCursor> page = hasMore ? rows.subList(0, limit) : rows;
+
+        List<EventDto> events = new ArrayList<>(page.size());
+        for (EventCursor row : page) {
+            events.add(new EventDto(row.getEventTime()));
+        }
+        String nextCursor = hasMore ? page.get(page.size() - 1).encode() : null;
+        return ResponseEntity.ok(new EventPageDto(events, nextCursor));
+    }
+
+    /**
+     * Потоковый вариант {@code /all-events} с постоянным потреблением памяти.
+     * <p>
+     * Строки читаются через серверный курсор ({@link EventRepository#streamAllDataOnly()}) в read-only транзакции,
+     * а элементы каждого сохранённого JSON-массива копируются в ответ потоковым парсером без построения DTO.
+     * События архива ({@link ColdStore}) выводятся первыми прямо из сегментов. Результат — тот же плоский
+     * JSON-массив событий, что и у {@code /all-events}, с теми же {@code ETag} и {@code Last-Modified}.
+     */
+    @GetMapping(value = "/all-events/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllEventsFlat(WebRequest webRequest) {
+        logger.info(">>>EventController stream");
+        FlatEventCache.Tag tag = flatEventCache.currentTag();
+        if (webRequest.checkNotModified(tag.etag(), tag.lastModified().toEpochMilli())) {
+            return null;
+        }
+        StreamingResponseBody body = this::writeAllEvents;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private void writeAllEvents(OutputStream outputStream) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<String> allData = eventRepository.streamAllDataOnly()) {
+                writeFlatArray(allData, outputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeFlatArray(Stream<String> allData, OutputStream outputStream) throws IOException {
+        JsonFactory jsonFactory = mapper.objectMapper().getFactory();
+        try (JsonGenerator generator = jsonFactory.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            coldStore.forEachEventTime(eventTime -> {
+                try {
+                    mapper.objectMapper().writeValue(generator, new EventDto(eventTime));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            for (String json : (Iterable<String>) allData::iterator) {
+                try (JsonParser parser = jsonFactory.createParser(json)) {
+                    if (parser.nextToken() != JsonToken.START_ARRAY) {
+                        logger.error("<<<<<<<Ожидался JSON-массив событий в БД, строка пропущена");
+                        continue;
+                    }
+                    JsonToken token;
+                    while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                        generator.copyCurrentStructure(parser);
+                    }
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+}
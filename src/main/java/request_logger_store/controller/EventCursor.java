@@ -0,0 +1,58 @@
+package request_logger_store.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция keyset-пагинации по {@code (event_time, id)}.
+ * <p>
+ * Для клиента кодируется в непрозрачный токен (base64url), который передаётся обратно
+ * в параметре {@code cursor} для получения следующей страницы.
+ */
+final class EventCursor {
+
+    private final LocalDateTime eventTime;
+    private final long id;
+
+    EventCursor(LocalDateTime eventTime, long id) {
+        this.eventTime = eventTime;
+        this.id = id;
+    }
+
+    LocalDateTime getEventTime() {
+        return eventTime;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    String encode() {
+        String raw = eventTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает токен, полученный от клиента.
+     *
+     * @param token Токен из параметра {@code cursor}
+     * @return Позиция, после которой начинается следующая страница
+     * @throws IllegalArgumentException если токен повреждён
+     */
+    static EventCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Некорректный курсор: " + token);
+            }
+            return new EventCursor(
+                LocalDateTime.parse(raw.substring(0, separator)),
+                Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package request_logger_store.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import request_logger_store.Dto.EventCountDto;
+import request_logger_store.repository.rollup.EventRollupRepository;
+import request_logger_store.repository.rollup.Granularity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+@RestController
+public class EventStatsController {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventStatsController.class);
+
+    static final int MAX_BUCKETS = 10_000;
+    private static final int DEFAULT_BUCKETS = 60;
+
+    private final EventRollupRepository rollupRepository;
+
+    public EventStatsController(EventRollupRepository rollupRepository) {
+        this.rollupRepository = rollupRepository;
+    }
+
+    /**
+     * Возвращает число событий по интервалам {@code event_time} из таблиц счётчиков, без чтения
+     * {@code event_record}: запрос затрагивает не больше строк, чем интервалов в диапазоне.
+     * <p>
+     * Границы выравниваются по началу интервала; интервалы без событий в ответ не попадают.
+     *
+     * @param from        Нижняя граница (включительно), по умолчанию {@value #DEFAULT_BUCKETS} интервалов до {@code to}
+     * @param to          Верхняя граница (не включительно), по умолчанию текущий интервал включительно
+     * @param granularity {@code minute} или {@code hour}; диапазон — не больше {@value #MAX_BUCKETS} интервалов
+     */
+    @GetMapping("/events/stats")
+    public ResponseEntity<List<EventCountDto>> getStats(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @RequestParam(defaultValue = "minute") String granularity) {
+        logger.info(">>>EventStatsController");
+        Granularity unit;
+        try {
+            unit = Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warn("<<<<<<<Неизвестный интервал: {}", granularity);
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Duration step = unit.duration();
+        LocalDateTime upperBound = to != null ? unit.bucket(to) : unit.bucket(LocalDateTime.now()).plus(step);
+        if (to != null && upperBound.isBefore(to)) {
+            upperBound = upperBound.plus(step);
+        }
+        LocalDateTime lowerBound = from != null
+            ? unit.bucket(from)
+            : upperBound.minus(step.multipliedBy(DEFAULT_BUCKETS));
+        if (!lowerBound.isBefore(upperBound)
+            || Duration.between(lowerBound, upperBound).dividedBy(step) > MAX_BUCKETS) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(rollupRepository.find(unit, lowerBound, upperBound));
+    }
+}
@@ -0,0 +1,57 @@
+package request_logger_store.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import request_logger_store.component.trace.InMemorySpanExporter;
+import request_logger_store.component.trace.Span;
+
+import java.util.List;
+
+/**
+ * Просмотр трасс, собранных {@link InMemorySpanExporter}; при другом экспортёре отвечает {@code 404}.
+ */
+@RestController
+public class TraceController {
+
+    private static final Logger logger = LoggerFactory.getLogger(TraceController.class);
+    private static final int MAX_TRACES = 100;
+
+    private final ObjectProvider<InMemorySpanExporter> exporter;
+
+    public TraceController(ObjectProvider<InMemorySpanExporter> exporter) {
+        this.exporter = exporter;
+    }
+
+    /**
+     * Возвращает самые долгие трассы: участки каждой — по времени начала, чтобы было видно, на каком этапе
+     * пакет провёл больше всего времени.
+     *
+     * @param limit Число трасс, от 1 до {@value #MAX_TRACES}
+     */
+    @GetMapping("/traces")
+    public ResponseEntity<List<List<Span>>> getSlowestTraces(@RequestParam(defaultValue = "10") int limit) {
+        logger.info(">>>TraceController");
+        InMemorySpanExporter spans = exporter.getIfAvailable();
+        if (spans == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        if (limit < 1 || limit > MAX_TRACES) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(spans.slowest(limit));
+    }
+
+    @GetMapping("/traces/{traceId}")
+    public ResponseEntity<List<Span>> getTrace(@PathVariable String traceId) {
+        InMemorySpanExporter spans = exporter.getIfAvailable();
+        List<Span> trace = spans == null ? List.of() : spans.trace(traceId);
+        return trace.isEmpty() ? new ResponseEntity<>(HttpStatus.NOT_FOUND) : ResponseEntity.ok(trace);
+    }
+}
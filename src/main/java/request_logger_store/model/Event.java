@@ -1,23 +1,45 @@
 package request_logger_store.model;
 
+import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.model.id.UuidV7;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Пакет событий. Идентификатор и время создания назначаются приложением до сохранения
+ * ({@link #assignSource}, {@link #assignDefaults}), поэтому новый пакет отмечается через {@link Persistable}:
+ * Spring Data сохраняет его через {@code persist} одной вставкой, без {@code merge} и предварительного
+ * {@code SELECT} по всем секциям.
+ */
 @Entity
 @Table(name = "event")
-public class Event {
+public class Event implements Persistable<UUID> {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
     @Column(name = "id")
     private UUID id;
     @Column(name = "data")
     private String data;
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    @OneToMany(mappedBy = "event", cascade = CascadeType.ALL)
+    private List<EventRecord> records = new ArrayList<>();
+    @Transient
+    private boolean isNew = true;
 
     public Event() {
     }
@@ -31,10 +53,73 @@ public class Event {
         this.data = data;
     }
 
+    /**
+     * Создаёт пакет событий вместе со строками {@link EventRecord} для каждого элемента пакета.
+     * <p>
+     * Элементы {@code null} и события без времени строк не получают: {@code event_record.event_time} —
+     * обязательный ключ секционирования, и одно такое событие отклонило бы весь пакет. Позиция строки равна
+     * индексу элемента в {@code data}, сами события остаются в JSON-массиве пакета.
+     *
+     * @param data      JSON-массив событий пакета
+     * @param eventDtos События пакета в исходном порядке, может быть {@code null}
+     * @return Пакет, готовый к сохранению
+     */
+    public static Event fromDtos(String data, List<EventDto> eventDtos) {
+        Event event = new Event(data);
+        if (eventDtos == null) {
+            return event;
+        }
+        for (int i = 0; i < eventDtos.size(); i++) {
+            EventDto eventDto = eventDtos.get(i);
+            if (eventDto != null && eventDto.getDateTime() != null) {
+                event.addRecord(new EventRecord(i, eventDto.getDateTime()));
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Назначает пакету идентичность сообщения Kafka, из которого он получен: идентификатор
+     * {@link UuidV7#fromSource} и время создания, равное метке времени сообщения в UTC. Повторная доставка
+     * того же сообщения даёт тот же первичный ключ {@code (id, created_at)}, и запись пропускается, даже если
+     * экземпляры приложения работают в разных часовых поясах.
+     */
+    public void assignSource(String topic, int partition, long offset, long timestampMillis) {
+        this.id = UuidV7.fromSource(timestampMillis, topic, partition, offset);
+        this.createdAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneOffset.UTC);
+    }
+
+    /**
+     * Назначает случайный идентификатор и текущее время создания в UTC, если они не назначены.
+     */
+    public void assignDefaults() {
+        if (id == null) {
+            id = UuidV7.next();
+        }
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now(ZoneOffset.UTC);
+        }
+    }
+
+    @Override
     public UUID getId() {
         return id;
     }
 
+    /**
+     * @return {@code true}, пока пакет не сохранён и не прочитан из БД
+     */
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.isNew = false;
+    }
+
     public void setId(UUID id) {
         this.id = id;
     }
@@ -46,4 +131,21 @@ public class Event {
     public void setData(String data) {
         this.data = data;
     }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public List<EventRecord> getRecords() {
+        return records;
+    }
+
+    public void addRecord(EventRecord record) {
+        record.setEvent(this);
+        records.add(record);
+    }
 }
@@ -0,0 +1,75 @@
+package request_logger_store.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Отдельное событие из пакета {@link Event}: одна строка на каждый {@code EventDto}.
+ * <p>
+ * Время события хранится в индексируемой колонке {@code event_time}, поэтому фильтрация,
+ * подсчёт и сортировка по времени выполняются в PostgreSQL без разбора JSON.
+ */
+@Entity
+@Table(name = "event_record")
+public class EventRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "event_id")
+    private Event event;
+    @Column(name = "position")
+    private int position;
+    @Column(name = "event_time")
+    private LocalDateTime eventTime;
+
+    public EventRecord() {
+    }
+
+    public EventRecord(int position, LocalDateTime eventTime) {
+        this.position = position;
+        this.eventTime = eventTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    public void setEvent(Event event) {
+        this.event = event;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public LocalDateTime getEventTime() {
+        return eventTime;
+    }
+
+    public void setEventTime(LocalDateTime eventTime) {
+        this.eventTime = eventTime;
+    }
+}
@@ -0,0 +1,33 @@
+package request_logger_store.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import request_logger_store.model.EventRecord;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EventRecordRepository extends JpaRepository<EventRecord, Long> {
+    /**
+     * Возвращает страницу событий из диапазона {@code [from, to)} строго после позиции {@code (afterTime, afterId)}.
+     * <p>
+     * Сравнение кортежей {@code (event_time, id) > (...)} выполняется диапазонным сканированием первичного
+     * ключа {@code (event_time, id)} только в секциях, попадающих в диапазон, поэтому стоимость страницы
+     * не зависит от того, насколько глубоко пролистал клиент. Для первой страницы передаётся
+     * {@code afterTime = from, afterId = 0}.
+     */
+    @Query(value = "SELECT * FROM event_record r"
+        + " WHERE (r.event_time, r.id) > (:afterTime, :afterId)"
+        + " AND r.event_time >= :from AND r.event_time < :to"
+        + " ORDER BY r.event_time, r.id"
+        + " LIMIT :limit", nativeQuery = true)
+    List<EventRecord> findPageAfter(
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to,
+        @Param("afterTime") LocalDateTime afterTime,
+        @Param("afterId") long afterId,
+        @Param("limit") int limit);
+}
@@ -1,15 +1,84 @@
 package request_logger_store.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import request_logger_store.model.Event;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, UUID> {
+    /**
+     * Идентификатор, данные и время создания пакета.
+     */
+    interface IdAndData {
+        UUID getId();
+
+        String getData();
+
+        LocalDateTime getCreatedAt();
+    }
+
+    /**
+     * Число пакетов и время создания последнего из них.
+     */
+    interface State {
+        long getTotal();
+
+        LocalDateTime getLastCreatedAt();
+    }
+
+    /**
+     * Потоково читает данные всех пакетов вместе с идентификаторами через серверный курсор, см.
+     * {@link request_logger_store.component.cache.FlatEventCache}. Как и {@link #streamAllDataOnly()}, должен
+     * вызываться внутри транзакции, а возвращённый {@link Stream} необходимо закрыть.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e.id AS id, e.data AS data, e.createdAt AS createdAt FROM Event e")
+    Stream<IdAndData> streamAllIdAndData();
+
+    /**
+     * @return Состояние таблицы, по которому {@link request_logger_store.component.cache.FlatEventCache}
+     * обнаруживает изменения, сделанные не через этот экземпляр приложения
+     */
+    @Query("SELECT count(e) AS total, max(e.createdAt) AS lastCreatedAt FROM Event e")
+    State findState();
+
+    /**
+     * Условие на {@code created_at} — часть первичного ключа — ограничивает поиск секциями
+     * диапазона {@code [from, to]} вместо обхода всех секций.
+     *
+     * @return Идентификаторы из {@code ids}, пакеты с которыми уже сохранены с {@code created_at} из диапазона
+     */
+    @Query("SELECT e.id FROM Event e WHERE e.id IN :ids AND e.createdAt BETWEEN :from AND :to")
+    List<UUID> findExistingIds(@Param("ids") Collection<UUID> ids, @Param("from") LocalDateTime from,
+                               @Param("to") LocalDateTime to);
+
+    /**
+     * Потоково читает данные всех пакетов через серверный курсор PostgreSQL.
+     * <p>
+     * Строки подгружаются порциями по 500, поэтому потребление памяти не зависит
+     * от размера таблицы. Должен вызываться внутри транзакции (курсор PostgreSQL работает только
+     * при выключенном autocommit), а возвращённый {@link Stream} необходимо закрыть.
+     *
+     * @return Поток JSON-массивов событий
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
     @Query("SELECT e.data FROM Event e")
-    List<String> findAllDataOnly();
+    Stream<String> streamAllDataOnly();
 }
@@ -0,0 +1,79 @@
+package request_logger_store.repository.rollup;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import request_logger_store.Dto.EventCountDto;
+import request_logger_store.model.Event;
+import request_logger_store.model.EventRecord;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Счётчики событий по минутам и часам ({@code event_count_minute}, {@code event_count_hour}).
+ * <p>
+ * {@link #add(List)} вызывается реализациями {@link request_logger_store.repository.writer.EventWriter}
+ * в транзакции записи пакета: счётчики увеличиваются тогда и только тогда, когда фиксируются строки
+ * {@code event_record}. Пакет сначала сворачивается в памяти, поэтому на каждый затронутый интервал
+ * приходится один upsert; интервалы обновляются по возрастанию, чтобы параллельные транзакции
+ * блокировали строки в одном порядке.
+ */
+@Repository
+public class EventRollupRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EventRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Увеличивает счётчики на число строк {@code event_record} пакета.
+     *
+     * @param events События, записываемые в текущей транзакции
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(List<Event> events) {
+        for (Granularity granularity : Granularity.values()) {
+            Map<LocalDateTime, Long> counts = countByBucket(events, granularity);
+            if (counts.isEmpty()) {
+                continue;
+            }
+            List<Map.Entry<LocalDateTime, Long>> rows = new ArrayList<>(counts.entrySet());
+            jdbcTemplate.batchUpdate("INSERT INTO " + granularity.table() + " (bucket, count) VALUES (?, ?)"
+                    + " ON CONFLICT (bucket) DO UPDATE SET count = " + granularity.table() + ".count + EXCLUDED.count",
+                rows, rows.size(), (ps, row) -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(row.getKey()));
+                    ps.setLong(2, row.getValue());
+                });
+        }
+    }
+
+    /**
+     * Возвращает непустые интервалы из диапазона {@code [from, to)} по возрастанию.
+     */
+    public List<EventCountDto> find(Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query("SELECT bucket, count FROM " + granularity.table()
+                + " WHERE bucket >= ? AND bucket < ? ORDER BY bucket",
+            (rs, rowNum) -> new EventCountDto(rs.getTimestamp("bucket").toLocalDateTime(), rs.getLong("count")),
+            Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    static Map<LocalDateTime, Long> countByBucket(List<Event> events, Granularity granularity) {
+        Map<LocalDateTime, Long> counts = new TreeMap<>();
+        for (Event event : events) {
+            for (EventRecord record : event.getRecords()) {
+                if (record.getEventTime() != null) {
+                    counts.merge(granularity.bucket(record.getEventTime()), 1L, Long::sum);
+                }
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,37 @@
+package request_logger_store.repository.rollup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Размер интервала счётчиков событий и таблица, в которой они хранятся.
+ */
+public enum Granularity {
+
+    MINUTE("event_count_minute", ChronoUnit.MINUTES),
+    HOUR("event_count_hour", ChronoUnit.HOURS);
+
+    private final String table;
+    private final ChronoUnit unit;
+
+    Granularity(String table, ChronoUnit unit) {
+        this.table = table;
+        this.unit = unit;
+    }
+
+    String table() {
+        return table;
+    }
+
+    public Duration duration() {
+        return unit.getDuration();
+    }
+
+    /**
+     * @return Начало интервала, в который попадает момент времени
+     */
+    public LocalDateTime bucket(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+}
@@ -0,0 +1,184 @@
+package request_logger_store.repository.writer;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import request_logger_store.model.Event;
+import request_logger_store.model.EventRecord;
+import request_logger_store.repository.rollup.EventRollupRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Запись событий потоком {@code COPY ... FROM STDIN} через {@link CopyManager} драйвера PostgreSQL.
+ * <p>
+ * Строки передаются в формате CSV одним потоком на таблицу, без разбора и планирования отдельных
+ * INSERT'ов. Соединение берётся из текущей транзакции, поэтому {@code event} и {@code event_record}
+ * записываются атомарно; ошибки переводятся в {@link org.springframework.dao.DataAccessException}
+ * через {@link JdbcTemplate}.
+ * <p>
+ * {@code COPY} не поддерживает {@code ON CONFLICT}, поэтому пакеты копируются во временную таблицу
+ * {@code event_staging} соединения и переносятся в {@code event} одним {@code INSERT ... SELECT ... ON CONFLICT
+ * DO NOTHING RETURNING id}: уже сохранённые пакеты пропускаются. Строки {@code event_record} копируются только
+ * для перенесённых пакетов.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.ingest.writer", havingValue = "copy")
+public class CopyEventWriter implements EventWriter {
+
+    private static final String CREATE_STAGING_SQL = "CREATE TEMP TABLE IF NOT EXISTS event_staging "
+        + "(id UUID, data TEXT, created_at TIMESTAMP) ON COMMIT DELETE ROWS";
+    private static final String COPY_EVENT_SQL =
+        "COPY event_staging (id, data, created_at) FROM STDIN WITH (FORMAT csv)";
+    private static final String MERGE_EVENT_SQL = "INSERT INTO event (id, data, created_at) "
+        + "SELECT id, data, created_at FROM event_staging ON CONFLICT (id, created_at) DO NOTHING RETURNING id";
+    private static final String COPY_EVENT_RECORD_SQL =
+        "COPY event_record (event_id, position, event_time) FROM STDIN WITH (FORMAT csv)";
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EventRollupRepository rollupRepository;
+
+    public CopyEventWriter(JdbcTemplate jdbcTemplate, EventRollupRepository rollupRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupRepository = rollupRepository;
+    }
+
+    @Override
+    @Transactional
+    public List<Event> write(List<Event> events) {
+        if (events.isEmpty()) {
+            return List.of();
+        }
+        events.forEach(Event::assignDefaults);
+        List<Event> inserted = jdbcTemplate.execute((ConnectionCallback<List<Event>>) connection -> {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            Set<UUID> insertedIds = new HashSet<>();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING_SQL);
+                copyEvents(copyManager, events);
+                try (ResultSet rs = statement.executeQuery(MERGE_EVENT_SQL)) {
+                    while (rs.next()) {
+                        insertedIds.add(rs.getObject(1, UUID.class));
+                    }
+                }
+            }
+            List<Event> merged = events.stream().filter(event -> insertedIds.remove(event.getId())).toList();
+            copyRecords(copyManager, merged);
+            return merged;
+        });
+        rollupRepository.add(inserted);
+        return inserted;
+    }
+
+    private void copyEvents(CopyManager copyManager, List<Event> events) throws SQLException {
+        CsvCopy copy = new CsvCopy(copyManager.copyIn(COPY_EVENT_SQL));
+        try {
+            for (Event event : events) {
+                copy.append(event.getId().toString()).separator().appendQuoted(event.getData()).separator()
+                    .append(event.getCreatedAt().toString()).endRow();
+            }
+            copy.end();
+        } finally {
+            copy.cancelIfActive();
+        }
+    }
+
+    private void copyRecords(CopyManager copyManager, List<Event> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        CsvCopy copy = new CsvCopy(copyManager.copyIn(COPY_EVENT_RECORD_SQL));
+        try {
+            for (Event event : events) {
+                for (EventRecord record : event.getRecords()) {
+                    copy.append(event.getId().toString()).separator()
+                        .append(String.valueOf(record.getPosition())).separator()
+                        .append(record.getEventTime() == null ? "" : record.getEventTime().toString()).endRow();
+                }
+            }
+            copy.end();
+        } finally {
+            copy.cancelIfActive();
+        }
+    }
+
+    /**
+     * Буферизованная запись CSV-строк в открытую операцию {@link CopyIn}.
+     * Пустое незакавыченное поле CSV PostgreSQL интерпретирует как {@code NULL}.
+     */
+    private static final class CsvCopy {
+
+        private final CopyIn copyIn;
+        private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD);
+
+        private CsvCopy(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        CsvCopy append(String value) {
+            buffer.append(value);
+            return this;
+        }
+
+        CsvCopy appendQuoted(String value) {
+            if (value == null) {
+                return this;
+            }
+            buffer.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    buffer.append('"');
+                }
+                buffer.append(c);
+            }
+            buffer.append('"');
+            return this;
+        }
+
+        CsvCopy separator() {
+            buffer.append(',');
+            return this;
+        }
+
+        void endRow() throws SQLException {
+            buffer.append('\n');
+            if (buffer.length() >= FLUSH_THRESHOLD) {
+                flush();
+            }
+        }
+
+        void end() throws SQLException {
+            flush();
+            copyIn.endCopy();
+        }
+
+        void cancelIfActive() throws SQLException {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (buffer.length() == 0) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+}
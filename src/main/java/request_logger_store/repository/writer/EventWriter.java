@@ -0,0 +1,31 @@
+package request_logger_store.repository.writer;
+
+import request_logger_store.model.Event;
+
+import java.util.List;
+
+/**
+ * Стратегия записи пакетов событий в БД на пути потребителя Kafka.
+ * <p>
+ * Реализация выбирается свойством {@code app.ingest.writer}:
+ * <ul>
+ *     <li>{@code jdbc} — пакетный JDBC-insert ({@link JdbcBatchEventWriter}, по умолчанию)</li>
+ *     <li>{@code jpa} — Spring Data JPA ({@link JpaEventWriter})</li>
+ *     <li>{@code copy} — {@code COPY ... FROM STDIN} PostgreSQL ({@link CopyEventWriter})</li>
+ * </ul>
+ * Каждая реализация записывает строки {@code event} и {@code event_record} и увеличивает счётчики
+ * {@link request_logger_store.repository.rollup.EventRollupRepository} в одной транзакции, а при нарушении
+ * ограничений БД выбрасывает {@link org.springframework.dao.DataIntegrityViolationException}.
+ */
+public interface EventWriter {
+
+    /**
+     * Сохраняет события и их строки {@code event_record}.
+     * Событиям без идентификатора назначаются идентификатор и время создания до записи
+     * ({@link Event#assignDefaults()}).
+     *
+     * @param events События для сохранения
+     * @return Записанные события в исходном порядке, без уже сохранённых ранее
+     */
+    List<Event> write(List<Event> events);
+}
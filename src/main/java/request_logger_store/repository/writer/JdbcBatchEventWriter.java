@@ -0,0 +1,88 @@
+package request_logger_store.repository.writer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import request_logger_store.model.Event;
+import request_logger_store.model.EventRecord;
+import request_logger_store.repository.rollup.EventRollupRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Запись событий пакетным JDBC-insert'ом.
+ * <p>
+ * В отличие от {@code EventRepository#save}, записывает весь пакет в рамках одной транзакции двумя запросами.
+ * Пакеты передаются одним {@code INSERT ... SELECT FROM unnest(...)} с массивами столбцов: уже сохранённые
+ * пропускаются через {@code ON CONFLICT DO NOTHING}, а {@code RETURNING} возвращает записанные (счётчики
+ * batch-запроса при {@code reWriteBatchedInserts} для этого непригодны). Строки {@code event_record} пишутся
+ * batch-запросом только для записанных пакетов; драйвер PostgreSQL переписывает его в многострочные
+ * {@code INSERT ... VALUES (...), (...)}.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.ingest.writer", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcBatchEventWriter implements EventWriter {
+
+    private static final String INSERT_EVENT_SQL = "INSERT INTO event (id, data, created_at) "
+        + "SELECT * FROM unnest(?::uuid[], ?::text[], ?::timestamp[]) "
+        + "ON CONFLICT (id, created_at) DO NOTHING RETURNING id";
+    private static final String INSERT_EVENT_RECORD_SQL =
+        "INSERT INTO event_record (event_id, position, event_time) VALUES (?, ?, ?) "
+            + "ON CONFLICT (event_time, event_id, position) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EventRollupRepository rollupRepository;
+
+    public JdbcBatchEventWriter(JdbcTemplate jdbcTemplate, EventRollupRepository rollupRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupRepository = rollupRepository;
+    }
+
+    @Override
+    @Transactional
+    public List<Event> write(List<Event> events) {
+        if (events.isEmpty()) {
+            return List.of();
+        }
+        UUID[] ids = new UUID[events.size()];
+        String[] data = new String[events.size()];
+        Timestamp[] createdAt = new Timestamp[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            event.assignDefaults();
+            ids[i] = event.getId();
+            data[i] = event.getData();
+            createdAt[i] = Timestamp.valueOf(event.getCreatedAt());
+        }
+        Set<UUID> insertedIds = new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_EVENT_SQL);
+            ps.setArray(1, connection.createArrayOf("uuid", ids));
+            ps.setArray(2, connection.createArrayOf("text", data));
+            ps.setArray(3, connection.createArrayOf("timestamp", createdAt));
+            return ps;
+        }, (rs, rowNum) -> rs.getObject(1, UUID.class)));
+        List<Event> inserted = events.size() == insertedIds.size()
+            ? events
+            : events.stream().filter(event -> insertedIds.remove(event.getId())).toList();
+        List<EventRecord> records = new ArrayList<>();
+        for (Event event : inserted) {
+            records.addAll(event.getRecords());
+        }
+        if (!records.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_EVENT_RECORD_SQL, records, records.size(), (ps, record) -> {
+                ps.setObject(1, record.getEvent().getId());
+                ps.setInt(2, record.getPosition());
+                ps.setTimestamp(3, record.getEventTime() == null ? null : Timestamp.valueOf(record.getEventTime()));
+            });
+        }
+        rollupRepository.add(inserted);
+        return inserted;
+    }
+}
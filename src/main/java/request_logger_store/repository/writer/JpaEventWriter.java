@@ -0,0 +1,57 @@
+package request_logger_store.repository.writer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import request_logger_store.model.Event;
+import request_logger_store.repository.EventRepository;
+import request_logger_store.repository.rollup.EventRollupRepository;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Запись событий через Spring Data JPA: {@link EventRepository#saveAll(Iterable)} с каскадным
+ * сохранением строк {@code event_record}. Пакеты новые ({@link Event#isNew()}), поэтому сохраняются через
+ * {@code persist}, без {@code SELECT} перед вставкой.
+ * <p>
+ * Уже сохранённые пакеты отбрасываются заранее запросом {@link EventRepository#findExistingIds} по
+ * идентификаторам и диапазону {@code created_at} пакета: вставка существующего нарушила бы первичный ключ.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.ingest.writer", havingValue = "jpa")
+public class JpaEventWriter implements EventWriter {
+
+    private final EventRepository repository;
+    private final EventRollupRepository rollupRepository;
+
+    public JpaEventWriter(EventRepository repository, EventRollupRepository rollupRepository) {
+        this.repository = repository;
+        this.rollupRepository = rollupRepository;
+    }
+
+    @Override
+    @Transactional
+    public List<Event> write(List<Event> events) {
+        if (events.isEmpty()) {
+            return List.of();
+        }
+        events.forEach(Event::assignDefaults);
+        LocalDateTime from = events.stream().map(Event::getCreatedAt).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime to = events.stream().map(Event::getCreatedAt).max(Comparator.naturalOrder()).orElseThrow();
+        Set<UUID> existing = new HashSet<>(
+            repository.findExistingIds(events.stream().map(Event::getId).toList(), from, to));
+        Set<UUID> seen = new HashSet<>();
+        List<Event> inserted = events.stream()
+            .filter(event -> !existing.contains(event.getId()) && seen.add(event.getId()))
+            .toList();
+        repository.saveAll(inserted);
+        repository.flush();
+        rollupRepository.add(inserted);
+        return inserted;
+    }
+}
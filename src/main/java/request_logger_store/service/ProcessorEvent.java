@@ -1,17 +1,20 @@
 package request_logger_store.service;
 
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import request_logger_store.Dto.EventDto;
 import request_logger_store.Dto.EventListDto;
+import request_logger_store.component.batch.BatchAccumulator;
+import request_logger_store.component.load.LoadProfile;
 import request_logger_store.service.kafka.KafkaProducer;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,36 +24,121 @@ public class ProcessorEvent {
 
     private static final Logger logger = LoggerFactory.getLogger(ProcessorEvent.class);
 
-    private final LinkedBlockingQueue<EventDto> eventQueue = new LinkedBlockingQueue<>();
+    /**
+     * Оценка размера одного {@link EventDto} в JSON: {@code {"dateTime":[2024,1,1,10,0,0,123456789]}}.
+     */
+    private static final int EVENT_SIZE_ESTIMATE = 48;
+
+    private final BatchAccumulator<EventDto> eventAccumulator;
 
     private final KafkaProducer kafkaProducer;
 
-    public ProcessorEvent(KafkaProducer kafkaProducer) {
+    private final LoadProfile loadProfile;
+
+    private final BatchAccumulator.OverflowPolicy overflowPolicy;
+
+    private final Duration offerTimeout;
+
+    private long startNanos;
+
+    private volatile long generated;
+
+    /**
+     * Конструктор для создания экземпляра ProcessorEvent.
+     *
+     * @param kafkaProducer  Продюсер, которому передаются готовые пакеты
+     * @param maxCount       Максимальное число событий в пакете
+     * @param maxBytes       Максимальный размер пакета в байтах
+     * @param linger         Максимальное время ожидания самого старого события в очереди
+     * @param capacity       Ёмкость очереди событий
+     * @param overflowPolicy Поведение при заполненной очереди
+     * @param rate           Частота генерации событий, событий в секунду
+     * @param burstRate      Частота генерации во время всплеска
+     * @param burstPeriod    Период повторения всплесков
+     * @param burstDuration  Длительность всплеска, 0 — без всплесков
+     * @param offerTimeout   Максимальное ожидание места в заполненной очереди при {@code overflow-policy: block}
+     */
+    public ProcessorEvent(
+        KafkaProducer kafkaProducer,
+        @Value("${app.processor.batch.max-count:10}") int maxCount,
+        @Value("${app.processor.batch.max-bytes:1048576}") long maxBytes,
+        @Value("${app.processor.batch.linger:15s}") Duration linger,
+        @Value("${app.processor.batch.capacity:10000}") int capacity,
+        @Value("${app.processor.batch.overflow-policy:block}") BatchAccumulator.OverflowPolicy overflowPolicy,
+        @Value("${app.processor.generator.rate:1}") double rate,
+        @Value("${app.processor.generator.burst-rate:0}") double burstRate,
+        @Value("${app.processor.generator.burst-period:0s}") Duration burstPeriod,
+        @Value("${app.processor.generator.burst-duration:0s}") Duration burstDuration,
+        @Value("${app.processor.generator.offer-timeout:10ms}") Duration offerTimeout) {
         this.kafkaProducer = kafkaProducer;
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeout = offerTimeout;
+        this.loadProfile = new LoadProfile(rate, burstRate, burstPeriod, burstDuration);
+        this.eventAccumulator = new BatchAccumulator<>("event-batch", maxCount, maxBytes, linger, capacity,
+            overflowPolicy, event -> EVENT_SIZE_ESTIMATE, this::sendBatch);
     }
 
     /**
-     * Периодически собирает события и отправляет их в Kafka пакетом,
-     * если количество достигло порога.
+     * Создаёт события по профилю нагрузки ({@code app.processor.generator.*}) и добавляет их в накопитель.
+     * Каждые {@code app.processor.generator.tick-millis} создаётся столько событий, сколько должно было
+     * появиться с начала генерации; по умолчанию — одно событие в секунду.
+     * Пакет уходит в Kafka по достижении лимита количества, размера или времени ожидания.
+     * <p>
+     * Метод выполняется в общем потоке планировщика (вместе с {@code PartitionManager}, {@code EventArchiver}
+     * и проверками БД), поэтому не ждёт места в заполненной очереди дольше {@code offer-timeout}: при
+     * {@code overflow-policy: block} оставшиеся события такта создаются на следующем такте.
      */
-    @Scheduled(initialDelay = 4000, fixedDelay = 1000)
+    @Scheduled(initialDelay = 4000, fixedDelayString = "${app.processor.generator.tick-millis:100}")
     public void processAndSendEvents() {
         try {
-
-            EventDto event = new EventDto( LocalDateTime.now());
-             eventQueue.offer(event);
-             logger.debug(">>>>>>>>>Добавлено событие в очередь. Текущий размер: {}", eventQueue.size());
-
-            if (eventQueue.size() == 10) {
-                List<EventDto> events = new ArrayList<>();
-                eventQueue.drainTo(events);
-                logger.info(">>>>>>>>>>Отправке в продюсер");
-                kafkaProducer.sendEventToBroker(new EventListDto(events));
+            long now = System.nanoTime();
+            if (startNanos == 0) {
+                startNanos = now;
+            }
+            long due = loadProfile.eventsDue(now - startNanos);
+            while (generated < due) {
+                EventDto event = new EventDto(LocalDateTime.now());
+                if (!eventAccumulator.offer(event, offerTimeout)) {
+                    if (overflowPolicy == BatchAccumulator.OverflowPolicy.BLOCK) {
+                        logger.debug(">>>>>>>>>Очередь событий заполнена, генерация продолжится на следующем такте");
+                        break;
+                    }
+                    logger.warn(">>>>>>>>>Очередь событий переполнена, событие отклонено");
+                }
+                generated++;
             }
+            logger.debug(">>>>>>>>>Создано событий: {}. Текущий размер очереди: {}", generated,
+                eventAccumulator.getDepth());
 
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         } catch (Exception ex) {
             logger.error("Ошибка при обработке события {}", ex.getMessage());
         }
     }
 
+    /**
+     * @return Число событий, созданных генератором
+     */
+    public long getGeneratedCount() {
+        return generated;
+    }
+
+    public BatchAccumulator<EventDto> getEventAccumulator() {
+        return eventAccumulator;
+    }
+
+    /**
+     * Отправляет оставшиеся в очереди события при остановке приложения.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        eventAccumulator.close();
+    }
+
+    private void sendBatch(List<EventDto> events) {
+        logger.info(">>>>>>>>>>Отправке в продюсер");
+        kafkaProducer.sendEventToBroker(new EventListDto(events));
+    }
+
 }
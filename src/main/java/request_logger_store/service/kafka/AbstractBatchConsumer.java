@@ -0,0 +1,288 @@
+package request_logger_store.service.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.support.Acknowledgment;
+import request_logger_store.component.cache.FlatEventCache;
+import request_logger_store.component.db.BaseChecking;
+import request_logger_store.component.metrics.IngestMetrics;
+import request_logger_store.component.trace.IngestTracer;
+import request_logger_store.model.Event;
+import request_logger_store.repository.writer.EventWriter;
+import request_logger_store.service.kafka.retry.FailedRecordRouter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Общая часть пакетных слушателей Kafka: сохраняет весь результат poll'а в БД одной транзакцией.
+ * <p>
+ * Offset'ы подтверждаются один раз на пакет, после фиксации транзакции. Поток слушателя никогда не ждёт
+ * между попытками: сообщения, которые не удалось обработать, передаются в {@link FailedRecordRouter}
+ * и подтверждаются:
+ * <ul>
+ *     <li>Сообщения, которые невозможно разобрать, и строки, отвергнутые ограничениями БД,
+ *     сразу уходят в DLT; пустые сообщения пропускаются</li>
+ *     <li>Если пакетная вставка нарушает ограничения БД, пакет сохраняется построчно
+ *     и в DLT уходят только отвергнутые строки</li>
+ *     <li>Если сохранение не удалось по другой причине, сообщения пакета уходят в топики повторов</li>
+ * </ul>
+ * Только недоступность БД ({@link FailedRecordRouter#isOutage(Throwable)}) или ошибка публикации приводят
+ * к повторному чтению пакета: он возвращается в топик, а {@link BaseChecking} приостанавливает потребителя
+ * до восстановления БД.
+ * <p>
+ * При {@code app.kafka.consumer.parallel.workers > 1} пакет делится на последовательные части,
+ * которые разбираются и сохраняются параллельно в ограниченном пуле {@code kafkaIngestExecutor}.
+ * Если часть не обработана, фиксируются только offset'ы непрерывно обработанного префикса каждой
+ * партиции ({@link ContiguousOffsetTracker}), а чтение остальных записей повторяется — семантика
+ * at-least-once и порядок фиксации offset'ов сохраняются.
+ * <p>
+ * Пакету назначается идентичность исходного сообщения ({@link FailedRecordRouter#assignSource}), поэтому
+ * повторное чтение и повтор уже сохранённого сообщения не создают дубликатов: {@link EventWriter} пропускает
+ * такие пакеты, и они учитываются в метриках как {@code duplicate}.
+ */
+public abstract class AbstractBatchConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractBatchConsumer.class);
+    private static final Duration REDELIVERY_DELAY = Duration.ofSeconds(1);
+
+    private final EventWriter eventWriter;
+    private final BaseChecking baseChecking;
+    private final FailedRecordRouter failedRecordRouter;
+    private final IngestMetrics metrics;
+    private final FlatEventCache flatEventCache;
+    private final IngestTracer tracer;
+    private final ExecutorService ingestExecutor;
+    private final int workers;
+
+    /**
+     * @param eventWriter        Стратегия записи пакета в БД, выбранная через {@code app.ingest.writer}
+     * @param baseChecking       Компонент для проверки состояния базы данных в случае ошибок
+     * @param failedRecordRouter Маршрутизация необработанных сообщений в топики повторов и DLT
+     * @param metrics            Метрики сохранения
+     * @param flatEventCache     Кэш {@code /all-events}, дополняемый после фиксации пакета
+     * @param tracer             Трассировка: продолжает трассы продюсера участками разбора и записи
+     * @param ingestExecutor     Пул для параллельной обработки частей пакета
+     * @param workers            Число параллельно обрабатываемых частей пакета, 1 — последовательная обработка
+     */
+    protected AbstractBatchConsumer(
+        EventWriter eventWriter,
+        BaseChecking baseChecking,
+        FailedRecordRouter failedRecordRouter,
+        IngestMetrics metrics,
+        FlatEventCache flatEventCache,
+        IngestTracer tracer,
+        ExecutorService ingestExecutor,
+        int workers) {
+        this.eventWriter = eventWriter;
+        this.baseChecking = baseChecking;
+        this.failedRecordRouter = failedRecordRouter;
+        this.metrics = metrics;
+        this.flatEventCache = flatEventCache;
+        this.tracer = tracer;
+        this.ingestExecutor = ingestExecutor;
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * Преобразует сообщение в пакет событий.
+     *
+     * @param record Сообщение Kafka
+     * @return Пакет или {@code null}, если сообщение пустое и должно быть пропущено
+     * @throws IOException если сообщение не является корректным пакетом
+     */
+    protected abstract Event toEvent(ConsumerRecord<String, byte[]> record) throws IOException;
+
+    /**
+     * Обрабатывает пакет и подтверждает offset'ы. Сохранение защищено {@link BaseChecking#protect(Runnable)}.
+     * <p>
+     * Если БД недоступна, пакет возвращается в топик через {@link Acknowledgment#nack(int, Duration)}
+     * и запускается проверка состояния БД.
+     */
+    protected void handleBatch(List<ConsumerRecord<String, byte[]>> records, Acknowledgment acknowledgment,
+                               Consumer<?, ?> consumer) {
+        if (workers > 1 && records.size() > 1) {
+            handleParallel(records, acknowledgment, consumer);
+            return;
+        }
+        try {
+            process(records);
+            acknowledgment.acknowledge();
+            logger.info(">>>>>Offset commit>>>>>DB, обработано {} сообщений", records.size());
+        } catch (RuntimeException e) {
+            logger.error(">>>>>Ошибка сохранения пакета в БД, проверяю состояние... {}", e.getMessage());
+            baseChecking.checking();
+            acknowledgment.nack(0, REDELIVERY_DELAY);
+        }
+    }
+
+    /**
+     * Сохраняет сообщения; те, что не удалось сохранить, передаёт в {@link FailedRecordRouter}.
+     *
+     * @throws RuntimeException если БД недоступна или публикация не удалась — сообщения нужно прочитать повторно
+     */
+    protected void process(List<ConsumerRecord<String, byte[]>> records) {
+        List<ConsumerRecord<String, byte[]>> parsed = new ArrayList<>(records.size());
+        List<Event> events = new ArrayList<>(records.size());
+        Map<ConsumerRecord<String, byte[]>, Exception> rejected = new LinkedHashMap<>();
+        long receivedAt = tracer.nowMicros();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            tracer.recordDelivery(record, receivedAt);
+            try {
+                long decodeStart = tracer.nowMicros();
+                Event event = toEvent(record);
+                if (event != null) {
+                    FailedRecordRouter.assignSource(event, record);
+                }
+                tracer.record(tracer.extract(record), "consumer.deserialize", decodeStart, tracer.nowMicros(),
+                    Map.of("topic", record.topic()));
+                if (event == null) {
+                    logger.warn("<<<<Получено пустое сообщение с ключом {}", record.key());
+                    continue;
+                }
+                parsed.add(record);
+                events.add(event);
+            } catch (IOException e) {
+                logger.error(">>>>>Ошибка десериализации JSON из Kafka. Партиция: {}, offset: {}",
+                    record.partition(), record.offset());
+                rejected.put(record, e);
+            }
+        }
+        long persistStart = tracer.nowMicros();
+        try {
+            baseChecking.protect(() -> saveIsolated(parsed, events, rejected)).run();
+        } catch (RuntimeException e) {
+            tracer.recordEach(parsed, "consumer.persist", persistStart, tracer.nowMicros(),
+                Map.of("outcome", FailedRecordRouter.isOutage(e) ? "outage" : "retry"));
+            if (FailedRecordRouter.isOutage(e)) {
+                throw e;
+            }
+            logger.error(">>>>>Пакет не сохранён, сообщения отправляются на повтор: {}", e.getMessage());
+            parsed.forEach(record -> failedRecordRouter.toRetry(record, e));
+        }
+        rejected.forEach(failedRecordRouter::toDeadLetter);
+    }
+
+    private void handleParallel(List<ConsumerRecord<String, byte[]>> records, Acknowledgment acknowledgment,
+                                Consumer<?, ?> consumer) {
+        ContiguousOffsetTracker tracker = new ContiguousOffsetTracker(records);
+        List<List<ConsumerRecord<String, byte[]>>> chunks = split(records, workers);
+        List<Future<?>> futures = new ArrayList<>(chunks.size());
+        AtomicBoolean stopped = new AtomicBoolean();
+        for (List<ConsumerRecord<String, byte[]>> chunk : chunks) {
+            futures.add(ingestExecutor.submit(() -> {
+                if (stopped.get()) {
+                    throw new CancellationException();
+                }
+                process(chunk);
+            }));
+        }
+
+        // После прерывания ещё не начатые части отменяются, а начатые дожидаются: offset'ы фиксируются
+        // и сдвигаются только тогда, когда ни одна часть пакета больше не пишет в БД
+        boolean failed = false;
+        boolean interrupted = false;
+        for (int i = 0; i < chunks.size(); i++) {
+            while (true) {
+                try {
+                    futures.get(i).get();
+                    tracker.complete(chunks.get(i));
+                } catch (ExecutionException e) {
+                    failed = true;
+                    if (!(e.getCause() instanceof CancellationException)) {
+                        logger.error(">>>>>Ошибка сохранения части пакета в БД: {}", e.getCause().getMessage());
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    failed = true;
+                    stopped.set(true);
+                    continue;
+                }
+                break;
+            }
+        }
+        if (!failed) {
+            acknowledgment.acknowledge();
+            logger.info(">>>>>Offset commit>>>>>DB, пакет из {} сообщений сохранён в {} потоков",
+                records.size(), chunks.size());
+            return;
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> committable = tracker.committable();
+        if (!committable.isEmpty()) {
+            consumer.commitSync(committable);
+        }
+        tracker.firstPending().forEach(consumer::seek);
+        if (interrupted) {
+            logger.warn(">>>>>Обработка пакета прервана, зафиксировано {}, повторное чтение с {}",
+                committable, tracker.firstPending());
+            Thread.currentThread().interrupt();
+            return;
+        }
+        logger.error(">>>>>Пакет сохранён частично, зафиксировано {}, повторное чтение с {}, проверяю состояние...",
+            committable, tracker.firstPending());
+        baseChecking.checking();
+    }
+
+    /**
+     * Делит пакет на не более чем {@code parts} последовательных частей. Poll возвращает записи
+     * сгруппированными по партициям, поэтому каждая часть покрывает непрерывный диапазон offset'ов.
+     */
+    private static <T> List<List<T>> split(List<T> records, int parts) {
+        int chunkSize = (records.size() + parts - 1) / parts;
+        List<List<T>> chunks = new ArrayList<>(parts);
+        for (int from = 0; from < records.size(); from += chunkSize) {
+            chunks.add(records.subList(from, Math.min(records.size(), from + chunkSize)));
+        }
+        return chunks;
+    }
+
+    private void saveIsolated(List<ConsumerRecord<String, byte[]>> records, List<Event> events,
+                              Map<ConsumerRecord<String, byte[]>, Exception> rejected) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            long startMicros = tracer.nowMicros();
+            List<Event> inserted = eventWriter.write(events);
+            metrics.recordPersisted(start, inserted);
+            metrics.recordDuplicates(events.size() - inserted.size());
+            tracer.recordEach(records, "consumer.persist", startMicros, tracer.nowMicros(),
+                Map.of("outcome", "saved", "batch.size", String.valueOf(events.size()),
+                    "duplicates", String.valueOf(events.size() - inserted.size())));
+            flatEventCache.append(inserted);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn(">>>>>Пакет отвергнут БД, сохраняю построчно: {}", e.getMessage());
+            for (int i = 0; i < events.size(); i++) {
+                try {
+                    long start = System.nanoTime();
+                    long startMicros = tracer.nowMicros();
+                    List<Event> inserted = eventWriter.write(List.of(events.get(i)));
+                    metrics.recordPersisted(start, inserted);
+                    metrics.recordDuplicates(1 - inserted.size());
+                    tracer.recordEach(List.of(records.get(i)), "consumer.persist", startMicros, tracer.nowMicros(),
+                        Map.of("outcome", inserted.isEmpty() ? "duplicate" : "saved", "batch.size", "1"));
+                    flatEventCache.append(inserted);
+                } catch (DataIntegrityViolationException ex) {
+                    logger.error(">>>>>Запись отвергнута БД: {}", ex.getMessage());
+                    rejected.put(records.get(i), ex);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package request_logger_store.service.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Учёт обработанных offset'ов пакета при параллельной обработке записей одной партиции.
+ * <p>
+ * Записи могут завершаться в любом порядке, но подтверждать можно только непрерывный префикс:
+ * для каждой партиции фиксируемый offset — следующий за последним обработанным без пропусков.
+ * Всё, что начинается с первой необработанной записи, должно быть прочитано повторно.
+ * Используется только из потока слушателя.
+ */
+final class ContiguousOffsetTracker {
+
+    private final Map<TopicPartition, TreeMap<Long, Boolean>> offsets = new HashMap<>();
+
+    ContiguousOffsetTracker(List<? extends ConsumerRecord<?, ?>> records) {
+        for (ConsumerRecord<?, ?> record : records) {
+            offsets.computeIfAbsent(partitionOf(record), tp -> new TreeMap<>()).put(record.offset(), false);
+        }
+    }
+
+    void complete(List<? extends ConsumerRecord<?, ?>> records) {
+        for (ConsumerRecord<?, ?> record : records) {
+            offsets.get(partitionOf(record)).put(record.offset(), true);
+        }
+    }
+
+    /**
+     * @return Offset'ы для фиксации: по партициям, где обработан хотя бы непрерывный префикс записей
+     */
+    Map<TopicPartition, OffsetAndMetadata> committable() {
+        Map<TopicPartition, OffsetAndMetadata> result = new HashMap<>();
+        offsets.forEach((partition, partitionOffsets) -> {
+            Long lastContiguous = null;
+            for (Map.Entry<Long, Boolean> entry : partitionOffsets.entrySet()) {
+                if (!entry.getValue()) {
+                    break;
+                }
+                lastContiguous = entry.getKey();
+            }
+            if (lastContiguous != null) {
+                result.put(partition, new OffsetAndMetadata(lastContiguous + 1));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return Для каждой партиции с необработанными записями — offset первой из них
+     */
+    Map<TopicPartition, Long> firstPending() {
+        Map<TopicPartition, Long> result = new HashMap<>();
+        offsets.forEach((partition, partitionOffsets) -> partitionOffsets.entrySet().stream()
+            .filter(entry -> !entry.getValue())
+            .findFirst()
+            .ifPresent(entry -> result.put(partition, entry.getKey())));
+        return result;
+    }
+
+    private static TopicPartition partitionOf(ConsumerRecord<?, ?> record) {
+        return new TopicPartition(record.topic(), record.partition());
+    }
+}
@@ -1,53 +1,84 @@
 package request_logger_store.service.kafka;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import io.github.resilience4j.retry.Retry;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 import request_logger_store.Dto.EventListDto;
+import request_logger_store.component.cache.FlatEventCache;
 import request_logger_store.component.db.BaseChecking;
+import request_logger_store.component.metrics.IngestMetrics;
+import request_logger_store.component.trace.IngestTracer;
+import request_logger_store.component.trace.TraceContext;
 import request_logger_store.config.mapper.Mapper;
 import request_logger_store.model.Event;
-import request_logger_store.repository.EventRepository;
+import request_logger_store.repository.writer.EventWriter;
+import request_logger_store.service.kafka.codec.EventBatchCodecs;
+import request_logger_store.service.kafka.retry.FailedRecordRouter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Сервис для потребления сообщений из Kafka и последующего их сохранения в базу данных.
  * <p>
- * Сообщения обрабатываются асинхронно с возможностью повторных попыток записи в БД
- * при возникновении ошибок, используя {@link Retry}.
+ * Поток слушателя не ждёт между попытками: сообщение, которое не удалось сохранить, уходит в топики
+ * повторов, а сообщение, которое невозможно разобрать, — сразу в DLT ({@link FailedRecordRouter}).
+ * Только при недоступности БД сообщение возвращается в топик и перечитывается после её восстановления.
+ * <p>
+ * Обрабатывает сообщения по одному и используется, если пакетный режим
+ * ({@code app.kafka.consumer.batch.enabled}) выключен; иначе работает {@link KafkaBatchConsumer}.
  */
 @Service
+@ConditionalOnProperty(name = "app.kafka.consumer.batch.enabled", havingValue = "false")
 public class KafkaConsumer {
 
     private final Mapper mapper;
     private static final Logger logger = LoggerFactory.getLogger(KafkaConsumer.class);
-    private final EventRepository repository;
-    private final Retry retrySaveEvent;
+    private static final Duration REDELIVERY_DELAY = Duration.ofSeconds(1);
+    private final EventWriter eventWriter;
     private final BaseChecking baseChecking;
+    private final EventBatchCodecs codecs;
+    private final FailedRecordRouter failedRecordRouter;
+    private final IngestMetrics metrics;
+    private final FlatEventCache flatEventCache;
+    private final IngestTracer tracer;
 
     /**
      * Конструктор для создания экземпляра KafkaConsumer.
      *
-     * @param mapper        Объект для преобразования JSON-строки в Java-объекты
-     * @param repository    Репозиторий для взаимодействия с базой данных
-     * @param retry         Настроенная стратегия повторных попыток для сохранения события
-     * @param baseChecking  Компонент для проверки состояния базы данных в случае ошибок
+     * @param mapper             Объект для преобразования JSON-строки в Java-объекты
+     * @param eventWriter        Стратегия записи в БД, выбранная через {@code app.ingest.writer}
+     * @param baseChecking       Компонент для проверки состояния базы данных в случае ошибок
+     * @param codecs             Реестр форматов пакетов для выбора декодера по заголовку сообщения
+     * @param failedRecordRouter Маршрутизация необработанных сообщений в топики повторов и DLT
+     * @param metrics            Метрики сохранения
+     * @param flatEventCache     Кэш {@code /all-events}, дополняемый после фиксации
+     * @param tracer             Трассировка: продолжает трассу продюсера участками разбора и записи
      */
     public KafkaConsumer(
         Mapper mapper,
-        EventRepository repository,
-        @Qualifier("kafkaConsumerRetry") Retry retry,
-        BaseChecking baseChecking) {
+        EventWriter eventWriter,
+        BaseChecking baseChecking,
+        EventBatchCodecs codecs,
+        FailedRecordRouter failedRecordRouter,
+        IngestMetrics metrics,
+        FlatEventCache flatEventCache,
+        IngestTracer tracer) {
         this.mapper = mapper;
-        this.repository = repository;
-        this.retrySaveEvent = retry;
+        this.eventWriter = eventWriter;
         this.baseChecking = baseChecking;
+        this.codecs = codecs;
+        this.failedRecordRouter = failedRecordRouter;
+        this.metrics = metrics;
+        this.flatEventCache = flatEventCache;
+        this.tracer = tracer;
     }
 
     /**
@@ -55,11 +86,17 @@ public class KafkaConsumer {
      * <p>
      * После получения сообщения:
      * - Проверяет, не пустое ли оно.
-     * - Десериализует JSON в DTO-объект.
-     * - Сохраняет событие в БД с поддержкой повторных попыток.
-     * - Подтверждает offset только в случае успешного сохранения.
+     * - Декодирует пакет форматом из заголовка сообщения ({@link EventBatchCodecs}); некорректное сообщение
+     * отправляется в DLT.
+     * - Сохраняет событие в БД вместе со счётчиками событий по интервалам; при ошибке сообщение отправляется
+     * в топик повторов.
+     * - Подтверждает offset, когда сообщение сохранено или передано в топик повторов или DLT.
      * <p>
-     * При возникновении ошибки сохранения вызывается проверка состояния БД через {@link BaseChecking#checking()}.
+     * Если БД недоступна, вызывается проверка состояния БД через {@link BaseChecking#checking()},
+     * а сообщение возвращается в топик.
+     * <p>
+     * Контейнер слушателя запускается не вместе с контекстом, а после прогрева
+     * ({@link request_logger_store.component.startup.StartupWarmUp}).
      *
      * @param record         Полученное сообщение из Kafka
      * @param acknowledgment Объект для ручного подтверждения offset'а
@@ -68,37 +105,65 @@ public class KafkaConsumer {
         topics = "new-event-topic",
         groupId = "event-group",
         containerFactory = "manualKafkaListenerContainerFactory",
-        id = "myCustomConsumerId"
+        id = "myCustomConsumerId",
+        autoStartup = "false"
     )
-    public void listenEvent(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+    public void listenEvent(ConsumerRecord<String, byte[]> record, Acknowledgment acknowledgment) {
         logger.info(">>>>>KafkaConsumer");
         String messageKey = record.key();
-        String messageValue = record.value();
+        byte[] messageValue = record.value();
 
-        if (!StringUtils.hasText(messageValue)) {
+        if (messageValue == null || messageValue.length == 0) {
             logger.warn("<<<<Получено пустое сообщение с ключом {}", messageKey);
             return;
         }
-        logger.info(">>>>>Сообщение получено из Kafka. Ключ: {}, Содержимое: {}", messageKey, messageValue);
+        logger.info(">>>>>Сообщение получено из Kafka. Ключ: {}, Размер: {} байт", messageKey, messageValue.length);
+        TraceContext trace = tracer.extract(record);
+        tracer.recordDelivery(record, tracer.nowMicros());
         try {
-            Retry.decorateRunnable(retrySaveEvent, () -> {
-                String jsonList;
-                try {
-                    EventListDto eventListDto = mapper.objectMapper().readValue(messageValue, EventListDto.class);
-                    jsonList = mapper.objectMapper().writeValueAsString(eventListDto.getEventDto());
-                } catch (JsonProcessingException e) {
-                    logger.error(">>>>>Ошибка десериализации JSON из Kafka. Ключ: {}, Сообщение: {}", messageKey, messageValue);
-                    throw new RuntimeException(e.getMessage());
+            Event event;
+            try {
+                long decodeStart = tracer.nowMicros();
+                EventListDto eventListDto = codecs.decoderFor(record.headers()).decode(messageValue);
+                String jsonList = mapper.objectMapper().writeValueAsString(eventListDto.getEventDto());
+                event = Event.fromDtos(jsonList, eventListDto.getEventDto());
+                FailedRecordRouter.assignSource(event, record);
+                tracer.record(trace, "consumer.deserialize", decodeStart, tracer.nowMicros(),
+                    Map.of("topic", record.topic()));
+            } catch (IOException e) {
+                logger.error(">>>>>Ошибка декодирования сообщения из Kafka. Ключ: {}, Партиция: {}, offset: {}",
+                    messageKey, record.partition(), record.offset());
+                failedRecordRouter.toDeadLetter(record, e);
+                acknowledgment.acknowledge();
+                return;
+            }
+            long persistStart = tracer.nowMicros();
+            try {
+                List<Event> inserted = new ArrayList<>(1);
+                baseChecking.protect(() -> {
+                    long start = System.nanoTime();
+                    inserted.addAll(eventWriter.write(List.of(event)));
+                    metrics.recordPersisted(start, inserted);
+                    metrics.recordDuplicates(1 - inserted.size());
+                }).run();
+                tracer.record(trace, "consumer.persist", persistStart, tracer.nowMicros(),
+                    Map.of("outcome", inserted.isEmpty() ? "duplicate" : "saved"));
+                flatEventCache.append(inserted);
+                logger.info(">>>>>Offset commit>>>>>DB");
+            } catch (RuntimeException e) {
+                tracer.record(trace, "consumer.persist", persistStart, tracer.nowMicros(),
+                    Map.of("outcome", FailedRecordRouter.isOutage(e) ? "outage" : "retry"));
+                if (FailedRecordRouter.isOutage(e)) {
+                    throw e;
                 }
-                repository.save(new Event(jsonList));
-            }).run();
-
+                failedRecordRouter.toRetry(record, e);
+            }
             acknowledgment.acknowledge();
-            logger.info(">>>>>Offset commit>>>>>DB");
 
         } catch (Exception e) {
             logger.error(">>>>>Ошибка сохранения в БД, проверяю состояние... {}", e.getMessage());
             baseChecking.checking();
+            acknowledgment.nack(REDELIVERY_DELAY);
         }
     }
 }
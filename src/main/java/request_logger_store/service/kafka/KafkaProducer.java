@@ -1,83 +1,313 @@
 package request_logger_store.service.kafka;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.github.resilience4j.retry.Retry;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import request_logger_store.Dto.EventDto;
 import request_logger_store.Dto.EventListDto;
+import request_logger_store.component.metrics.IngestMetrics;
+import request_logger_store.component.trace.IngestTracer;
+import request_logger_store.component.trace.TraceContext;
+import request_logger_store.service.kafka.codec.EventBatchCodec;
+import request_logger_store.service.kafka.codec.EventBatchCodecs;
+import request_logger_store.service.kafka.routing.EventRoutingStrategy;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Сервис для отправки событий в Kafka с поддержкой сериализации в JSON и повторными попытками.
+ * Сервис для отправки событий в Kafka с поддержкой сериализации и повторными попытками.
  * <p>
- * Использует {@link Retry} для автоматического повтора отправки в случае ошибок,
- * а также {@link ExecutorService} для выполнения операций вне основного потока.
+ * Пакет кодируется форматом {@code app.kafka.codec} ({@link EventBatchCodecs}), имя формата передаётся
+ * в заголовке {@link EventBatchCodecs#HEADER}.
+ * <p>
+ * Отправка полностью асинхронная: пакеты кодируются в пуле {@code kafkaEventExecutor} (в режиме {@code virtual}
+ * параллельно), а передаются в {@link KafkaTemplate} по одному в порядке формирования из очереди
+ * {@code kafkaSendExecutor}, поэтому порядок пакетов в партиции не зависит от режима. Повторные попытки
+ * запускаются по завершении future отправки — {@link Retry} с задержкой между попытками планируется
+ * в {@link ScheduledExecutorService}, ни один поток не ждёт ответа брокера.
+ * <p>
+ * Число одновременно неподтверждённых отправок ограничено {@code app.kafka.producer.max-in-flight}.
+ * Пакеты сверх лимита и пакеты, не отправленные после всех повторов, сохраняются в дисковую очередь
+ * {@link KafkaSpool}; пока она не пуста, в неё идут и новые пакеты, чтобы сохранить порядок отправки.
+ * Память, занятая неотправленными пакетами, ограничена лимитом, а при остановке приложения
+ * неподтверждённые пакеты сохраняются на диск. Ключ и партицию записи выбирает {@link EventRoutingStrategy}.
+ * <p>
+ * Каждый пакет начинает трассу {@link IngestTracer}: контекст и время этапов передаются в заголовках записи,
+ * а участки очереди накопителя, ожидания пула и отправки экспортируются здесь. Дисковая очередь хранит
+ * только заголовок формата, поэтому трасса пакета, отправленного через неё, на продюсере и заканчивается.
  */
 @Service
 public class KafkaProducer {
 
     private static final Logger logger = LoggerFactory.getLogger(KafkaProducer.class);
 
-    private static final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private static final String TOPIC = "new-event-topic";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
 
     private final Retry retry;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
     private final ExecutorService executor;
+    private final ExecutorService sendExecutor;
+    private final ScheduledExecutorService retryScheduler;
+    private final EventRoutingStrategy routingStrategy;
+    private final EventBatchCodecs codecs;
+    private final KafkaSpool spool;
+    private final IngestMetrics metrics;
+    private final IngestTracer tracer;
+    private final int partitions;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    /**
+     * Отправки, ожидающие подтверждения. Записи сравниваются по ссылке: {@link ProducerRecord#hashCode()}
+     * зависит от изменяемых заголовков, а два одинаковых пакета — разные отправки.
+     */
+    private final Set<ProducerRecord<String, byte[]>> pending =
+        Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
 
     /**
      * Конструктор для создания экземпляра KafkaProducer.
      *
-     * @param retry        Настроенная стратегия повторных попыток (например, с заданным количеством попыток)
-     * @param kafkaTemplate Шаблон Kafka для отправки сообщений
-     * @param executor      Пул потоков для асинхронного выполнения задач
+     * @param retry           Настроенная стратегия повторных попыток (например, с заданным количеством попыток)
+     * @param kafkaTemplate   Шаблон Kafka для отправки сообщений
+     * @param executor        Пул потоков для кодирования пакетов
+     * @param sendExecutor    Однопоточная очередь, передающая пакеты в Kafka в порядке формирования
+     * @param retryScheduler  Планировщик отложенных повторных попыток
+     * @param routingStrategy Стратегия выбора ключа и партиции
+     * @param codecs          Реестр форматов пакетов
+     * @param spool           Дисковая очередь для пакетов, которые нельзя отправить сразу
+     * @param metrics         Метрики отправки
+     * @param tracer          Трассировка пакетов
+     * @param partitions      Число партиций топика
+     * @param maxInFlight     Максимальное число неподтверждённых отправок
      */
     public KafkaProducer(
         @Qualifier("kafkaProducerRetry") Retry retry,
-        KafkaTemplate<String, String> kafkaTemplate,
-        @Qualifier("kafkaEventExecutor") ExecutorService executor) {
+        KafkaTemplate<String, byte[]> kafkaTemplate,
+        @Qualifier("kafkaEventExecutor") ExecutorService executor,
+        @Qualifier("kafkaSendExecutor") ExecutorService sendExecutor,
+        @Qualifier("kafkaRetryScheduler") ScheduledExecutorService retryScheduler,
+        EventRoutingStrategy routingStrategy,
+        EventBatchCodecs codecs,
+        KafkaSpool spool,
+        IngestMetrics metrics,
+        IngestTracer tracer,
+        @Value("${app.kafka.topic.partitions:3}") int partitions,
+        @Value("${app.kafka.producer.max-in-flight:16}") int maxInFlight) {
         this.retry = retry;
         this.kafkaTemplate = kafkaTemplate;
         this.executor = executor;
+        this.sendExecutor = sendExecutor;
+        this.retryScheduler = retryScheduler;
+        this.routingStrategy = routingStrategy;
+        this.codecs = codecs;
+        this.spool = spool;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.partitions = partitions;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
     }
 
     /**
-     * Асинхронно отправляет событие в Kafka после преобразования его в JSON.
+     * Асинхронно отправляет событие в Kafka после кодирования форматом {@code app.kafka.codec}.
      * <p>
-     * Если произойдёт ошибка при отправке, будет выполнено несколько повторных попыток
-     * согласно настройкам, указанным в {@link Retry}.
+     * Если отправка завершится ошибкой, будет выполнено несколько повторных попыток
+     * согласно настройкам, указанным в {@link Retry}, после чего пакет сохраняется в {@link KafkaSpool}.
+     * Метод не блокируется: при исчерпании лимита неподтверждённых отправок пакет сразу уходит в очередь на диске.
      *
      * @param eventDto Объект события, который нужно отправить в Kafka
      */
     public void sendEventToBroker(EventListDto eventDto) {
         logger.info(">>>>>>>>>");
-        Runnable task = () -> {
-            try {
-                String json = mapper.writeValueAsString(eventDto);
-                CompletableFuture<SendResult<String, String>> future = kafkaTemplate.send("new-event-topic",
-                    "new-event-topic-key", json).toCompletableFuture();
-                future.thenAccept(result -> {
-                    logger.info(">>>>>>>Сообщение отправлено в Kafka");
-                    logger.info(">>>>>>>Topic: {}", result.getRecordMetadata().topic());
-                    logger.info(">>>>>>>Offset {}", result.getRecordMetadata().offset());
-                }).exceptionally(ex -> {
-                    logger.error("<<<<<<Не удалось отправить сообщение", ex);
-                    return null;
-                });
+        TraceContext trace = tracer.newTrace();
+        long flushedAt = tracer.nowMicros();
+        long queuedAt = queuedAt(eventDto);
+        if (queuedAt > 0) {
+            tracer.record(trace, "processor.queue", queuedAt, flushedAt,
+                Map.of("events", String.valueOf(eventDto.getEventDto().size())));
+        }
+        if (spool.isActive() || !inFlight.tryAcquire()) {
+            ProducerRecord<String, byte[]> record = toRecord(eventDto, trace, queuedAt, flushedAt);
+            if (record != null) {
+                toSpool(record);
+            }
+            return;
+        }
+        try {
+            Future<ProducerRecord<String, byte[]>> encoded =
+                executor.submit(() -> toRecord(eventDto, trace, queuedAt, flushedAt));
+            sendExecutor.execute(() -> send(eventDto, encoded, trace, queuedAt, flushedAt));
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            logger.error("<<<<<<Пул отправки остановлен, пакет сохраняется в очередь на диске");
+            ProducerRecord<String, byte[]> record = toRecord(eventDto, trace, queuedAt, flushedAt);
+            if (record != null) {
+                toSpool(record);
+            }
+        }
+    }
 
-            } catch (JsonProcessingException e) {
-                logger.error("<<<<<<<<<<<Ошибка сериализации DTO,{} ", e.getMessage());
+    /**
+     * @return Число отправок, ожидающих подтверждения брокера
+     */
+    public int getInFlightCount() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * Дожидается подтверждения начатых отправок; пакеты, не подтверждённые за отведённое время,
+     * сохраняются в дисковую очередь и будут отправлены после перезапуска.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (inFlight.tryAcquire(maxInFlight, SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            inFlight.release(maxInFlight);
+            return;
+        }
+        logger.warn("<<<<<<{} пакетов не подтверждены брокером, сохраняю в очередь на диске", pending.size());
+        List<ProducerRecord<String, byte[]>> unconfirmed;
+        synchronized (pending) {
+            unconfirmed = List.copyOf(pending);
+        }
+        for (ProducerRecord<String, byte[]> record : unconfirmed) {
+            if (pending.remove(record)) {
+                toSpool(record);
             }
-        };
+        }
+    }
 
-        Runnable decoratedTask = Retry.decorateRunnable(retry, task);
-        executor.submit(decoratedTask);
+    /**
+     * Выполняется в очереди {@code kafkaSendExecutor}: ждёт кодирования своего пакета и запускает отправку,
+     * не дожидаясь подтверждения брокера, поэтому следующий пакет передаётся в {@link KafkaTemplate} только после
+     * предыдущего.
+     */
+    private void send(EventListDto eventDto, Future<ProducerRecord<String, byte[]>> encoded, TraceContext trace,
+                      long queuedAt, long flushedAt) {
+        ProducerRecord<String, byte[]> record;
+        try {
+            record = encoded.get();
+        } catch (ExecutionException e) {
+            logger.error("<<<<<<<<<<<Ошибка кодирования пакета", e.getCause());
+            inFlight.release();
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            inFlight.release();
+            logger.error("<<<<<<Очередь отправки остановлена, пакет сохраняется в очередь на диске");
+            record = toRecord(eventDto, trace, queuedAt, flushedAt);
+            if (record != null) {
+                toSpool(record);
+            }
+            return;
+        }
+        long sentAt = tracer.nowMicros();
+        tracer.record(trace, "producer.executor", flushedAt, sentAt, Map.of());
+        if (record == null) {
+            inFlight.release();
+            return;
+        }
+        tracer.markSent(record.headers(), sentAt);
+        pending.add(record);
+        long start = System.nanoTime();
+        Retry.<SendResult<String, byte[]>>decorateCompletionStage(retry, retryScheduler,
+                () -> sendOnce(record))
+            .get()
+            .whenComplete((result, ex) -> {
+                inFlight.release();
+                metrics.recordSend(start, ex == null);
+                tracer.record(trace, "producer.send", sentAt, tracer.nowMicros(), ex != null
+                    ? Map.of("outcome", "failure")
+                    : Map.of("outcome", "success",
+                    "partition", String.valueOf(result.getRecordMetadata().partition()),
+                    "offset", String.valueOf(result.getRecordMetadata().offset())));
+                if (!pending.remove(record)) {
+                    logger.warn("<<<<<<Ответ брокера получен после остановки, пакет уже сохранён в очередь на диске "
+                        + "и может быть отправлен повторно");
+                    return;
+                }
+                if (ex != null) {
+                    logger.error("<<<<<<Не удалось отправить сообщение после повторных попыток, "
+                        + "сохраняю в очередь на диске", ex);
+                    toSpool(record);
+                    return;
+                }
+                logger.info(">>>>>>>Сообщение отправлено в Kafka");
+                logger.info(">>>>>>>Topic: {}, partition: {}", result.getRecordMetadata().topic(),
+                    result.getRecordMetadata().partition());
+                logger.info(">>>>>>>Offset {}", result.getRecordMetadata().offset());
+            });
+    }
+
+    /**
+     * Синхронные ошибки {@link KafkaTemplate#send} (например, таймаут получения метаданных) переводятся
+     * в неуспешный future, чтобы они повторялись так же, как ошибки подтверждения брокера.
+     */
+    private CompletionStage<SendResult<String, byte[]>> sendOnce(ProducerRecord<String, byte[]> record) {
+        try {
+            return kafkaTemplate.send(record);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void toSpool(ProducerRecord<String, byte[]> record) {
+        if (!spool.offer(record)) {
+            logger.error("<<<<<<Пакет потерян: не удалось сохранить его в очередь на диске");
+            return;
+        }
+        metrics.recordSpooled();
+    }
+
+    /**
+     * Кодирует пакет и выбирает ключ и партицию. Число партиций берётся из конфигурации, а не из метаданных
+     * брокера, чтобы выбор партиции не блокировался, когда брокер недоступен.
+     *
+     * @return Запись для отправки или {@code null}, если пакет не удалось закодировать
+     */
+    private ProducerRecord<String, byte[]> toRecord(EventListDto eventDto, TraceContext trace, long queuedAt,
+                                                    long flushedAt) {
+        EventBatchCodec codec = codecs.producerCodec();
+        try {
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(TOPIC,
+                routingStrategy.partition(eventDto, partitions), routingStrategy.key(eventDto), codec.encode(eventDto));
+            record.headers().add(EventBatchCodecs.HEADER, EventBatchCodecs.headerValue(codec));
+            tracer.inject(record.headers(), trace, queuedAt, flushedAt);
+            return record;
+        } catch (IOException e) {
+            logger.error("<<<<<<<<<<<Ошибка сериализации DTO,{} ", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return Время создания самого старого события пакета или {@code 0}, если в пакете нет событий со временем
+     */
+    private static long queuedAt(EventListDto eventDto) {
+        List<EventDto> events = eventDto.getEventDto();
+        if (events == null || events.isEmpty() || events.get(0) == null || events.get(0).getDateTime() == null) {
+            return 0;
+        }
+        return IngestTracer.toMicros(events.get(0).getDateTime());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+package request_logger_store.service.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+import request_logger_store.Dto.EventListDto;
+import request_logger_store.component.cache.FlatEventCache;
+import request_logger_store.component.db.BaseChecking;
+import request_logger_store.component.metrics.IngestMetrics;
+import request_logger_store.component.trace.IngestTracer;
+import request_logger_store.config.mapper.Mapper;
+import request_logger_store.model.Event;
+import request_logger_store.repository.writer.EventWriter;
+import request_logger_store.service.kafka.codec.EventBatchCodec;
+import request_logger_store.service.kafka.codec.EventBatchCodecs;
+import request_logger_store.service.kafka.codec.JsonEventBatchCodec;
+import request_logger_store.service.kafka.retry.FailedRecordRouter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Пакетный слушатель Kafka, читающий значения сообщений как {@code byte[]}.
+ * <p>
+ * Включается свойством {@code app.kafka.consumer.payload=bytes} в пакетном режиме. В отличие от
+ * {@link KafkaBatchConsumer}, сообщение не декодируется в строку и не проходит через {@code EventListDto}:
+ * {@link RawEventParser} за один потоковый проход проверяет его и вырезает вложенный массив событий,
+ * который передаётся в {@link EventWriter} как есть. Сообщения в других форматах ({@link EventBatchCodecs})
+ * декодируются обычным образом и сохраняются как JSON.
+ */
+@Service
+@ConditionalOnExpression("${app.kafka.consumer.batch.enabled:true} and '${app.kafka.consumer.payload:string}' == 'bytes'")
+public class KafkaRawBatchConsumer extends AbstractBatchConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaRawBatchConsumer.class);
+
+    private final Mapper mapper;
+    private final EventBatchCodecs codecs;
+
+    /**
+     * Конструктор для создания экземпляра KafkaRawBatchConsumer.
+     *
+     * @param mapper             Объект для преобразования событий в JSON для сообщений не в JSON-формате
+     * @param codecs             Реестр форматов пакетов для выбора декодера по заголовку сообщения
+     * @param eventWriter        Стратегия записи пакета в БД, выбранная через {@code app.ingest.writer}
+     * @param baseChecking       Компонент для проверки состояния базы данных в случае ошибок
+     * @param failedRecordRouter Маршрутизация необработанных сообщений в топики повторов и DLT
+     * @param metrics            Метрики сохранения
+     * @param flatEventCache     Кэш {@code /all-events}, дополняемый после фиксации пакета
+     * @param tracer             Трассировка пакетов
+     * @param ingestExecutor     Пул для параллельной обработки частей пакета
+     * @param workers            Число параллельно обрабатываемых частей пакета, 1 — последовательная обработка
+     */
+    public KafkaRawBatchConsumer(
+        Mapper mapper,
+        EventBatchCodecs codecs,
+        EventWriter eventWriter,
+        BaseChecking baseChecking,
+        FailedRecordRouter failedRecordRouter,
+        IngestMetrics metrics,
+        FlatEventCache flatEventCache,
+        IngestTracer tracer,
+        @Qualifier("kafkaIngestExecutor") ExecutorService ingestExecutor,
+        @Value("${app.kafka.consumer.parallel.workers:1}") int workers) {
+        super(eventWriter, baseChecking, failedRecordRouter, metrics, flatEventCache, tracer, ingestExecutor, workers);
+        this.mapper = mapper;
+        this.codecs = codecs;
+    }
+
+    /**
+     * Метод-слушатель, получающий пакет сообщений из Kafka.
+     *
+     * @param records        Пакет сообщений, полученный за один poll
+     * @param acknowledgment Объект для ручного подтверждения offset'ов
+     * @param consumer       Потребитель, используемый для частичной фиксации в параллельном режиме
+     */
+    @KafkaListener(
+        topics = "new-event-topic",
+        groupId = "event-group",
+        containerFactory = "manualKafkaListenerContainerFactory",
+        id = "myCustomConsumerId",
+        autoStartup = "false"
+    )
+    public void listenEvents(List<ConsumerRecord<String, byte[]>> records, Acknowledgment acknowledgment,
+                             Consumer<?, ?> consumer) {
+        logger.info(">>>>>KafkaRawBatchConsumer: получено {} сообщений", records.size());
+        handleBatch(records, acknowledgment, consumer);
+    }
+
+    @Override
+    protected Event toEvent(ConsumerRecord<String, byte[]> record) throws IOException {
+        EventBatchCodec decoder = codecs.decoderFor(record.headers());
+        if (JsonEventBatchCodec.NAME.equals(decoder.name()) || record.value() == null || record.value().length == 0) {
+            return RawEventParser.parse(record.value());
+        }
+        EventListDto eventListDto = decoder.decode(record.value());
+        String jsonList = mapper.objectMapper().writeValueAsString(eventListDto.getEventDto());
+        return Event.fromDtos(jsonList, eventListDto.getEventDto());
+    }
+}
@@ -0,0 +1,170 @@
+package request_logger_store.service.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+import request_logger_store.Dto.EventListDto;
+import request_logger_store.component.cache.FlatEventCache;
+import request_logger_store.component.db.BaseChecking;
+import request_logger_store.component.metrics.IngestMetrics;
+import request_logger_store.component.trace.IngestTracer;
+import request_logger_store.config.mapper.Mapper;
+import request_logger_store.model.Event;
+import request_logger_store.repository.writer.EventWriter;
+import request_logger_store.service.kafka.codec.EventBatchCodecs;
+import request_logger_store.service.kafka.retry.FailedRecordRouter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Слушатель топиков повторов {@code new-event-topic-retry-<N>} ({@link FailedRecordRouter}).
+ * <p>
+ * Сообщение обрабатывается не раньше времени из заголовка {@link FailedRecordRouter#DUE_HEADER}. Поток слушателя
+ * не ждёт: обрабатываются только сообщения, время которых наступило, а партиция с первым ранним сообщением
+ * возвращается к нему ({@code seek}) и ставится на паузу до его времени — остальные партиции и уровни
+ * продолжают читаться. Offset'ы фиксируются по непрерывно обработанному префиксу каждой партиции.
+ * <p>
+ * Сообщения обрабатываются так же, как в основном топике ({@link AbstractBatchConsumer}): не сохранённое
+ * уходит на следующий уровень или в DLT. При недоступности БД партиции пакета ставятся на паузу
+ * на {@link #OUTAGE_DELAY}.
+ */
+@Service
+public class KafkaRetryTopicConsumer extends AbstractBatchConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaRetryTopicConsumer.class);
+
+    public static final String LISTENER_ID = "retryTopicConsumerId";
+    private static final Duration OUTAGE_DELAY = Duration.ofSeconds(5);
+
+    private final Mapper mapper;
+    private final EventBatchCodecs codecs;
+    private final BaseChecking baseChecking;
+    private final KafkaListenerEndpointRegistry registry;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Конструктор для создания экземпляра KafkaRetryTopicConsumer.
+     *
+     * @param mapper             Объект для преобразования событий в JSON
+     * @param codecs             Реестр форматов пакетов для выбора декодера по заголовку сообщения
+     * @param eventWriter        Стратегия записи пакета в БД, выбранная через {@code app.ingest.writer}
+     * @param baseChecking       Компонент для проверки состояния базы данных в случае ошибок
+     * @param failedRecordRouter Маршрутизация необработанных сообщений на следующий уровень и в DLT
+     * @param metrics            Метрики сохранения
+     * @param flatEventCache     Кэш {@code /all-events}, дополняемый после фиксации пакета
+     * @param tracer             Трассировка пакетов
+     * @param registry           Реестр контейнеров слушателей для паузы партиций
+     * @param ingestExecutor     Пул обработки частей пакета (слушатель повторов обрабатывает пакет целиком)
+     * @param scheduler          Планировщик снятия партиций с паузы
+     */
+    @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
+    public KafkaRetryTopicConsumer(
+        Mapper mapper,
+        EventBatchCodecs codecs,
+        EventWriter eventWriter,
+        BaseChecking baseChecking,
+        FailedRecordRouter failedRecordRouter,
+        IngestMetrics metrics,
+        FlatEventCache flatEventCache,
+        IngestTracer tracer,
+        KafkaListenerEndpointRegistry registry,
+        @Qualifier("kafkaIngestExecutor") ExecutorService ingestExecutor,
+        @Qualifier("kafkaRetryScheduler") ScheduledExecutorService scheduler) {
+        super(eventWriter, baseChecking, failedRecordRouter, metrics, flatEventCache, tracer, ingestExecutor, 1);
+        this.mapper = mapper;
+        this.codecs = codecs;
+        this.baseChecking = baseChecking;
+        this.registry = registry;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Метод-слушатель, получающий пакет сообщений из топиков повторов.
+     *
+     * @param records  Пакет сообщений, полученный за один poll
+     * @param consumer Потребитель для фиксации обработанных offset'ов и возврата к отложенным сообщениям
+     */
+    @KafkaListener(
+        topics = "#{@failedRecordRouter.retryTopics()}",
+        groupId = "event-retry-group",
+        containerFactory = "retryKafkaListenerContainerFactory",
+        id = LISTENER_ID
+    )
+    public void listenRetries(List<ConsumerRecord<String, byte[]>> records, Consumer<?, ?> consumer) {
+        long now = System.currentTimeMillis();
+        Map<TopicPartition, Long> deferredUntil = new HashMap<>();
+        List<ConsumerRecord<String, byte[]>> due = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, byte[]> record : records) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            if (deferredUntil.containsKey(partition)) {
+                continue;
+            }
+            long dueAt = FailedRecordRouter.dueAt(record);
+            if (dueAt > now) {
+                deferredUntil.put(partition, dueAt);
+            } else {
+                due.add(record);
+            }
+        }
+        logger.info(">>>>>KafkaRetryTopicConsumer: получено {} сообщений, к обработке {}", records.size(), due.size());
+
+        ContiguousOffsetTracker tracker = new ContiguousOffsetTracker(records);
+        try {
+            process(due);
+            tracker.complete(due);
+        } catch (RuntimeException e) {
+            logger.error(">>>>>Ошибка обработки повторов, проверяю состояние БД... {}", e.getMessage());
+            baseChecking.checking();
+            for (ConsumerRecord<String, byte[]> record : due) {
+                deferredUntil.merge(new TopicPartition(record.topic(), record.partition()),
+                    now + OUTAGE_DELAY.toMillis(), Math::max);
+            }
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> committable = tracker.committable();
+        if (!committable.isEmpty()) {
+            consumer.commitSync(committable);
+        }
+        tracker.firstPending().forEach((partition, offset) -> {
+            consumer.seek(partition, offset);
+            pauseUntil(partition, deferredUntil.getOrDefault(partition, now + OUTAGE_DELAY.toMillis()) - now);
+        });
+    }
+
+    @Override
+    protected Event toEvent(ConsumerRecord<String, byte[]> record) throws IOException {
+        byte[] messageValue = record.value();
+        if (messageValue == null || messageValue.length == 0) {
+            return null;
+        }
+        EventListDto eventListDto = codecs.decoderFor(record.headers()).decode(messageValue);
+        String jsonList = mapper.objectMapper().writeValueAsString(eventListDto.getEventDto());
+        return Event.fromDtos(jsonList, eventListDto.getEventDto());
+    }
+
+    private void pauseUntil(TopicPartition partition, long delayMillis) {
+        MessageListenerContainer container = registry.getListenerContainer(LISTENER_ID);
+        if (container == null) {
+            return;
+        }
+        container.pausePartition(partition);
+        scheduler.schedule(() -> container.resumePartition(partition), Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+        logger.info(">>>>>Партиция {} отложена на {} мс", partition, delayMillis);
+    }
+}
@@ -0,0 +1,193 @@
+package request_logger_store.service.kafka;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import request_logger_store.component.spool.MappedSpool;
+import request_logger_store.service.kafka.codec.EventBatchCodecs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Дисковая очередь отправок в Kafka под {@code ${app.data-dir}/spool}.
+ * <p>
+ * {@link KafkaProducer} складывает сюда уже закодированные записи, когда брокер недоступен
+ * (отправка не удалась после всех повторов) или когда исчерпан лимит неподтверждённых отправок в памяти.
+ * Пока очередь не пуста, новые пакеты тоже идут в неё, чтобы не обгонять накопленные.
+ * <p>
+ * Отдельный поток отправляет записи по одной в порядке добавления и удаляет запись из очереди только
+ * после подтверждения брокера; при ошибке повторяет ту же запись с экспоненциальной задержкой
+ * до {@code app.kafka.producer.spool.max-backoff}. Очередь переживает перезапуск приложения.
+ */
+@Component
+public class KafkaSpool {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaSpool.class);
+    private static final Duration INITIAL_BACKOFF = Duration.ofMillis(500);
+    private static final Duration SEND_TIMEOUT = Duration.ofSeconds(30);
+    private static final int NO_PARTITION = -1;
+
+    private final MappedSpool spool;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final long maxBackoffMillis;
+    private final Object signal = new Object();
+    private final Thread replayer;
+    private volatile boolean running = true;
+
+    /**
+     * @param kafkaTemplate Шаблон Kafka для повторной отправки
+     * @param dataDir       Каталог данных приложения
+     * @param segmentSize   Размер файла сегмента очереди
+     * @param maxBackoff    Максимальная задержка между попытками отправки головы очереди
+     */
+    public KafkaSpool(
+        KafkaTemplate<String, byte[]> kafkaTemplate,
+        @Value("${app.data-dir:data}") String dataDir,
+        @Value("${app.kafka.producer.spool.segment-size:16MB}") DataSize segmentSize,
+        @Value("${app.kafka.producer.spool.max-backoff:30s}") Duration maxBackoff) throws IOException {
+        this.kafkaTemplate = kafkaTemplate;
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.spool = new MappedSpool(Path.of(dataDir, "spool"), Math.toIntExact(segmentSize.toBytes()));
+        this.replayer = new Thread(this::runReplay, "kafka-spool-replay");
+        this.replayer.setDaemon(true);
+        this.replayer.start();
+    }
+
+    /**
+     * @return {@code true}, если в очереди есть неотправленные записи
+     */
+    public boolean isActive() {
+        return !spool.isEmpty();
+    }
+
+    public long getDepth() {
+        return spool.size();
+    }
+
+    /**
+     * Сохраняет запись в очередь для последующей отправки.
+     *
+     * @return {@code false}, если запись не удалось сохранить на диск
+     */
+    public boolean offer(ProducerRecord<String, byte[]> record) {
+        try {
+            spool.append(encode(record));
+        } catch (IOException e) {
+            logger.error("<<<<<<Не удалось сохранить пакет в очередь на диске: {}", e.getMessage());
+            return false;
+        }
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        replayer.interrupt();
+        replayer.join(TimeUnit.SECONDS.toMillis(5));
+        spool.close();
+    }
+
+    private void runReplay() {
+        long backoff = INITIAL_BACKOFF.toMillis();
+        while (running) {
+            try {
+                byte[] entry = spool.peek();
+                if (entry == null) {
+                    synchronized (signal) {
+                        if (spool.isEmpty()) {
+                            signal.wait(INITIAL_BACKOFF.toMillis());
+                        }
+                    }
+                    continue;
+                }
+                kafkaTemplate.send(decode(entry)).get(SEND_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                spool.advance();
+                backoff = INITIAL_BACKOFF.toMillis();
+                if (spool.isEmpty()) {
+                    logger.info(">>>>>>>Очередь на диске отправлена полностью, отправка идёт напрямую");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | TimeoutException | RuntimeException e) {
+                logger.warn("<<<<<<Брокер недоступен, в очереди {} пакетов, повтор через {} мс: {}",
+                    spool.size(), backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(backoff * 2, maxBackoffMillis);
+            } catch (IOException e) {
+                logger.error("<<<<<<Ошибка чтения очереди на диске, отправка остановлена: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Формат записи: {@code [топик][партиция или -1][ключ или -1][формат пакета][значение]},
+     * строки — длина и байты UTF-8.
+     */
+    static byte[] encode(ProducerRecord<String, byte[]> record) {
+        byte[] topic = record.topic().getBytes(StandardCharsets.UTF_8);
+        byte[] key = record.key() == null ? null : record.key().getBytes(StandardCharsets.UTF_8);
+        Header codecHeader = record.headers().lastHeader(EventBatchCodecs.HEADER);
+        byte[] codec = codecHeader == null ? new byte[0] : codecHeader.value();
+        ByteBuffer buffer = ByteBuffer.allocate(16 + topic.length + (key == null ? 0 : key.length)
+            + codec.length + record.value().length);
+        buffer.putInt(topic.length).put(topic);
+        buffer.putInt(record.partition() == null ? NO_PARTITION : record.partition());
+        if (key == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(key.length).put(key);
+        }
+        buffer.putInt(codec.length).put(codec);
+        buffer.put(record.value());
+        return buffer.array();
+    }
+
+    static ProducerRecord<String, byte[]> decode(byte[] entry) {
+        ByteBuffer buffer = ByteBuffer.wrap(entry);
+        String topic = readString(buffer);
+        int partition = buffer.getInt();
+        String key = readString(buffer);
+        String codec = readString(buffer);
+        byte[] value = new byte[buffer.remaining()];
+        buffer.get(value);
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic,
+            partition == NO_PARTITION ? null : partition, key, value);
+        if (!codec.isEmpty()) {
+            record.headers().add(EventBatchCodecs.HEADER, codec.getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
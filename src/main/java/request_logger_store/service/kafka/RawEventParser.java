@@ -0,0 +1,122 @@
+package request_logger_store.service.kafka;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import request_logger_store.model.Event;
+import request_logger_store.model.EventRecord;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+/**
+ * Потоковый разбор сообщения {@code {"eventDto":[...]}} из байтов без построения DTO.
+ * <p>
+ * За один проход {@link JsonParser} проверяет структуру сообщения, читает время каждого события
+ * для строк {@link EventRecord} и находит границы вложенного массива. Сам массив берётся срезом
+ * исходных байтов, без повторной сериализации: в {@code event.data} попадает ровно то, что отправил продюсер.
+ * Время события принимается как массивом {@code [y,M,d,h,m,s,nanos]} (формат Jackson по умолчанию),
+ * так и строкой ISO-8601. События без времени остаются в {@code data}, но строк не получают, как
+ * в {@link Event#fromDtos}: {@code event_record.event_time} обязателен.
+ */
+public final class RawEventParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String EVENTS_FIELD = "eventDto";
+    private static final String DATE_TIME_FIELD = "dateTime";
+
+    private RawEventParser() {
+    }
+
+    /**
+     * @param value Значение сообщения Kafka в UTF-8
+     * @return Пакет, готовый к сохранению, или {@code null} для пустого сообщения
+     * @throws IOException если сообщение не является корректным пакетом
+     */
+    public static Event parse(byte[] value) throws IOException {
+        if (value == null || value.length == 0) {
+            return null;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(value)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Ожидался объект пакета событий");
+            }
+            Event event = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (EVENTS_FIELD.equals(field) && token == JsonToken.START_ARRAY) {
+                    event = new Event();
+                    int start = (int) parser.getTokenLocation().getByteOffset();
+                    readEvents(parser, event);
+                    int end = (int) parser.getCurrentLocation().getByteOffset();
+                    event.setData(new String(value, start, end - start, StandardCharsets.UTF_8));
+                } else if (EVENTS_FIELD.equals(field) && token != JsonToken.VALUE_NULL) {
+                    throw new JsonParseException(parser, "Поле eventDto должно быть массивом");
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Лишние данные после пакета событий");
+            }
+            return event != null ? event : new Event("null");
+        }
+    }
+
+    private static void readEvents(JsonParser parser, Event event) throws IOException {
+        int position = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.START_OBJECT) {
+                LocalDateTime dateTime = readDateTime(parser);
+                if (dateTime != null) {
+                    event.addRecord(new EventRecord(position, dateTime));
+                }
+            } else if (token != JsonToken.VALUE_NULL) {
+                throw new JsonParseException(parser, "Элемент пакета должен быть объектом");
+            }
+            position++;
+        }
+    }
+
+    private static LocalDateTime readDateTime(JsonParser parser) throws IOException {
+        LocalDateTime dateTime = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            try {
+                if (!DATE_TIME_FIELD.equals(field)) {
+                    parser.skipChildren();
+                } else if (token == JsonToken.VALUE_STRING) {
+                    dateTime = LocalDateTime.parse(parser.getText());
+                } else if (token == JsonToken.START_ARRAY) {
+                    dateTime = readDateTimeArray(parser);
+                } else if (token != JsonToken.VALUE_NULL) {
+                    throw new JsonParseException(parser, "Некорректное значение dateTime");
+                }
+            } catch (DateTimeException e) {
+                throw new JsonParseException(parser, "Некорректное значение dateTime", e);
+            }
+        }
+        return dateTime;
+    }
+
+    private static LocalDateTime readDateTimeArray(JsonParser parser) throws IOException {
+        int[] parts = new int[7];
+        int count = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (count == parts.length || parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+                throw new JsonParseException(parser, "Некорректный массив dateTime");
+            }
+            parts[count++] = parser.getIntValue();
+        }
+        if (count < 5) {
+            throw new JsonParseException(parser, "Некорректный массив dateTime");
+        }
+        return LocalDateTime.of(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6]);
+    }
+}
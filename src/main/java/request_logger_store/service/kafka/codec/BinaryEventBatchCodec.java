@@ -0,0 +1,159 @@
+package request_logger_store.service.kafka.codec;
+
+import org.springframework.stereotype.Component;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.Dto.EventListDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Компактный двоичный формат пакета событий.
+ * <p>
+ * Структура: байт версии, число событий (varint), далее для каждого события тег (varint):
+ * {@code 0} — событие {@code null}, {@code 1} — событие без времени, {@code 2} — событие со временем.
+ * За тегом {@code 2} следуют разность секунд эпохи с предыдущим событием (zigzag varint) и наносекунды (varint).
+ * События пакета идут почти подряд, поэтому разность обычно занимает 1 байт, а всё событие — 1–6 байт
+ * вместо ~40 байт JSON. {@link LocalDateTime} переводится в секунды без учёта часового пояса (как UTC).
+ * <p>
+ * Событие без времени декодируется так же, как из JSON — {@code EventDto} с {@code dateTime = null}: оно остаётся
+ * в данных пакета, а строку {@code event_record} не получает ({@link request_logger_store.model.Event#fromDtos}).
+ */
+@Component
+public class BinaryEventBatchCodec implements EventBatchCodec {
+
+    public static final String NAME = "binary-v1";
+
+    private static final int VERSION = 1;
+    private static final int TAG_NULL_EVENT = 0;
+    private static final int TAG_NULL_TIME = 1;
+    private static final int TAG_TIME = 2;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(EventListDto batch) {
+        List<EventDto> events = batch.getEventDto();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + (events == null ? 0 : events.size() * 6));
+        out.write(VERSION);
+        if (events == null) {
+            writeVarLong(out, 0);
+            return out.toByteArray();
+        }
+        writeVarLong(out, events.size() + 1L);
+        long previousSecond = 0;
+        for (EventDto event : events) {
+            if (event == null) {
+                writeVarLong(out, TAG_NULL_EVENT);
+            } else if (event.getDateTime() == null) {
+                writeVarLong(out, TAG_NULL_TIME);
+            } else {
+                long second = event.getDateTime().toEpochSecond(ZoneOffset.UTC);
+                writeVarLong(out, TAG_TIME);
+                writeVarLong(out, zigzag(second - previousSecond));
+                writeVarLong(out, event.getDateTime().getNano());
+                previousSecond = second;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public EventListDto decode(byte[] value) throws IOException {
+        Reader in = new Reader(value);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Неизвестная версия формата " + NAME + ": " + version);
+        }
+        long count = in.readVarLong();
+        if (count == 0) {
+            in.requireEnd();
+            return new EventListDto(null);
+        }
+        if (count - 1 > value.length) {
+            throw new IOException("Некорректное число событий: " + (count - 1));
+        }
+        List<EventDto> events = new ArrayList<>((int) (count - 1));
+        long previousSecond = 0;
+        for (long i = 1; i < count; i++) {
+            long tag = in.readVarLong();
+            if (tag == TAG_NULL_EVENT) {
+                events.add(null);
+            } else if (tag == TAG_NULL_TIME) {
+                events.add(new EventDto(null));
+            } else if (tag == TAG_TIME) {
+                long second = previousSecond + unzigzag(in.readVarLong());
+                long nano = in.readVarLong();
+                try {
+                    events.add(new EventDto(LocalDateTime.ofEpochSecond(second, Math.toIntExact(nano), ZoneOffset.UTC)));
+                } catch (DateTimeException | ArithmeticException e) {
+                    throw new IOException("Некорректное время события", e);
+                }
+                previousSecond = second;
+            } else {
+                throw new IOException("Неизвестный тег события: " + tag);
+            }
+        }
+        in.requireEnd();
+        return new EventListDto(events);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() throws EOFException {
+            if (position >= bytes.length) {
+                throw new EOFException("Неожиданный конец пакета " + NAME);
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        long readVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Слишком длинный varint");
+        }
+
+        void requireEnd() throws IOException {
+            if (position != bytes.length) {
+                throw new IOException("Лишние данные после пакета " + NAME);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package request_logger_store.service.kafka.codec;
+
+import request_logger_store.Dto.EventListDto;
+
+import java.io.IOException;
+
+/**
+ * Формат пакета событий в значении сообщения Kafka.
+ * <p>
+ * Имя формата передаётся в заголовке {@link EventBatchCodecs#HEADER}, по нему потребитель
+ * выбирает декодер, поэтому в одном топике могут одновременно лежать сообщения разных форматов.
+ */
+public interface EventBatchCodec {
+
+    /**
+     * @return Имя формата, записываемое в заголовок сообщения
+     */
+    String name();
+
+    byte[] encode(EventListDto batch) throws IOException;
+
+    /**
+     * @throws IOException если значение не является пакетом в этом формате
+     */
+    EventListDto decode(byte[] value) throws IOException;
+}
@@ -0,0 +1,74 @@
+package request_logger_store.service.kafka.codec;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Реестр форматов пакетов событий.
+ * <p>
+ * Продюсер кодирует пакеты форматом {@code app.kafka.codec} и указывает его имя в заголовке {@link #HEADER}.
+ * Потребитель выбирает декодер по заголовку; сообщения без заголовка считаются JSON, что позволяет
+ * переключать формат продюсера без остановки потребителей и перечитывания топика.
+ */
+@Component
+public class EventBatchCodecs {
+
+    public static final String HEADER = "event-codec";
+
+    private final Map<String, EventBatchCodec> codecs = new HashMap<>();
+    private final EventBatchCodec producerCodec;
+
+    /**
+     * @param codecs            Доступные форматы
+     * @param producerCodecName Имя формата, которым кодирует продюсер
+     */
+    public EventBatchCodecs(
+        List<EventBatchCodec> codecs,
+        @Value("${app.kafka.codec:json}") String producerCodecName) {
+        for (EventBatchCodec codec : codecs) {
+            this.codecs.put(codec.name(), codec);
+        }
+        this.producerCodec = this.codecs.get(producerCodecName);
+        if (producerCodec == null) {
+            throw new IllegalArgumentException("Неизвестный формат app.kafka.codec: " + producerCodecName
+                + ", доступны " + this.codecs.keySet());
+        }
+    }
+
+    public EventBatchCodec producerCodec() {
+        return producerCodec;
+    }
+
+    /**
+     * @param headers Заголовки сообщения
+     * @return Декодер формата из заголовка {@link #HEADER}, JSON при отсутствии заголовка
+     * @throws IOException если формат в заголовке неизвестен
+     */
+    public EventBatchCodec decoderFor(Headers headers) throws IOException {
+        Header header = headers == null ? null : headers.lastHeader(HEADER);
+        if (header == null) {
+            return codecs.get(JsonEventBatchCodec.NAME);
+        }
+        String name = new String(header.value(), StandardCharsets.UTF_8);
+        EventBatchCodec codec = codecs.get(name);
+        if (codec == null) {
+            throw new IOException("Неизвестный формат сообщения: " + name);
+        }
+        return codec;
+    }
+
+    /**
+     * @return Значение заголовка {@link #HEADER} для формата
+     */
+    public static byte[] headerValue(EventBatchCodec codec) {
+        return codec.name().getBytes(StandardCharsets.UTF_8);
+    }
+}
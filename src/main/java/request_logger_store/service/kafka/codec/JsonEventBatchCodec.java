@@ -0,0 +1,34 @@
+package request_logger_store.service.kafka.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.stereotype.Component;
+import request_logger_store.Dto.EventListDto;
+
+import java.io.IOException;
+
+/**
+ * JSON-формат {@code {"eventDto":[{"dateTime":...}]}}. Используется для сообщений без заголовка формата.
+ */
+@Component
+public class JsonEventBatchCodec implements EventBatchCodec {
+
+    public static final String NAME = "json";
+
+    private static final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(EventListDto batch) throws IOException {
+        return mapper.writeValueAsBytes(batch);
+    }
+
+    @Override
+    public EventListDto decode(byte[] value) throws IOException {
+        return mapper.readValue(value, EventListDto.class);
+    }
+}
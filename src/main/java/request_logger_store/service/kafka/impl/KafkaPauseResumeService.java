@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
 import org.springframework.kafka.listener.MessageListenerContainer;
 import org.springframework.stereotype.Service;
+import request_logger_store.component.metrics.IngestMetrics;
 import request_logger_store.service.kafka.KafkaControlService;
 
 /**
@@ -17,16 +18,19 @@ import request_logger_store.service.kafka.KafkaControlService;
 public class KafkaPauseResumeService implements KafkaControlService {
 
     private final KafkaListenerEndpointRegistry registry;
+    private final IngestMetrics metrics;
     private static final Logger logger = LoggerFactory.getLogger(KafkaPauseResumeService.class);
 
     /**
      * Конструктор для создания экземпляра KafkaPauseResumeService.
      *
      * @param registry Регистратор Kafka-эндпоинтов, используется для получения контейнеров слушателей
+     * @param metrics  Счётчик переходов между паузой и работой
      */
     @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
-    public KafkaPauseResumeService(KafkaListenerEndpointRegistry registry) {
+    public KafkaPauseResumeService(KafkaListenerEndpointRegistry registry, IngestMetrics metrics) {
         this.registry = registry;
+        this.metrics = metrics;
     }
 
     /**
@@ -55,6 +59,7 @@ public class KafkaPauseResumeService implements KafkaControlService {
         MessageListenerContainer messageListenerContainer = getRequiredContainer();
         if (!messageListenerContainer.isPauseRequested()) {
             messageListenerContainer.pause();
+            metrics.recordPaused();
             logger.warn("[ПАУЗА] Kafka consumer приостановлен");
         }
     }
@@ -69,6 +74,7 @@ public class KafkaPauseResumeService implements KafkaControlService {
         MessageListenerContainer messageListenerContainer = getRequiredContainer();
         if (messageListenerContainer.isPauseRequested()) {
             messageListenerContainer.resume();
+            metrics.recordResumed();
             logger.warn("[ВОЗОБНОВЛЕНИЕ] Kafka consumer возобновил работу");
         }
     }
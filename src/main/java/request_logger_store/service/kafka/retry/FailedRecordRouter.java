@@ -0,0 +1,208 @@
+package request_logger_store.service.kafka.retry;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.hibernate.exception.JDBCConnectionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import request_logger_store.component.metrics.IngestMetrics;
+import request_logger_store.model.Event;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+/**
+ * Маршрутизация сообщений, которые не удалось сохранить, в топики повторов и топик недоставляемых сообщений.
+ * <p>
+ * Повторы разнесены по уровням {@code new-event-topic-retry-<N>} с задержками {@code app.kafka.consumer.retry.delays}:
+ * сообщение, не сохранённое на уровне N, уходит на уровень N+1, после последнего уровня — в
+ * {@code new-event-topic-dlt}. Сообщения, которые невозможно разобрать, и строки, отвергнутые ограничениями БД,
+ * отправляются в DLT сразу — повтор их не исправит.
+ * <p>
+ * Сообщение публикуется с исходными ключом, значением, временем и заголовками, к которым добавляются:
+ * <ul>
+ *     <li>{@link KafkaHeaders#DLT_ORIGINAL_TOPIC}, {@code _PARTITION}, {@code _OFFSET}, {@code _TIMESTAMP} —
+ *     откуда сообщение пришло впервые (сохраняются при переходе между уровнями)</li>
+ *     <li>{@link KafkaHeaders#DLT_EXCEPTION_FQCN}, {@link KafkaHeaders#DLT_EXCEPTION_MESSAGE} — последняя ошибка</li>
+ *     <li>{@link #ATTEMPT_HEADER} — номер следующей попытки, {@link #DUE_HEADER} — время, раньше которого
+ *     сообщение не обрабатывается (мс от начала эпохи)</li>
+ * </ul>
+ * Публикация синхронная: offset исходного сообщения можно подтверждать только после её завершения.
+ * Ошибка публикации выбрасывается как {@link KafkaException}, и сообщение будет прочитано повторно.
+ */
+@Component
+public class FailedRecordRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FailedRecordRouter.class);
+
+    public static final String RETRY_TOPIC_PREFIX = "new-event-topic-retry-";
+    public static final String DLT_TOPIC = "new-event-topic-dlt";
+    public static final String ATTEMPT_HEADER = "event-retry-attempt";
+    public static final String DUE_HEADER = "event-retry-due-at";
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final IngestMetrics metrics;
+    private final List<Duration> delays;
+    private final Duration publishTimeout;
+
+    /**
+     * @param kafkaTemplate  Шаблон Kafka для публикации
+     * @param metrics        Счётчики повторов и недоставляемых сообщений
+     * @param delays         Задержки уровней повторов
+     * @param publishTimeout Максимальное ожидание подтверждения публикации
+     */
+    public FailedRecordRouter(
+        KafkaTemplate<String, byte[]> kafkaTemplate,
+        IngestMetrics metrics,
+        @Value("${app.kafka.consumer.retry.delays:5s,30s,5m}") List<Duration> delays,
+        @Value("${app.kafka.consumer.retry.publish-timeout:10s}") Duration publishTimeout) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.metrics = metrics;
+        this.delays = List.copyOf(delays);
+        this.publishTimeout = publishTimeout;
+    }
+
+    /**
+     * @return Имена топиков всех уровней повторов
+     */
+    public String[] retryTopics() {
+        return IntStream.range(0, delays.size()).mapToObj(tier -> RETRY_TOPIC_PREFIX + tier).toArray(String[]::new);
+    }
+
+    /**
+     * Отправляет сообщение на следующий уровень повторов или, если уровни исчерпаны, в DLT.
+     */
+    public void toRetry(ConsumerRecord<String, byte[]> record, Throwable cause) {
+        int attempt = attempt(record);
+        if (attempt >= delays.size()) {
+            toDeadLetter(record, cause);
+            return;
+        }
+        long dueAt = System.currentTimeMillis() + delays.get(attempt).toMillis();
+        publish(RETRY_TOPIC_PREFIX + attempt, record, cause, attempt + 1, dueAt);
+        metrics.recordRetried();
+        logger.warn(">>>>>Сообщение {}-{}@{} отправлено на повтор #{}: {}", record.topic(), record.partition(),
+            record.offset(), attempt + 1, cause.getMessage());
+    }
+
+    /**
+     * Отправляет сообщение в DLT.
+     */
+    public void toDeadLetter(ConsumerRecord<String, byte[]> record, Throwable cause) {
+        publish(DLT_TOPIC, record, cause, attempt(record), null);
+        metrics.recordDeadLettered();
+        logger.error(">>>>>Сообщение {}-{}@{} отправлено в {}: {}", record.topic(), record.partition(),
+            record.offset(), DLT_TOPIC, cause.getMessage());
+    }
+
+    /**
+     * @return Время, раньше которого сообщение из топика повторов не обрабатывается; 0 — без ограничения
+     */
+    public static long dueAt(ConsumerRecord<String, byte[]> record) {
+        Header header = record.headers().lastHeader(DUE_HEADER);
+        return header == null || header.value().length != Long.BYTES ? 0 : ByteBuffer.wrap(header.value()).getLong();
+    }
+
+    /**
+     * Назначает пакету идентичность сообщения, в котором он впервые пришёл ({@link Event#assignSource}):
+     * для сообщений из топиков повторов — по заголовкам {@code DLT_ORIGINAL_*}, иначе — по самому сообщению.
+     * Поэтому пакет, сохранённый при повторе или повторной доставке, не дублируется.
+     */
+    public static void assignSource(Event event, ConsumerRecord<String, byte[]> record) {
+        Header topic = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC);
+        Header partition = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_PARTITION);
+        Header offset = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_OFFSET);
+        Header timestamp = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TIMESTAMP);
+        if (topic != null && partition != null && partition.value().length == Integer.BYTES
+            && offset != null && offset.value().length == Long.BYTES
+            && timestamp != null && timestamp.value().length == Long.BYTES) {
+            event.assignSource(new String(topic.value(), StandardCharsets.UTF_8),
+                ByteBuffer.wrap(partition.value()).getInt(), ByteBuffer.wrap(offset.value()).getLong(),
+                ByteBuffer.wrap(timestamp.value()).getLong());
+            return;
+        }
+        event.assignSource(record.topic(), record.partition(), record.offset(),
+            record.timestamp() < 0 ? System.currentTimeMillis() : record.timestamp());
+    }
+
+    /**
+     * Ошибка означает недоступность БД, а не проблему конкретного сообщения: такие сообщения не уходят
+     * в повторы, а перечитываются после восстановления БД.
+     * <p>
+     * Кроме открытого автомата и {@link DataAccessResourceFailureException} недоступностью считаются ошибки,
+     * с которыми запись падает до открытия автомата: транзакцию не удалось начать
+     * ({@link CannotCreateTransactionException}), соединение не получено из пула или потеряно
+     * ({@link TransientDataAccessResourceException}, {@link SQLTransientConnectionException},
+     * {@link JDBCConnectionException}).
+     */
+    public static boolean isOutage(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof CallNotPermittedException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException
+                || e instanceof TransientDataAccessResourceException
+                || e instanceof SQLTransientConnectionException
+                || e instanceof JDBCConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int attempt(ConsumerRecord<String, byte[]> record) {
+        Header header = record.headers().lastHeader(ATTEMPT_HEADER);
+        return header == null || header.value().length != Integer.BYTES ? 0 : ByteBuffer.wrap(header.value()).getInt();
+    }
+
+    private void publish(String topic, ConsumerRecord<String, byte[]> record, Throwable cause, int attempt, Long dueAt) {
+        Headers headers = new RecordHeaders(record.headers().toArray());
+        if (headers.lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC) == null) {
+            headers.add(KafkaHeaders.DLT_ORIGINAL_TOPIC, record.topic().getBytes(StandardCharsets.UTF_8));
+            headers.add(KafkaHeaders.DLT_ORIGINAL_PARTITION, ByteBuffer.allocate(Integer.BYTES).putInt(record.partition()).array());
+            headers.add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(Long.BYTES).putLong(record.offset()).array());
+            headers.add(KafkaHeaders.DLT_ORIGINAL_TIMESTAMP, ByteBuffer.allocate(Long.BYTES).putLong(record.timestamp()).array());
+        }
+        replace(headers, KafkaHeaders.DLT_EXCEPTION_FQCN, cause.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        replace(headers, KafkaHeaders.DLT_EXCEPTION_MESSAGE,
+            String.valueOf(cause.getMessage()).getBytes(StandardCharsets.UTF_8));
+        replace(headers, ATTEMPT_HEADER, ByteBuffer.allocate(Integer.BYTES).putInt(attempt).array());
+        headers.remove(DUE_HEADER);
+        if (dueAt != null) {
+            headers.add(DUE_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(dueAt).array());
+        }
+        ProducerRecord<String, byte[]> failed = new ProducerRecord<>(topic, null,
+            record.timestamp() < 0 ? null : record.timestamp(), record.key(), record.value(), headers);
+        try {
+            kafkaTemplate.send(failed).get(publishTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Публикация в " + topic + " прервана", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new KafkaException("Не удалось опубликовать сообщение в " + topic, e);
+        }
+    }
+
+    private static void replace(Headers headers, String key, byte[] value) {
+        headers.remove(key);
+        headers.add(key, value);
+    }
+}
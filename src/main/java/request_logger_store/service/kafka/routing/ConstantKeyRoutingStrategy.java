@@ -0,0 +1,26 @@
+package request_logger_store.service.kafka.routing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import request_logger_store.Dto.EventListDto;
+
+/**
+ * Прежнее поведение: все пакеты с одним ключом попадают в одну партицию.
+ * Сохраняет полный порядок пакетов ценой использования только одной партиции.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.producer.routing", havingValue = "constant")
+public class ConstantKeyRoutingStrategy implements EventRoutingStrategy {
+
+    private static final String KEY = "new-event-topic-key";
+
+    @Override
+    public String key(EventListDto batch) {
+        return KEY;
+    }
+
+    @Override
+    public Integer partition(EventListDto batch, int partitionCount) {
+        return null;
+    }
+}
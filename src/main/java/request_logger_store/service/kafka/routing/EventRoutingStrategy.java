@@ -0,0 +1,29 @@
+package request_logger_store.service.kafka.routing;
+
+import request_logger_store.Dto.EventListDto;
+
+/**
+ * Стратегия выбора ключа и партиции для пакета событий, отправляемого в Kafka.
+ * <p>
+ * Реализация выбирается свойством {@code app.kafka.producer.routing}:
+ * <ul>
+ *     <li>{@code round-robin} — партиции по кругу ({@link RoundRobinRoutingStrategy}, по умолчанию)</li>
+ *     <li>{@code sticky} — без ключа, партицию выбирает partitioner продюсера ({@link StickyRoutingStrategy})</li>
+ *     <li>{@code constant} — единый ключ, как раньше ({@link ConstantKeyRoutingStrategy})</li>
+ * </ul>
+ */
+public interface EventRoutingStrategy {
+
+    /**
+     * @param batch Отправляемый пакет
+     * @return Ключ записи или {@code null}
+     */
+    String key(EventListDto batch);
+
+    /**
+     * @param batch          Отправляемый пакет
+     * @param partitionCount Число партиций топика
+     * @return Номер партиции или {@code null}, если партицию выбирает partitioner продюсера
+     */
+    Integer partition(EventListDto batch, int partitionCount);
+}
@@ -0,0 +1,27 @@
+package request_logger_store.service.kafka.routing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import request_logger_store.Dto.EventListDto;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Распределяет пакеты по всем партициям топика по кругу, без ключа.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.producer.routing", havingValue = "round-robin", matchIfMissing = true)
+public class RoundRobinRoutingStrategy implements EventRoutingStrategy {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public String key(EventListDto batch) {
+        return null;
+    }
+
+    @Override
+    public Integer partition(EventListDto batch, int partitionCount) {
+        return Math.floorMod(counter.getAndIncrement(), partitionCount);
+    }
+}
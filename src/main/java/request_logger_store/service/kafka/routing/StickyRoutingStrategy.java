@@ -0,0 +1,24 @@
+package request_logger_store.service.kafka.routing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import request_logger_store.Dto.EventListDto;
+
+/**
+ * Отправляет пакеты без ключа и партиции: встроенный partitioner продюсера распределяет
+ * их по партициям, «прилипая» к одной партиции на время формирования batch'а продюсера.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.producer.routing", havingValue = "sticky")
+public class StickyRoutingStrategy implements EventRoutingStrategy {
+
+    @Override
+    public String key(EventListDto batch) {
+        return null;
+    }
+
+    @Override
+    public Integer partition(EventListDto batch, int partitionCount) {
+        return null;
+    }
+}
@@ -0,0 +1,20 @@
+-- Разворачивает JSON-массивы из event.data в строки event_record.
+-- dateTime встречается в двух формах: массив [год, месяц, день, час, минута, секунда?, наносекунды?]
+-- (WRITE_DATES_AS_TIMESTAMPS по умолчанию) и ISO-строка.
+INSERT INTO event_record (event_id, position, event_time)
+SELECT e.id,
+       item.ordinality - 1,
+       CASE jsonb_typeof(item.value -> 'dateTime')
+           WHEN 'string' THEN (item.value ->> 'dateTime')::timestamp
+           ELSE make_timestamp(
+                   (item.value -> 'dateTime' ->> 0)::int,
+                   (item.value -> 'dateTime' ->> 1)::int,
+                   (item.value -> 'dateTime' ->> 2)::int,
+                   (item.value -> 'dateTime' ->> 3)::int,
+                   (item.value -> 'dateTime' ->> 4)::int,
+                   COALESCE((item.value -> 'dateTime' ->> 5)::float8, 0)
+                       + COALESCE((item.value -> 'dateTime' ->> 6)::float8, 0) / 1000000000)
+           END
+FROM event e
+         CROSS JOIN LATERAL jsonb_array_elements(e.data::jsonb) WITH ORDINALITY AS item(value, ordinality)
+WHERE jsonb_typeof(item.value -> 'dateTime') IN ('string', 'array');
@@ -0,0 +1,11 @@
+CREATE TABLE event_record
+(
+    id              BIGSERIAL PRIMARY KEY NOT NULL,
+    event_id        UUID      NOT NULL REFERENCES event (id) ON DELETE CASCADE,
+    position        INTEGER   NOT NULL,
+    event_time      TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_event_record_event_time ON event_record (event_time, id);
+
+CREATE INDEX idx_event_record_event_id ON event_record (event_id);
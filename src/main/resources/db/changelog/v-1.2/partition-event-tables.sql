@@ -0,0 +1,45 @@
+-- Переводит event и event_record на декларативное секционирование по диапазону времени.
+-- Секции создаёт и удаляет PartitionManager; существующие строки попадают в секции DEFAULT.
+-- Внешний ключ event_record -> event снимается: секции таблиц удаляются независимо по сроку хранения.
+ALTER TABLE event_record RENAME TO event_record_legacy;
+ALTER TABLE event RENAME TO event_legacy;
+ALTER SEQUENCE event_record_id_seq OWNED BY NONE;
+
+CREATE TABLE event
+(
+    id              UUID      NOT NULL,
+    data            TEXT      NOT NULL,
+    created_at      TIMESTAMP NOT NULL DEFAULT now()
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE event_default PARTITION OF event DEFAULT;
+
+CREATE TABLE event_record
+(
+    id              BIGINT    NOT NULL DEFAULT nextval('event_record_id_seq'),
+    event_id        UUID      NOT NULL,
+    position        INTEGER   NOT NULL,
+    event_time      TIMESTAMP NOT NULL
+) PARTITION BY RANGE (event_time);
+
+CREATE TABLE event_record_default PARTITION OF event_record DEFAULT;
+
+INSERT INTO event (id, data, created_at)
+SELECT e.id,
+       e.data,
+       COALESCE((SELECT min(r.event_time) FROM event_record_legacy r WHERE r.event_id = e.id), now())
+FROM event_legacy e;
+
+INSERT INTO event_record (id, event_id, position, event_time)
+SELECT r.id, r.event_id, r.position, r.event_time
+FROM event_record_legacy r;
+
+DROP TABLE event_record_legacy;
+DROP TABLE event_legacy;
+ALTER SEQUENCE event_record_id_seq OWNED BY event_record.id;
+
+ALTER TABLE event ADD PRIMARY KEY (id, created_at);
+CREATE INDEX idx_event_created_at ON event (created_at);
+
+ALTER TABLE event_record ADD PRIMARY KEY (event_time, id);
+CREATE INDEX idx_event_record_event_id ON event_record (event_id);
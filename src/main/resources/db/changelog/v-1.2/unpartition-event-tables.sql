@@ -0,0 +1,35 @@
+ALTER TABLE event_record RENAME TO event_record_partitioned;
+ALTER TABLE event RENAME TO event_partitioned;
+ALTER SEQUENCE event_record_id_seq OWNED BY NONE;
+ALTER TABLE event_partitioned DROP CONSTRAINT event_pkey;
+ALTER TABLE event_record_partitioned DROP CONSTRAINT event_record_pkey;
+DROP INDEX idx_event_record_event_id;
+
+CREATE TABLE event
+(
+    id              UUID PRIMARY KEY NOT NULL ,
+    data            TEXT   NOT NULL
+);
+
+CREATE TABLE event_record
+(
+    id              BIGINT    PRIMARY KEY NOT NULL DEFAULT nextval('event_record_id_seq'),
+    event_id        UUID      NOT NULL REFERENCES event (id) ON DELETE CASCADE,
+    position        INTEGER   NOT NULL,
+    event_time      TIMESTAMP NOT NULL
+);
+
+INSERT INTO event (id, data)
+SELECT id, data
+FROM event_partitioned;
+
+INSERT INTO event_record (id, event_id, position, event_time)
+SELECT id, event_id, position, event_time
+FROM event_record_partitioned;
+
+DROP TABLE event_record_partitioned;
+DROP TABLE event_partitioned;
+ALTER SEQUENCE event_record_id_seq OWNED BY event_record.id;
+
+CREATE INDEX idx_event_record_event_time ON event_record (event_time, id);
+CREATE INDEX idx_event_record_event_id ON event_record (event_id);
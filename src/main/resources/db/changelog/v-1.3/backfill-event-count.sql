@@ -0,0 +1,10 @@
+-- Заполняет счётчики по уже сохранённым строкам event_record.
+INSERT INTO event_count_minute (bucket, count)
+SELECT date_trunc('minute', event_time), count(*)
+FROM event_record
+GROUP BY 1;
+
+INSERT INTO event_count_hour (bucket, count)
+SELECT date_trunc('hour', event_time), count(*)
+FROM event_record
+GROUP BY 1;
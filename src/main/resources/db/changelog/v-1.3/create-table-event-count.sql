@@ -0,0 +1,13 @@
+-- Число событий (строк event_record) по интервалам event_time. Обновляются EventRollupRepository
+-- в той же транзакции, что и запись пакета.
+CREATE TABLE event_count_minute
+(
+    bucket          TIMESTAMP NOT NULL PRIMARY KEY,
+    count           BIGINT    NOT NULL
+);
+
+CREATE TABLE event_count_hour
+(
+    bucket          TIMESTAMP NOT NULL PRIMARY KEY,
+    count           BIGINT    NOT NULL
+);
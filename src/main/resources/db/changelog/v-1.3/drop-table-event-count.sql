@@ -0,0 +1,2 @@
+DROP TABLE event_count_hour;
+DROP TABLE event_count_minute;
@@ -0,0 +1,4 @@
+-- Строка пакета однозначно задаётся пакетом и позицией; event_time входит в индекс как ключ секционирования.
+-- Запись строк с ON CONFLICT DO NOTHING опирается на этот индекс, первичный ключ event (id, created_at)
+-- задаёт идемпотентность самих пакетов.
+CREATE UNIQUE INDEX uq_event_record_event_position ON event_record (event_time, event_id, position);
@@ -0,0 +1 @@
+DROP INDEX IF EXISTS uq_event_record_event_position;
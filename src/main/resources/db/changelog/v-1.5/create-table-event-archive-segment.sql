@@ -0,0 +1,12 @@
+-- Реестр сегментов холодного хранилища (ColdStore). Строка добавляется в той же транзакции, что удаляет
+-- перенесённые в сегмент строки из event и event_record; файлы без строки в реестре не читаются.
+CREATE TABLE event_archive_segment
+(
+    file            VARCHAR(255) NOT NULL PRIMARY KEY,
+    window_start    TIMESTAMP    NOT NULL,
+    window_end      TIMESTAMP    NOT NULL,
+    row_count       BIGINT       NOT NULL,
+    min_event_time  TIMESTAMP,
+    max_event_time  TIMESTAMP,
+    archived_at     TIMESTAMP    NOT NULL DEFAULT now()
+);
@@ -0,0 +1,73 @@
+package request_logger_store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Общая обвязка бенчмарков {@code @Tag("benchmark")}: PostgreSQL в Testcontainers, подключение к нему
+ * контекста Spring и отчёты в {@code target/benchmarks}.
+ * <p>
+ * Каждый класс бенчмарка запускает свой контейнер, чтобы данные одного замера не влияли на другой.
+ */
+public final class BenchmarkSupport {
+
+    private static final String POSTGRES_IMAGE = "postgres:16-alpine";
+    private static final Path REPORT_DIR = Path.of("target", "benchmarks");
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * @param settings Параметры сервера в виде {@code name=value}, передаются через {@code -c}
+     * @return Запущенный контейнер PostgreSQL
+     */
+    public static PostgreSQLContainer<?> startPostgres(String... settings) {
+        PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(POSTGRES_IMAGE);
+        if (settings.length > 0) {
+            List<String> command = new ArrayList<>(List.of("postgres"));
+            for (String setting : settings) {
+                command.add("-c");
+                command.add(setting);
+            }
+            postgres.withCommand(command.toArray(String[]::new));
+        }
+        postgres.start();
+        return postgres;
+    }
+
+    /**
+     * Подключает источник данных контекста к контейнеру; вызывается из метода {@code @DynamicPropertySource}.
+     */
+    public static void registerDatasource(DynamicPropertyRegistry registry, PostgreSQLContainer<?> postgres) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    /**
+     * Сохраняет отчёт в {@code target/benchmarks/<name>} построчно.
+     */
+    public static void writeCsv(String name, List<String> lines) throws IOException {
+        Files.write(reportFile(name), lines);
+    }
+
+    /**
+     * Сохраняет отчёт в {@code target/benchmarks/<name>} в формате JSON.
+     */
+    public static void writeJson(String name, Map<String, Object> report) throws IOException {
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile(name).toFile(), report);
+    }
+
+    private static Path reportFile(String name) throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        return REPORT_DIR.resolve(name);
+    }
+}
@@ -0,0 +1,211 @@
+package request_logger_store;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.model.Event;
+import request_logger_store.repository.writer.EventWriter;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнение режимов исполнения {@code app.execution.mode} под высокой конкурентной нагрузкой чтения:
+ * {@code platform} (пул потоков Tomcat) и {@code virtual} (виртуальный поток на запрос, семафор перед пулом
+ * Hikari).
+ * <p>
+ * Для каждого режима поднимается отдельный контекст на общей БД с {@link #SEED_BATCHES} пакетами;
+ * {@link #CONCURRENCY} клиентов непрерывно запрашивают {@code /all-events} (ответ из кэша, упирается
+ * в сериализацию) и первую страницу {@code /events} (запрос к БД на каждый вызов). После прогрева в течение
+ * {@link #MEASUREMENT} измеряются пропускная способность, p50/p99/максимум задержки и число ошибок.
+ * <p>
+ * Запуск: {@code ./mvnw test -Pbenchmark -Dtest=ExecutionModeBenchmarkTest} (нужен Docker; режим {@code virtual} —
+ * только на JDK 21+). Результаты выводятся в лог и сохраняются в {@code target/benchmarks/execution-<режим>.json}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.jpa.show-sql=false",
+    "logging.level.request_logger_store=WARN",
+    "app.data-dir=target/execution-mode",
+    "app.processor.generator.rate=0",
+    "app.archive.enabled=false"
+})
+@EmbeddedKafka(partitions = 3)
+class ExecutionModeBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionModeBenchmarkTest.class);
+
+    private static final int SEED_BATCHES = 200;
+    private static final int EVENTS_PER_BATCH = 100;
+    private static final int CONCURRENCY = 512;
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(30);
+
+    private static final PostgreSQLContainer<?> postgres = BenchmarkSupport.startPostgres();
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        BenchmarkSupport.registerDatasource(registry, postgres);
+    }
+
+    static boolean virtualThreadsSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EventWriter eventWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void platformThreads() throws Exception {
+        run("platform", port);
+    }
+
+    @Nested
+    @EnabledIf("request_logger_store.ExecutionModeBenchmarkTest#virtualThreadsSupported")
+    @TestPropertySource(properties = "app.execution.mode=virtual")
+    class Virtual {
+
+        @LocalServerPort
+        private int virtualPort;
+
+        @Test
+        void virtualThreads() throws Exception {
+            run("virtual", virtualPort);
+        }
+    }
+
+    private void run(String mode, int port) throws Exception {
+        seed();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("mode", mode);
+        report.put("concurrency", CONCURRENCY);
+        report.put("all_events", load(URI.create("http://localhost:" + port + "/all-events")));
+        report.put("events_page", load(URI.create("http://localhost:" + port + "/events?limit=100")));
+        logger.warn(">>>>>Benchmark execution mode {}", report);
+
+        BenchmarkSupport.writeJson("execution-" + mode + ".json", report);
+    }
+
+    /**
+     * Держит {@link #CONCURRENCY} запросов в полёте: прогрев, затем измерение.
+     */
+    private Map<String, Object> load(URI uri) throws Exception {
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(8);
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(clientExecutor)
+            .build();
+        try {
+            drive(client, uri, WARMUP, new ConcurrentLinkedQueue<>(), new AtomicLong());
+            ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+            AtomicLong errors = new AtomicLong();
+            long start = System.nanoTime();
+            drive(client, uri, MEASUREMENT, latencies, errors);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("requests", sorted.length);
+            result.put("errors", errors.get());
+            result.put("requests_per_sec", Math.round(sorted.length / seconds));
+            result.put("latency_p50_ms", percentile(sorted, 0.5));
+            result.put("latency_p99_ms", percentile(sorted, 0.99));
+            result.put("latency_max_ms", percentile(sorted, 1.0));
+            assertTrue(sorted.length > 0, "За время измерения не выполнено ни одного запроса " + uri);
+            return result;
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    private void drive(HttpClient client, URI uri, Duration duration, ConcurrentLinkedQueue<Long> latencies,
+                       AtomicLong errors) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+        long deadline = System.nanoTime() + duration.toNanos();
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            long sentAt = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, ex) -> {
+                if (ex == null && response.statusCode() == 200) {
+                    latencies.add(System.nanoTime() - sentAt);
+                } else {
+                    errors.incrementAndGet();
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(CONCURRENCY);
+    }
+
+    private void seed() {
+        Long existing = jdbcTemplate.queryForObject("SELECT count(*) FROM event", Long.class);
+        if (existing != null && existing >= SEED_BATCHES) {
+            return;
+        }
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        List<Event> events = new ArrayList<>(SEED_BATCHES);
+        for (int batch = 0; batch < SEED_BATCHES; batch++) {
+            EventDto[] dtos = new EventDto[EVENTS_PER_BATCH];
+            for (int i = 0; i < EVENTS_PER_BATCH; i++) {
+                dtos[i] = new EventDto(start.plusNanos((batch * EVENTS_PER_BATCH + i) * 1_000_000L));
+            }
+            events.add(Event.fromDtos(toJson(dtos), Arrays.asList(dtos)));
+        }
+        eventWriter.write(events);
+    }
+
+    private static String toJson(EventDto[] dtos) {
+        StringBuilder json = new StringBuilder("[");
+        for (EventDto dto : dtos) {
+            json.append(json.length() > 1 ? "," : "")
+                .append("{\"dateTime\":\"").append(dto.getDateTime()).append("\"}");
+        }
+        return json.append(']').toString();
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, index)]);
+    }
+}
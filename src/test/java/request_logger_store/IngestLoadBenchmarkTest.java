@@ -0,0 +1,137 @@
+package request_logger_store;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import request_logger_store.service.ProcessorEvent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сквозная нагрузка: генератор {@link ProcessorEvent} → {@code KafkaProducer} → встроенный Kafka →
+ * пакетный потребитель → PostgreSQL.
+ * <p>
+ * Профиль нагрузки задаётся свойствами {@code app.processor.generator.*} ниже. После прогрева в течение
+ * {@link #MEASUREMENT} измеряются устойчивая пропускная способность (событий, зафиксированных в БД, в секунду),
+ * p50/p99 задержки от создания события до фиксации в БД ({@code ingest.end-to-end.latency}) и занятость кучи.
+ * <p>
+ * Запуск: {@code ./mvnw test -Pbenchmark -Dtest=IngestLoadBenchmarkTest} (нужен Docker).
+ * Результат выводится в лог и сохраняется в {@code target/benchmarks/ingest-load.json}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.jpa.show-sql=false",
+    "logging.level.request_logger_store.service=WARN",
+    "logging.level.request_logger_store.repository=WARN",
+    "app.data-dir=target/ingest-load",
+    "app.processor.generator.rate=2000",
+    "app.processor.generator.burst-rate=10000",
+    "app.processor.generator.burst-period=20s",
+    "app.processor.generator.burst-duration=2s",
+    "app.processor.batch.max-count=500",
+    "app.processor.batch.linger=100ms",
+    "app.processor.batch.capacity=100000",
+    // Процентили по окну последней минуты, чтобы прогрев не попадал в результат
+    "management.metrics.distribution.percentiles[ingest.end-to-end.latency]=0.5,0.99",
+    "management.metrics.distribution.expiry[ingest.end-to-end.latency]=60s"
+})
+@EmbeddedKafka(partitions = 3)
+class IngestLoadBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestLoadBenchmarkTest.class);
+
+    private static final Duration WARMUP = Duration.ofSeconds(20);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(60);
+    private static final Duration SAMPLE_INTERVAL = Duration.ofMillis(500);
+    private static final long MB = 1024 * 1024;
+
+    private static final PostgreSQLContainer<?> postgres = BenchmarkSupport.startPostgres();
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        BenchmarkSupport.registerDatasource(registry, postgres);
+    }
+
+    @Autowired
+    private ProcessorEvent processorEvent;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    @Test
+    void sustainedIngestThroughputAndLatency() throws Exception {
+        Thread.sleep(WARMUP.toMillis());
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long generatedBefore = processorEvent.getGeneratedCount();
+        long committedBefore = committedEvents();
+        long peakHeap = 0;
+        long start = System.nanoTime();
+        long deadline = start + MEASUREMENT.toNanos();
+        while (System.nanoTime() < deadline) {
+            peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+            Thread.sleep(SAMPLE_INTERVAL.toMillis());
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        long generated = processorEvent.getGeneratedCount() - generatedBefore;
+        long committed = committedEvents() - committedBefore;
+        long backlog = processorEvent.getGeneratedCount() - committedEvents();
+        System.gc();
+        long heapAfterGc = memory.getHeapMemoryUsage().getUsed();
+
+        Timer endToEnd = meterRegistry.get("ingest.end-to-end.latency").timer();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("rate", environment.getProperty("app.processor.generator.rate"));
+        report.put("burst_rate", environment.getProperty("app.processor.generator.burst-rate"));
+        report.put("burst_period", environment.getProperty("app.processor.generator.burst-period"));
+        report.put("burst_duration", environment.getProperty("app.processor.generator.burst-duration"));
+        report.put("duration_sec", Math.round(seconds));
+        report.put("generated_events", generated);
+        report.put("committed_events", committed);
+        report.put("generated_per_sec", Math.round(generated / seconds));
+        report.put("committed_per_sec", Math.round(committed / seconds));
+        report.put("backlog_events", backlog);
+        for (ValueAtPercentile percentile : endToEnd.takeSnapshot().percentileValues()) {
+            report.put("latency_p" + Math.round(percentile.percentile() * 100) + "_ms",
+                Math.round(percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        report.put("latency_max_ms", Math.round(endToEnd.max(TimeUnit.MILLISECONDS)));
+        report.put("heap_peak_mb", peakHeap / MB);
+        report.put("heap_after_gc_mb", heapAfterGc / MB);
+        logger.info(">>>>>Benchmark ingest load {}", report);
+
+        BenchmarkSupport.writeJson("ingest-load.json", report);
+
+        assertTrue(committed > 0, "За время измерения в БД не зафиксировано ни одного события");
+    }
+
+    private long committedEvents() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM event_record", Long.class);
+    }
+}
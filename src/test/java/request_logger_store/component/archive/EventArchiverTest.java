@@ -0,0 +1,30 @@
+package request_logger_store.component.archive;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EventArchiverTest {
+
+    @Test
+    void testRequireDurableDirectory_ShouldRejectRelativePath() {
+        assertThrows(IllegalStateException.class, () -> EventArchiver.requireDurableDirectory("data"));
+    }
+
+    @Test
+    void testRequireDurableDirectory_ShouldRejectTemporaryDirectory() {
+        String tmp = Path.of(System.getProperty("java.io.tmpdir"), "archive-data").toAbsolutePath().toString();
+
+        assertThrows(IllegalStateException.class, () -> EventArchiver.requireDurableDirectory(tmp));
+    }
+
+    @Test
+    void testRequireDurableDirectory_ShouldAcceptAbsolutePath() {
+        String dataDir = Path.of("/var/lib/request-logger-store").toAbsolutePath().toString();
+
+        assertDoesNotThrow(() -> EventArchiver.requireDurableDirectory(dataDir));
+    }
+}
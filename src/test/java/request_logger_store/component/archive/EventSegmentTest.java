@@ -0,0 +1,124 @@
+package request_logger_store.component.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventSegmentTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testFindPageAfter_ShouldReturnRowsInRangeAfterCursor() throws IOException {
+        EventSegment segment = write(List.of(
+            new ArchivedRecord(null, 1L),
+            new ArchivedRecord(T0, 2L),
+            new ArchivedRecord(T0, 7L),
+            new ArchivedRecord(T0.plusSeconds(1).plusNanos(123_000), 3L),
+            new ArchivedRecord(T0.plusMinutes(5), 4L)));
+
+        assertEquals(5, segment.rows());
+        assertEquals(T0, segment.minEventTime());
+        assertEquals(T0.plusMinutes(5), segment.maxEventTime());
+        assertEquals(List.of(new ArchivedRecord(T0, 7L), new ArchivedRecord(T0.plusSeconds(1).plusNanos(123_000), 3L)),
+            segment.findPageAfter(T0, T0.plusMinutes(5), T0, 2L, 10));
+        assertEquals(List.of(new ArchivedRecord(T0, 2L)),
+            segment.findPageAfter(T0, T0.plusMinutes(5), T0, 0L, 1));
+    }
+
+    @Test
+    void testFindPageAfter_ShouldCrossBlockBoundaries() throws IOException {
+        List<ArchivedRecord> rows = new ArrayList<>();
+        for (int i = 0; i < EventSegment.BLOCK_ROWS * 3 + 10; i++) {
+            rows.add(new ArchivedRecord(T0.plusSeconds(i / 2), 1000L + (i % 2 == 0 ? i : -i)));
+        }
+        rows.sort((a, b) -> a.eventTime().equals(b.eventTime())
+            ? Long.compare(a.id(), b.id()) : a.eventTime().compareTo(b.eventTime()));
+        EventSegment segment = write(rows);
+
+        int start = EventSegment.BLOCK_ROWS - 3;
+        ArchivedRecord after = rows.get(start - 1);
+        assertEquals(rows.subList(start, start + 100),
+            segment.findPageAfter(T0, T0.plusDays(1), after.eventTime(), after.id(), 100));
+
+        List<LocalDateTime> times = new ArrayList<>();
+        segment.forEachEventTime(times::add);
+        assertEquals(rows.stream().map(ArchivedRecord::eventTime).toList(), times);
+    }
+
+    @Test
+    void testOverlaps_ShouldUseMinAndMaxEventTime() throws IOException {
+        EventSegment segment = write(List.of(new ArchivedRecord(T0, 1L), new ArchivedRecord(T0.plusHours(1), 2L)));
+
+        assertTrue(segment.overlaps(T0.minusHours(1), T0.plusSeconds(1)));
+        assertTrue(segment.overlaps(T0.plusHours(1), T0.plusHours(2)));
+        assertFalse(segment.overlaps(T0.minusHours(1), T0));
+        assertFalse(segment.overlaps(T0.plusHours(1).plusNanos(1_000), T0.plusHours(2)));
+    }
+
+    @Test
+    void testOpen_ShouldHandleSegmentWithoutEventTimes() throws IOException {
+        EventSegment segment = write(List.of(new ArchivedRecord(null, 1L), new ArchivedRecord(null, 2L)));
+
+        assertNull(segment.minEventTime());
+        assertFalse(segment.overlaps(T0.minusYears(1), T0.plusYears(1)));
+        List<LocalDateTime> times = new ArrayList<>();
+        segment.forEachEventTime(times::add);
+        assertEquals(2, times.size());
+    }
+
+    @Test
+    void testAppend_ShouldRejectRowsOutOfOrder() throws IOException {
+        try (EventSegmentWriter writer = new EventSegmentWriter(dir.resolve("out.tmp"))) {
+            writer.append(T0, 2L);
+            assertThrows(IllegalArgumentException.class, () -> writer.append(T0, 2L));
+            assertThrows(IllegalArgumentException.class, () -> writer.append(T0.minusSeconds(1), 3L));
+        }
+    }
+
+    @Test
+    void testClose_ShouldDeleteUnfinishedSegment() throws IOException {
+        Path temp = dir.resolve("out.tmp");
+        try (EventSegmentWriter writer = new EventSegmentWriter(temp)) {
+            writer.append(T0, 1L);
+        }
+
+        assertFalse(Files.exists(temp));
+    }
+
+    @Test
+    void testOpen_ShouldRejectCorruptedSegment() throws IOException {
+        Path file = write(List.of(new ArchivedRecord(T0, 1L), new ArchivedRecord(T0.plusSeconds(1), 2L))).path();
+        byte[] data = Files.readAllBytes(file);
+        data[1] ^= 0x01;
+        Files.write(file, data);
+
+        assertThrows(IOException.class, () -> EventSegment.open(file));
+    }
+
+    private EventSegment write(List<ArchivedRecord> rows) throws IOException {
+        Path target = dir.resolve("events.seg");
+        try (EventSegmentWriter writer = new EventSegmentWriter(dir.resolve("events.seg.tmp"))) {
+            for (ArchivedRecord row : rows) {
+                writer.append(row.eventTime(), row.id());
+            }
+            writer.finish(target);
+        }
+        return EventSegment.open(target);
+    }
+}
@@ -0,0 +1,151 @@
+package request_logger_store.component.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import request_logger_store.component.batch.BatchAccumulator.FlushReason;
+import request_logger_store.component.batch.BatchAccumulator.OverflowPolicy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchAccumulatorTest {
+
+    private final BlockingQueue<List<Integer>> batches = new LinkedBlockingQueue<>();
+    private BatchAccumulator<Integer> accumulator;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        accumulator.close();
+    }
+
+    @Test
+    void testFlush_ShouldTriggerOnCount() throws Exception {
+        accumulator = accumulator(3, 1_000, Duration.ofHours(1), 10, OverflowPolicy.BLOCK, batches::add);
+
+        for (int i = 0; i < 3; i++) {
+            accumulator.offer(i);
+        }
+
+        assertEquals(List.of(0, 1, 2), batches.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, accumulator.getFlushCount(FlushReason.COUNT));
+    }
+
+    @Test
+    void testFlush_ShouldTriggerOnBytes() throws Exception {
+        accumulator = accumulator(100, 25, Duration.ofHours(1), 200, OverflowPolicy.BLOCK, batches::add);
+
+        for (int i = 0; i < 3; i++) {
+            accumulator.offer(i);
+        }
+
+        assertEquals(List.of(0, 1), batches.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, accumulator.getFlushCount(FlushReason.BYTES));
+        assertEquals(1, accumulator.getDepth());
+    }
+
+    @Test
+    void testFlush_ShouldTriggerOnLinger() throws Exception {
+        accumulator = accumulator(100, 1_000, Duration.ofMillis(50), 200, OverflowPolicy.BLOCK, batches::add);
+
+        accumulator.offer(42);
+
+        assertEquals(List.of(42), batches.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, accumulator.getFlushCount(FlushReason.LINGER));
+    }
+
+    @Test
+    void testClose_ShouldFlushRemaining() throws Exception {
+        accumulator = accumulator(100, 1_000, Duration.ofHours(1), 200, OverflowPolicy.BLOCK, batches::add);
+        accumulator.offer(1);
+
+        accumulator.close();
+
+        assertEquals(List.of(1), batches.poll());
+        assertEquals(1, accumulator.getFlushCount(FlushReason.CLOSE));
+        assertFalse(accumulator.offer(2));
+    }
+
+    @Test
+    void testOverflow_ShouldRejectWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        accumulator = accumulator(1, 1_000, Duration.ofHours(1), 1, OverflowPolicy.REJECT, blockingHandler(release));
+
+        assertTrue(accumulator.offer(1));
+        awaitDepth(0);
+        assertTrue(accumulator.offer(2));
+        assertFalse(accumulator.offer(3));
+
+        assertEquals(1, accumulator.getRejectedCount());
+        release.countDown();
+    }
+
+    @Test
+    void testOverflow_ShouldGiveUpTimedOfferWhenStillFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        accumulator = accumulator(1, 1_000, Duration.ofHours(1), 1, OverflowPolicy.BLOCK, blockingHandler(release));
+
+        assertTrue(accumulator.offer(1));
+        awaitDepth(0);
+        assertTrue(accumulator.offer(2));
+        long start = System.nanoTime();
+        assertFalse(accumulator.offer(3, Duration.ofMillis(50)));
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(0, accumulator.getRejectedCount());
+        release.countDown();
+        assertTrue(accumulator.offer(3, Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void testOverflow_ShouldDropOldestWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        accumulator = accumulator(2, 1_000, Duration.ofHours(1), 2, OverflowPolicy.DROP_OLDEST, blockingHandler(release));
+
+        accumulator.offer(1);
+        accumulator.offer(2);
+        awaitDepth(0);
+        accumulator.offer(3);
+        accumulator.offer(4);
+        accumulator.offer(5);
+
+        assertEquals(1, accumulator.getDroppedCount());
+        release.countDown();
+        assertEquals(List.of(1, 2), batches.poll(5, TimeUnit.SECONDS));
+        assertEquals(List.of(4, 5), batches.poll(5, TimeUnit.SECONDS));
+        assertNull(batches.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    private BatchAccumulator<Integer> accumulator(
+        int maxCount, long maxBytes, Duration linger, int capacity, OverflowPolicy policy, Consumer<List<Integer>> handler) {
+        return new BatchAccumulator<>("test", maxCount, maxBytes, linger, capacity, policy, item -> 10, handler);
+    }
+
+    private Consumer<List<Integer>> blockingHandler(CountDownLatch release) {
+        return batch -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batches.add(batch);
+        };
+    }
+
+    private void awaitDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (accumulator.getDepth() != depth && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(depth, accumulator.getDepth());
+    }
+}
@@ -0,0 +1,289 @@
+package request_logger_store.component.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.component.archive.ColdStore;
+import request_logger_store.config.mapper.Mapper;
+import request_logger_store.model.Event;
+import request_logger_store.repository.EventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class FlatEventCacheTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private ColdStore coldStore;
+
+    @Mock
+    private Mapper mapper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private FlatEventCache cache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(mapper.objectMapper()).thenReturn(objectMapper);
+        cache = cache(1000);
+    }
+
+    @Test
+    void testView_ShouldAppendCommittedEventsWithoutReadingDatabase() throws Exception {
+        when(eventRepository.streamAllIdAndData()).thenAnswer(invocation -> Stream.of(row(UUID.randomUUID(), T0)));
+        assertEquals(List.of(T0), dateTimes(cache.view()));
+        FlatEventCache.Tag before = cache.currentTag();
+
+        cache.append(List.of(event(UUID.randomUUID(), T0.plusMinutes(1), T0.plusMinutes(2))));
+        FlatEventCache.View view = cache.view();
+
+        assertEquals(List.of(T0, T0.plusMinutes(1), T0.plusMinutes(2)), dateTimes(view));
+        assertNotEquals(before.etag(), view.tag().etag());
+        assertEquals(cache.currentTag(), view.tag());
+        verify(eventRepository, times(1)).streamAllIdAndData();
+    }
+
+    @Test
+    void testView_ShouldCoalesceConcurrentLoadsAndSkipEventsAlreadyRead() throws Exception {
+        UUID alreadyRead = UUID.randomUUID();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(eventRepository.streamAllIdAndData()).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Stream.of(row(alreadyRead, T0));
+        });
+
+        CompletableFuture<FlatEventCache.View> first = CompletableFuture.supplyAsync(cache::view);
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<FlatEventCache.View> second = CompletableFuture.supplyAsync(cache::view);
+        cache.append(List.of(event(alreadyRead, T0)));
+        cache.append(List.of(event(UUID.randomUUID(), T0.plusMinutes(1))));
+        release.countDown();
+
+        assertEquals(List.of(T0, T0.plusMinutes(1)), dateTimes(first.get(5, TimeUnit.SECONDS)));
+        assertEquals(List.of(T0, T0.plusMinutes(1)), dateTimes(second.get(5, TimeUnit.SECONDS)));
+        verify(eventRepository, times(1)).streamAllIdAndData();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testView_ShouldListArchivedEventsBeforeDatabaseRows() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<LocalDateTime> action = invocation.getArgument(0);
+            action.accept(T0.minusDays(10));
+            return null;
+        }).when(coldStore).forEachEventTime(any(Consumer.class));
+        when(eventRepository.streamAllIdAndData()).thenAnswer(invocation -> Stream.of(row(UUID.randomUUID(), T0)));
+
+        assertEquals(List.of(T0.minusDays(10), T0), dateTimes(cache.view()));
+    }
+
+    @Test
+    void testView_ShouldNotKeepListLargerThanLimit() throws Exception {
+        cache = cache(1);
+        when(eventRepository.streamAllIdAndData()).thenAnswer(invocation -> Stream.of(row(UUID.randomUUID(), T0, T0)));
+
+        assertNull(cache.view());
+        assertNull(cache.view());
+
+        verify(eventRepository, times(2)).streamAllIdAndData();
+    }
+
+    @Test
+    void testView_ShouldStopReadingDatabaseOnceLimitExceeded() throws Exception {
+        cache = cache(1);
+        AtomicInteger read = new AtomicInteger();
+        List<EventRepository.IdAndData> rows = List.of(
+            row(UUID.randomUUID(), T0), row(UUID.randomUUID(), T0), row(UUID.randomUUID(), T0));
+        when(eventRepository.streamAllIdAndData())
+            .thenAnswer(invocation -> rows.stream().peek(row -> read.incrementAndGet()));
+
+        assertNull(cache.view());
+
+        assertEquals(2, read.get());
+    }
+
+    @Test
+    void testView_ShouldNotReadDatabaseWhenArchiveExceedsLimit() {
+        cache = cache(1);
+        when(coldStore.rows()).thenReturn(2L);
+
+        assertNull(cache.view());
+
+        verify(eventRepository, never()).streamAllIdAndData();
+    }
+
+    @Test
+    void testInvalidate_ShouldChangeTagAndReloadList() throws Exception {
+        when(eventRepository.streamAllIdAndData()).thenAnswer(invocation -> Stream.of(row(UUID.randomUUID(), T0)));
+        cache.view();
+        FlatEventCache.Tag before = cache.currentTag();
+
+        cache.invalidate();
+        cache.view();
+
+        assertNotEquals(before.etag(), cache.currentTag().etag());
+        verify(eventRepository, times(2)).streamAllIdAndData();
+    }
+
+    @Test
+    void testCurrentTag_ShouldChangeWhenDatabaseChangedElsewhere() throws Exception {
+        cache = cache(1000, Duration.ZERO);
+        when(eventRepository.streamAllIdAndData()).thenAnswer(invocation -> Stream.of(row(UUID.randomUUID(), T0)));
+        when(eventRepository.findState()).thenReturn(state(1, T0));
+        cache.view();
+        FlatEventCache.Tag before = cache.currentTag();
+        assertEquals(before, cache.currentTag());
+
+        when(eventRepository.findState()).thenReturn(state(2, T0.plusMinutes(1)));
+
+        assertNotEquals(before.etag(), cache.currentTag().etag());
+        verify(coldStore).refresh();
+    }
+
+    @Test
+    void testView_ShouldChangeTagWhenReloadedRowsDiffer() throws Exception {
+        cache = cache(1000, Duration.ZERO);
+        EventRepository.IdAndData first = row(UUID.randomUUID(), T0);
+        when(eventRepository.streamAllIdAndData()).thenAnswer(invocation -> Stream.of(first));
+        FlatEventCache.Tag before = cache.view().tag();
+        assertEquals(before, cache.view().tag());
+
+        EventRepository.IdAndData second = row(UUID.randomUUID(), T0.plusMinutes(1));
+        when(eventRepository.streamAllIdAndData()).thenAnswer(invocation -> Stream.of(first, second));
+        FlatEventCache.View view = cache.view();
+
+        assertEquals(List.of(T0, T0.plusMinutes(1)), dateTimes(view));
+        assertNotEquals(before.etag(), view.tag().etag());
+    }
+
+    @Test
+    void testCurrentTag_ShouldKeepTagWhenOnlyLocalCommitsChangedDatabase() throws Exception {
+        cache = cache(1000, Duration.ZERO);
+        when(eventRepository.streamAllIdAndData()).thenAnswer(invocation -> Stream.of(row(UUID.randomUUID(), T0)));
+        cache.view();
+        Event committed = event(UUID.randomUUID(), T0.plusMinutes(1));
+        committed.setCreatedAt(T0.plusMinutes(1));
+        cache.append(List.of(committed));
+        when(eventRepository.findState()).thenReturn(state(2, T0.plusMinutes(1)));
+
+        FlatEventCache.Tag afterCommit = cache.currentTag();
+
+        assertEquals(afterCommit, cache.currentTag());
+        verify(coldStore, never()).refresh();
+    }
+
+    @Test
+    void testAppend_ShouldListEventsWithoutTimeLikeFullLoad() throws Exception {
+        String data = "[{\"dateTime\":\"2024-01-01T10:00:00\"},{\"dateTime\":null},null]";
+        when(eventRepository.streamAllIdAndData()).thenAnswer(invocation -> Stream.of());
+        cache.view();
+        Event committed = Event.fromDtos(data, Arrays.asList(new EventDto(T0), new EventDto(null), null));
+        committed.setId(UUID.randomUUID());
+
+        cache.append(List.of(committed));
+        List<EventDto> appended = cache.view().events();
+        cache.invalidate();
+        when(eventRepository.streamAllIdAndData()).thenAnswer(invocation -> Stream.of(row(committed.getId(), data)));
+        List<EventDto> reloaded = cache.view().events();
+
+        assertEquals(3, appended.size());
+        assertEquals(reloaded.size(), appended.size());
+        assertEquals(T0, appended.get(0).getDateTime());
+        assertNull(appended.get(1).getDateTime());
+        assertNull(appended.get(2));
+    }
+
+    private FlatEventCache cache(int maxEvents) {
+        return cache(maxEvents, Duration.ofMinutes(5));
+    }
+
+    private FlatEventCache cache(int maxEvents, Duration maxAge) {
+        return new FlatEventCache(eventRepository, coldStore, mapper, transactionManager, maxEvents,
+            Duration.ofMinutes(10), maxAge);
+    }
+
+    private static List<LocalDateTime> dateTimes(FlatEventCache.View view) {
+        return view.events().stream().map(EventDto::getDateTime).toList();
+    }
+
+    private Event event(UUID id, LocalDateTime... times) throws Exception {
+        List<EventDto> dtos = Arrays.stream(times).map(EventDto::new).toList();
+        Event event = Event.fromDtos(objectMapper.writeValueAsString(dtos), dtos);
+        event.setId(id);
+        return event;
+    }
+
+    private EventRepository.IdAndData row(UUID id, LocalDateTime... times) throws Exception {
+        String data = objectMapper.writeValueAsString(Arrays.stream(times).map(EventDto::new).toList());
+        return row(id, data, times.length == 0 ? null : times[times.length - 1]);
+    }
+
+    private static EventRepository.IdAndData row(UUID id, String data) {
+        return row(id, data, T0);
+    }
+
+    private static EventRepository.IdAndData row(UUID id, String data, LocalDateTime createdAt) {
+        return new EventRepository.IdAndData() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+
+            @Override
+            public String getData() {
+                return data;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return createdAt;
+            }
+        };
+    }
+
+    private static EventRepository.State state(long total, LocalDateTime lastCreatedAt) {
+        return new EventRepository.State() {
+            @Override
+            public long getTotal() {
+                return total;
+            }
+
+            @Override
+            public LocalDateTime getLastCreatedAt() {
+                return lastCreatedAt;
+            }
+        };
+    }
+}
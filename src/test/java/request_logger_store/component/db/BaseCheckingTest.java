@@ -1,49 +1,76 @@
 package request_logger_store.component.db;
 
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import request_logger_store.config.DatabaseHealthConfig;
 
-import request_logger_store.service.kafka.impl.KafkaPauseResumeService;
+import java.time.Duration;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 class BaseCheckingTest {
 
     @Mock
-    private DatabaseConnectionService connectionService;
+    private DatabaseHealthMonitor healthMonitor;
 
     @Mock
-    private KafkaPauseResumeService pauseService;
+    private Runnable save;
 
-    @Mock
-    private DatabaseWatchdog watchdog;
+    private CircuitBreaker circuitBreaker;
 
-    @InjectMocks
     private BaseChecking baseChecking;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        circuitBreaker = CircuitBreaker.ofDefaults("test");
+        baseChecking = new BaseChecking(healthMonitor, circuitBreaker);
     }
 
     @Test
-    void testChecking_ShouldPauseConsumer_WhenDbUnavailable() {
-        when(connectionService.isDatabaseAvailable()).thenReturn(false);
-
+    void testChecking_ShouldReportFailureToMonitor() {
         baseChecking.checking();
 
-        verify(pauseService, times(1)).pause();
-        verify(watchdog, times(1)).checkAndResumeIfPossible();
+        verify(healthMonitor, times(1)).reportFailure();
     }
 
     @Test
-    void testChecking_ShouldNotPause_WhenDbAvailable() {
-        when(connectionService.isDatabaseAvailable()).thenReturn(true);
+    void testProtect_ShouldRunSave_WhenCircuitClosed() {
+        baseChecking.protect(save).run();
 
-        baseChecking.checking();
+        verify(save, times(1)).run();
+    }
+
+    @Test
+    void testProtect_ShouldRejectSave_WhenCircuitOpen() {
+        circuitBreaker.transitionToOpenState();
+
+        assertThrows(CallNotPermittedException.class, () -> baseChecking.protect(save).run());
+        verifyNoInteractions(save);
+    }
+
+    @Test
+    void testProtect_ShouldOpenCircuitOnlyOnOutage() {
+        circuitBreaker = new DatabaseHealthConfig().databaseCircuitBreaker(2, 2, 3,
+            CircuitBreakerConfig.SlidingWindowType.COUNT_BASED, Duration.ofSeconds(10), 3);
+        baseChecking = new BaseChecking(healthMonitor, circuitBreaker);
+        doThrow(new DataIntegrityViolationException("null value in column \"event_time\"")).when(save).run();
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(DataIntegrityViolationException.class, () -> baseChecking.protect(save).run());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
 
-        verifyNoInteractions(pauseService);
-        verifyNoInteractions(watchdog);
+        doThrow(new DataAccessResourceFailureException("connection refused")).when(save).run();
+        assertThrows(DataAccessResourceFailureException.class, () -> baseChecking.protect(save).run());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package request_logger_store.component.db;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class BoundedDataSourceTest {
+
+    @Mock
+    private DataSource pool;
+
+    @Mock
+    private Connection connection;
+
+    private BoundedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(pool.getConnection()).thenReturn(connection);
+        dataSource = new BoundedDataSource(pool, 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    void testGetConnection_ShouldWaitForPermitBeyondLimit() throws SQLException {
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        verify(pool, times(2)).getConnection();
+
+        first.close();
+        first.close();
+
+        dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    void testGetConnection_ShouldReleasePermitWhenPoolFails() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLException("pool timeout")).thenReturn(connection);
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+
+        dataSource.getConnection();
+        dataSource.getConnection();
+    }
+
+    @Test
+    void testGetConnection_ShouldDelegateToTargetConnection() throws SQLException {
+        Connection bounded = dataSource.getConnection();
+
+        bounded.setAutoCommit(false);
+
+        verify(connection).setAutoCommit(false);
+        assertSame(connection, ((ConnectionProxy) bounded).getTargetConnection());
+    }
+}
@@ -8,9 +8,12 @@ import org.mockito.MockitoAnnotations;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class DatabaseConnectionServiceTest {
@@ -27,8 +30,8 @@ class DatabaseConnectionServiceTest {
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
         when(dataSource.getConnection()).thenReturn(connection);
-        when(connection.isClosed()).thenReturn(false);
-        service = new DatabaseConnectionService(dataSource);
+        when(connection.isValid(1)).thenReturn(true);
+        service = new DatabaseConnectionService(dataSource, Duration.ofSeconds(1));
     }
 
     @Test
@@ -36,10 +39,28 @@ class DatabaseConnectionServiceTest {
         assertTrue(service.isDatabaseAvailable());
     }
 
+    @Test
+    void testIsDatabaseAvailable_ShouldReuseProbeConnection() throws SQLException {
+        service.isDatabaseAvailable();
+        service.isDatabaseAvailable();
+
+        verify(dataSource, times(1)).getConnection();
+    }
+
+    @Test
+    void testIsDatabaseAvailable_ShouldReconnect_WhenConnectionBroken() throws SQLException {
+        service.isDatabaseAvailable();
+        when(connection.isValid(1)).thenReturn(false, true);
+
+        assertTrue(service.isDatabaseAvailable());
+        verify(connection, times(1)).close();
+        verify(dataSource, times(2)).getConnection();
+    }
+
     @Test
     void testIsDatabaseAvailable_ReturnsFalse_WhenSQLException() throws SQLException {
         when(dataSource.getConnection()).thenThrow(new SQLException("Connection failed"));
 
         assertFalse(service.isDatabaseAvailable());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,113 @@
+package request_logger_store.component.db;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import request_logger_store.service.kafka.KafkaControlService;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class DatabaseHealthMonitorTest {
+
+    @Mock
+    private DatabaseConnectionService connectionService;
+
+    @Mock
+    private KafkaControlService kafkaControlService;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @Captor
+    private ArgumentCaptor<Runnable> probeCaptor;
+
+    @Captor
+    private ArgumentCaptor<Long> delayCaptor;
+
+    private CircuitBreaker circuitBreaker;
+
+    private DatabaseHealthMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        circuitBreaker = CircuitBreaker.ofDefaults("test");
+        monitor = new DatabaseHealthMonitor(connectionService, kafkaControlService, circuitBreaker, scheduler,
+            Duration.ofSeconds(1), Duration.ofSeconds(4));
+    }
+
+    @Test
+    void testReportFailure_ShouldStayClosed_WhenProbeSucceeds() {
+        when(connectionService.isDatabaseAvailable()).thenReturn(true);
+
+        monitor.reportFailure();
+        runScheduledProbe(1);
+
+        assertEquals(DatabaseHealthMonitor.State.CLOSED, monitor.getState());
+        verify(kafkaControlService, never()).pause();
+    }
+
+    @Test
+    void testReportFailure_ShouldStartSingleProbeChain() {
+        monitor.reportFailure();
+        monitor.reportFailure();
+        monitor.reportFailure();
+
+        verify(scheduler, times(1)).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+        assertEquals(DatabaseHealthMonitor.State.HALF_OPEN, monitor.getState());
+    }
+
+    @Test
+    void testProbe_ShouldOpenAndBackOff_WhileDatabaseUnavailable() {
+        when(connectionService.isDatabaseAvailable()).thenReturn(false);
+
+        monitor.reportFailure();
+        for (int i = 1; i <= 4; i++) {
+            runScheduledProbe(i);
+        }
+
+        assertEquals(DatabaseHealthMonitor.State.OPEN, monitor.getState());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        verify(kafkaControlService, atLeastOnce()).pause();
+        verify(scheduler, times(5)).schedule(any(Runnable.class), delayCaptor.capture(), eq(TimeUnit.MILLISECONDS));
+        // 0, затем 1s, 2s, 4s, 4s с разбросом ±50%
+        long[] expected = {0, 1000, 2000, 4000, 4000};
+        for (int i = 0; i < expected.length; i++) {
+            long delay = delayCaptor.getAllValues().get(i);
+            assertTrue(delay >= expected[i] / 2 && delay <= expected[i] * 3 / 2, "delay " + i + ": " + delay);
+        }
+    }
+
+    @Test
+    void testProbe_ShouldCloseAndResume_WhenDatabaseRecovers() {
+        when(connectionService.isDatabaseAvailable()).thenReturn(false, true);
+        when(kafkaControlService.isPaused()).thenReturn(true);
+
+        monitor.reportFailure();
+        runScheduledProbe(1);
+        runScheduledProbe(2);
+
+        assertEquals(DatabaseHealthMonitor.State.CLOSED, monitor.getState());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        verify(kafkaControlService).resume();
+    }
+
+    @Test
+    void testCircuitBreakerOpen_ShouldTriggerProbe() {
+        circuitBreaker.transitionToOpenState();
+
+        verify(scheduler, times(1)).schedule(any(Runnable.class), eq(0L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    private void runScheduledProbe(int invocation) {
+        verify(scheduler, times(invocation)).schedule(probeCaptor.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        probeCaptor.getValue().run();
+    }
+}
@@ -0,0 +1,45 @@
+package request_logger_store.component.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PartitionManagerTest {
+
+    @Test
+    void testAlignToInterval_ShouldFloorToDay() {
+        LocalDateTime aligned = PartitionManager.alignToInterval(LocalDateTime.of(2024, 3, 5, 17, 42, 10), Duration.ofDays(1));
+
+        assertEquals(LocalDateTime.of(2024, 3, 5, 0, 0), aligned);
+    }
+
+    @Test
+    void testAlignToInterval_ShouldFloorToSubDayInterval() {
+        LocalDateTime aligned = PartitionManager.alignToInterval(LocalDateTime.of(2024, 3, 5, 17, 42, 10), Duration.ofHours(6));
+
+        assertEquals(LocalDateTime.of(2024, 3, 5, 12, 0), aligned);
+    }
+
+    @Test
+    void testPartitionName_ShouldUseLowerBound() {
+        assertEquals("event_record_p20240305_1200",
+            PartitionManager.partitionName("event_record", LocalDateTime.of(2024, 3, 5, 12, 0)));
+    }
+
+    @Test
+    void testParseUpperBound_ShouldReadRangeBound() {
+        LocalDateTime upper = PartitionManager.parseUpperBound(
+            "FOR VALUES FROM ('2024-03-05 00:00:00') TO ('2024-03-06 00:00:00')");
+
+        assertEquals(LocalDateTime.of(2024, 3, 6, 0, 0), upper);
+    }
+
+    @Test
+    void testParseUpperBound_ShouldIgnoreDefaultPartition() {
+        assertNull(PartitionManager.parseUpperBound("DEFAULT"));
+    }
+}
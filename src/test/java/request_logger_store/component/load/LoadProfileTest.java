@@ -0,0 +1,41 @@
+package request_logger_store.component.load;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoadProfileTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    @Test
+    void testEventsDue_ShouldFollowConstantRate() {
+        LoadProfile profile = LoadProfile.constant(1);
+
+        assertEquals(0, profile.eventsDue(0));
+        assertEquals(0, profile.eventsDue(SECOND - 1));
+        assertEquals(1, profile.eventsDue(SECOND));
+        assertEquals(90, profile.eventsDue(90 * SECOND));
+    }
+
+    @Test
+    void testEventsDue_ShouldApplyBurstAtStartOfEachPeriod() {
+        LoadProfile profile = new LoadProfile(100, 1_000, Duration.ofSeconds(10), Duration.ofSeconds(2));
+
+        assertEquals(1_000, profile.eventsDue(SECOND));
+        assertEquals(2_000, profile.eventsDue(2 * SECOND));
+        assertEquals(2_800, profile.eventsDue(10 * SECOND));
+        assertEquals(3_800, profile.eventsDue(11 * SECOND));
+        assertEquals(5_100, profile.eventsDue(15 * SECOND));
+    }
+
+    @Test
+    void testConstructor_ShouldRejectBurstLongerThanPeriod() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new LoadProfile(1, 10, Duration.ofSeconds(1), Duration.ofSeconds(2)));
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.constant(-1));
+    }
+}
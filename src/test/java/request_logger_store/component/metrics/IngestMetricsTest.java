@@ -0,0 +1,66 @@
+package request_logger_store.component.metrics;
+
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.model.Event;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final IngestMetrics metrics = new IngestMetrics(registry);
+
+    @Test
+    void testRecordPersisted_ShouldMeasureEndToEndLatencyPerEvent() {
+        LocalDateTime now = LocalDateTime.now();
+        Event event = Event.fromDtos("[]", List.of(
+            new EventDto(now.minusSeconds(10)), new EventDto(now.minusSeconds(20))));
+
+        metrics.recordPersisted(System.nanoTime(), List.of(event));
+
+        Timer endToEnd = registry.get("ingest.end-to-end.latency").timer();
+        assertEquals(2, endToEnd.count());
+        assertTrue(endToEnd.max(TimeUnit.SECONDS) >= 20);
+        assertEquals(1, registry.get("ingest.consumer.records").tag("outcome", "saved").counter().count());
+        assertEquals(1, registry.get("ingest.consumer.persist").timer().count());
+    }
+
+    @Test
+    void testBindRetry_ShouldCountRetryAttempts() {
+        Retry retry = metrics.bindRetry(Retry.of("kafkaProducer", RetryConfig.custom()
+            .maxAttempts(3)
+            .waitDuration(Duration.ofMillis(1))
+            .build()));
+        AtomicInteger calls = new AtomicInteger();
+
+        Retry.decorateRunnable(retry, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IllegalStateException("broker unavailable");
+            }
+        }).run();
+
+        assertEquals(2, registry.get("ingest.retry.attempts").tag("name", "kafkaProducer").counter().count());
+    }
+
+    @Test
+    void testRecordSend_ShouldTagOutcome() {
+        metrics.recordSend(System.nanoTime(), true);
+        metrics.recordSend(System.nanoTime(), false);
+        metrics.recordSend(System.nanoTime(), false);
+
+        assertEquals(1, registry.get("ingest.producer.send").tag("outcome", "success").timer().count());
+        assertEquals(2, registry.get("ingest.producer.send").tag("outcome", "failure").timer().count());
+    }
+}
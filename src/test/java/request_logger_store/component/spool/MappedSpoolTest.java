@@ -0,0 +1,124 @@
+package request_logger_store.component.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testPeekAndAdvance_ShouldReturnEntriesInOrder() throws IOException {
+        try (MappedSpool spool = new MappedSpool(directory, 1024)) {
+            spool.append(bytes("first"));
+            spool.append(bytes("second"));
+
+            assertEquals(2, spool.size());
+            assertEquals("first", text(spool.peek()));
+            assertEquals("first", text(spool.peek()));
+            spool.advance();
+            assertEquals("second", text(spool.peek()));
+            spool.advance();
+
+            assertTrue(spool.isEmpty());
+            assertNull(spool.peek());
+        }
+    }
+
+    @Test
+    void testAppend_ShouldRollOverAndDeleteReadSegments() throws IOException {
+        try (MappedSpool spool = new MappedSpool(directory, 64)) {
+            for (int i = 0; i < 10; i++) {
+                spool.append(bytes("entry-" + i));
+            }
+            assertTrue(segmentCount() > 1);
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals("entry-" + i, text(spool.peek()));
+                spool.advance();
+            }
+
+            assertTrue(spool.isEmpty());
+            assertEquals(1, segmentCount());
+        }
+    }
+
+    @Test
+    void testReopen_ShouldResumeFromCursor() throws IOException {
+        try (MappedSpool spool = new MappedSpool(directory, 64)) {
+            for (int i = 0; i < 5; i++) {
+                spool.append(bytes("entry-" + i));
+            }
+            spool.advance();
+            spool.advance();
+        }
+
+        try (MappedSpool spool = new MappedSpool(directory, 64)) {
+            assertEquals(3, spool.size());
+            assertEquals("entry-2", text(spool.peek()));
+            spool.append(bytes("entry-5"));
+            for (int i = 2; i <= 5; i++) {
+                assertEquals("entry-" + i, text(spool.peek()));
+                spool.advance();
+            }
+            assertTrue(spool.isEmpty());
+        }
+    }
+
+    @Test
+    void testReopen_ShouldDropTornTail() throws IOException {
+        try (MappedSpool spool = new MappedSpool(directory, 1024)) {
+            spool.append(bytes("complete"));
+        }
+        // Имитация записи, оборванной до записи данных: заголовок есть, CRC не совпадает
+        Path segment = directory.resolve(String.format("segment-%020d.spool", 0));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).putInt(5).putInt(42).flip(), 16);
+        }
+
+        try (MappedSpool spool = new MappedSpool(directory, 1024)) {
+            assertEquals(1, spool.size());
+            spool.append(bytes("after"));
+            assertEquals("complete", text(spool.peek()));
+            spool.advance();
+            assertEquals("after", text(spool.peek()));
+        }
+    }
+
+    @Test
+    void testAppend_ShouldRejectEntryLargerThanSegment() throws IOException {
+        try (MappedSpool spool = new MappedSpool(directory, 64)) {
+            assertThrows(IOException.class, () -> spool.append(new byte[64]));
+            assertTrue(spool.isEmpty());
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".spool")).count();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,34 @@
+package request_logger_store.component.startup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StartupReportTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final StartupReport report = new StartupReport(registry, 1_000, now::get);
+
+    @Test
+    void testMark_ShouldKeepFirstTimeOfEachPhase() {
+        now.set(3_500);
+        report.mark(StartupReport.Phase.CONTEXT_READY);
+        now.set(4_000);
+        report.mark(StartupReport.Phase.FIRST_COMMIT);
+        now.set(9_000);
+        report.mark(StartupReport.Phase.FIRST_COMMIT);
+
+        assertEquals(Map.of("context-ready", 2_500L, "first-commit", 3_000L), report.phases());
+        assertEquals(3.0, registry.get("app.startup.time").tag("phase", "first-commit").timeGauge()
+            .value(TimeUnit.SECONDS));
+        assertTrue(Double.isNaN(registry.get("app.startup.time").tag("phase", "warmed-up").timeGauge()
+            .value(TimeUnit.SECONDS)));
+    }
+}
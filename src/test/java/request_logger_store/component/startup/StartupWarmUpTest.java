@@ -0,0 +1,105 @@
+package request_logger_store.component.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import request_logger_store.config.mapper.Mapper;
+import request_logger_store.service.kafka.codec.BinaryEventBatchCodec;
+import request_logger_store.service.kafka.codec.JsonEventBatchCodec;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class StartupWarmUpTest {
+
+    @Mock
+    private KafkaListenerEndpointRegistry registry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @Mock
+    private Mapper mapper;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Statement statement;
+
+    @Mock
+    private ApplicationReadyEvent event;
+
+    private StartupReport report;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        report = new StartupReport(new SimpleMeterRegistry());
+        when(registry.getListenerContainer(StartupWarmUp.LISTENER_ID)).thenReturn(container);
+        when(mapper.objectMapper()).thenReturn(new ObjectMapper().registerModule(new JavaTimeModule()));
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+    }
+
+    @Test
+    void testOnApplicationReady_ShouldPrimePoolBeforeStartingListener() throws SQLException {
+        warmUp(true, 3).onApplicationReady(event);
+
+        InOrder inOrder = inOrder(dataSource, connection, container);
+        inOrder.verify(dataSource, times(3)).getConnection();
+        inOrder.verify(connection, times(3)).close();
+        inOrder.verify(container).start();
+        verify(statement, times(3)).execute("SELECT 1");
+        assertEquals(List.of("context-ready", "warmed-up", "listener-started"), List.copyOf(report.phases().keySet()));
+    }
+
+    @Test
+    void testOnApplicationReady_ShouldStartListenerWhenDatabaseIsDown() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection).thenThrow(new SQLException("connection refused"));
+
+        warmUp(true, 3).onApplicationReady(event);
+
+        verify(connection).close();
+        verify(container).start();
+    }
+
+    @Test
+    void testOnApplicationReady_ShouldOnlyStartListenerWhenWarmUpDisabled() throws SQLException {
+        warmUp(false, 3).onApplicationReady(event);
+
+        verify(dataSource, never()).getConnection();
+        verify(container).start();
+    }
+
+    @Test
+    void testOnApplicationReady_ShouldFailWithoutListenerContainer() {
+        when(registry.getListenerContainer(StartupWarmUp.LISTENER_ID)).thenReturn(null);
+
+        assertThrows(IllegalStateException.class, () -> warmUp(false, 0).onApplicationReady(event));
+    }
+
+    private StartupWarmUp warmUp(boolean enabled, int connections) {
+        return new StartupWarmUp(registry, List.of(new JsonEventBatchCodec(), new BinaryEventBatchCodec()), mapper,
+            dataSource, report, enabled, 10, connections, Duration.ofSeconds(10), false);
+    }
+}
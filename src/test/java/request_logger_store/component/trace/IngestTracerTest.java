@@ -0,0 +1,79 @@
+package request_logger_store.component.trace;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestTracerTest {
+
+    private final InMemorySpanExporter spans = new InMemorySpanExporter(10);
+
+    @Test
+    void testTraceparent_ShouldRoundTripAndRejectMalformedValues() {
+        TraceContext trace = TraceContext.newRoot(true);
+
+        assertEquals(trace, TraceContext.parse(trace.traceparent()));
+        assertFalse(TraceContext.parse(TraceContext.newRoot(false).traceparent()).sampled());
+        assertNull(TraceContext.parse("00-xyz-0000000000000001-01"));
+        assertNull(TraceContext.parse(trace.traceparent().replace('-', '_')));
+        assertNull(TraceContext.parse(null));
+    }
+
+    @Test
+    void testInjectAndExtract_ShouldRecordDeliveryFromSentAtHeader() {
+        IngestTracer tracer = new IngestTracer(List.of(spans), 1.0);
+        TraceContext trace = tracer.newTrace();
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("new-event-topic-retry-0", 2, 5, "key", new byte[0]);
+        tracer.inject(record.headers(), trace, 1_000, 2_000);
+        tracer.markSent(record.headers(), 3_000);
+        tracer.markSent(record.headers(), 4_000);
+
+        assertEquals(trace, tracer.extract(record));
+        tracer.recordDelivery(record, 10_000);
+
+        Span delivery = spans.trace(trace.traceId()).get(0);
+        assertEquals("kafka.delivery", delivery.name());
+        assertEquals(4_000, delivery.startMicros());
+        assertEquals(6_000, delivery.durationMicros());
+        assertEquals(trace.spanId(), delivery.parentSpanId());
+        assertEquals("new-event-topic-retry-0", delivery.attributes().get("topic"));
+    }
+
+    @Test
+    void testRecord_ShouldSkipUnsampledTracesAndDisabledTracer() {
+        IngestTracer tracer = new IngestTracer(List.of(spans), 1.0);
+        tracer.record(TraceContext.newRoot(false), "producer.send", 0, 1, Map.of());
+
+        IngestTracer disabled = new IngestTracer(List.of(), 1.0);
+        TraceContext trace = disabled.newTrace();
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("new-event-topic", 0, 0, "key", new byte[0]);
+        record.headers().add(IngestTracer.TRACEPARENT, trace.traceparent().getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(trace.sampled());
+        assertNull(disabled.extract(record));
+        assertTrue(spans.slowest(10).isEmpty());
+    }
+
+    @Test
+    void testSlowest_ShouldOrderTracesByTotalDuration() {
+        IngestTracer tracer = new IngestTracer(List.of(spans), 1.0);
+        TraceContext fast = tracer.newTrace();
+        TraceContext slow = tracer.newTrace();
+        tracer.record(fast, "producer.send", 0, 10, Map.of());
+        tracer.record(slow, "consumer.persist", 500, 900, Map.of());
+        tracer.record(slow, "producer.send", 100, 200, Map.of());
+
+        List<List<Span>> slowest = spans.slowest(1);
+
+        assertEquals(1, slowest.size());
+        assertEquals(List.of("producer.send", "consumer.persist"), slowest.get(0).stream().map(Span::name).toList());
+    }
+}
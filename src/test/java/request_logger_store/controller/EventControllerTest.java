@@ -0,0 +1,224 @@
+package request_logger_store.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.ServletWebRequest;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.Dto.EventPageDto;
+import request_logger_store.component.archive.ArchivedRecord;
+import request_logger_store.component.archive.ColdStore;
+import request_logger_store.component.cache.FlatEventCache;
+import request_logger_store.config.mapper.Mapper;
+import request_logger_store.model.EventRecord;
+import request_logger_store.repository.EventRecordRepository;
+import request_logger_store.repository.EventRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventControllerTest {
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private EventRecordRepository eventRecordRepository;
+
+    @Mock
+    private Mapper mapper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ColdStore coldStore;
+
+    private FlatEventCache flatEventCache;
+
+    private EventController controller;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(mapper.objectMapper()).thenReturn(new ObjectMapper().registerModule(new JavaTimeModule()));
+        flatEventCache = new FlatEventCache(eventRepository, coldStore, mapper, transactionManager, 1000,
+            Duration.ofMinutes(10), Duration.ofMinutes(5));
+        controller = new EventController(eventRepository, eventRecordRepository, mapper, transactionManager,
+            flatEventCache, coldStore);
+    }
+
+    @Test
+    void testGetAllEventsFlat_ShouldReturnEtagAndNotModifiedForSameVersion() {
+        when(eventRepository.streamAllIdAndData()).thenAnswer(invocation -> Stream.of());
+        MockHttpServletResponse first = new MockHttpServletResponse();
+
+        ResponseEntity<List<EventDto>> response = controller.getAllEventsFlat(request("/all-events", null, first));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String etag = first.getHeader("ETag");
+        assertNotNull(etag);
+        assertNotNull(first.getHeader("Last-Modified"));
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        assertNull(controller.getAllEventsFlat(request("/all-events", etag, second)));
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), second.getStatus());
+        verify(eventRepository).streamAllIdAndData();
+    }
+
+    @Test
+    void testGetAllEventsFlat_ShouldStreamListLargerThanCacheLimit() throws Exception {
+        flatEventCache = new FlatEventCache(eventRepository, coldStore, mapper, transactionManager, 1,
+            Duration.ofMinutes(10), Duration.ofMinutes(5));
+        controller = new EventController(eventRepository, eventRecordRepository, mapper, transactionManager,
+            flatEventCache, coldStore);
+        String data = "[{\"dateTime\":\"2024-01-01T10:00:00\"},{\"dateTime\":\"2024-01-01T10:01:00\"}]";
+        when(eventRepository.streamAllIdAndData()).thenAnswer(invocation -> Stream.of(row(data)));
+        when(eventRepository.streamAllDataOnly()).thenAnswer(invocation -> Stream.of(data));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertNull(controller.getAllEventsFlat(request("/all-events", null, response)));
+
+        assertEquals("application/json", response.getContentType());
+        assertEquals(data, response.getContentAsString());
+        assertNotNull(response.getHeader("ETag"));
+    }
+
+    @Test
+    void testStreamAllEventsFlat_ShouldReturnNotModifiedWithoutReadingDatabase() {
+        String etag = flatEventCache.currentTag().etag();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertNull(controller.streamAllEventsFlat(request("/all-events/stream", etag, response)));
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        verify(eventRepository, never()).streamAllDataOnly();
+    }
+
+    @Test
+    void testStreamAllEventsFlat_ShouldFlattenStoredArrays() throws Exception {
+        when(eventRepository.streamAllDataOnly()).thenReturn(Stream.of(
+            "[{\"dateTime\":[2024,1,1,10,0]},{\"dateTime\":[2024,1,1,10,1]}]",
+            "[]",
+            "[{\"dateTime\":\"2024-01-01T10:02:00\"}]"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        controller.streamAllEventsFlat(request("/all-events/stream", null, new MockHttpServletResponse()))
+            .getBody().writeTo(out);
+
+        assertEquals("[{\"dateTime\":[2024,1,1,10,0]},{\"dateTime\":[2024,1,1,10,1]},"
+            + "{\"dateTime\":\"2024-01-01T10:02:00\"}]", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testGetEvents_ShouldReturnCursorPointingAfterLastRowOfPage() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 2, 0, 0);
+        when(eventRecordRepository.findPageAfter(from, to, from, 0L, 3)).thenReturn(List.of(
+            record(1L, from.plusMinutes(1)), record(2L, from.plusMinutes(2)), record(3L, from.plusMinutes(3))));
+
+        ResponseEntity<EventPageDto> response = controller.getEvents(from, to, 2, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().getEvents().size());
+        assertNotNull(response.getBody().getNextCursor());
+
+        controller.getEvents(from, to, 2, response.getBody().getNextCursor());
+
+        verify(eventRecordRepository).findPageAfter(from, to, from.plusMinutes(2), 2L, 3);
+    }
+
+    @Test
+    void testGetEvents_ShouldReturnNoCursorOnLastPage() {
+        when(eventRecordRepository.findPageAfter(any(), any(), any(), anyLong(), anyInt()))
+            .thenReturn(List.of(record(1L, LocalDateTime.of(2024, 1, 1, 0, 0))));
+
+        ResponseEntity<EventPageDto> response = controller.getEvents(null, null, 10, null);
+
+        assertEquals(1, response.getBody().getEvents().size());
+        assertNull(response.getBody().getNextCursor());
+    }
+
+    @Test
+    void testGetEvents_ShouldMergeArchivedAndDatabaseRowsInCursorOrder() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 2, 0, 0);
+        when(eventRecordRepository.findPageAfter(from, to, from, 0L, 4)).thenReturn(List.of(
+            record(2L, from.plusMinutes(2)), record(5L, from.plusMinutes(5))));
+        when(coldStore.findPageAfter(from, to, from, 0L, 4)).thenReturn(List.of(
+            new ArchivedRecord(from.plusMinutes(1), 1L), new ArchivedRecord(from.plusMinutes(3), 3L),
+            new ArchivedRecord(from.plusMinutes(4), 4L)));
+
+        ResponseEntity<EventPageDto> response = controller.getEvents(from, to, 3, null);
+
+        assertEquals(List.of(from.plusMinutes(1), from.plusMinutes(2), from.plusMinutes(3)),
+            response.getBody().getEvents().stream().map(EventDto::getDateTime).toList());
+
+        controller.getEvents(from, to, 3, response.getBody().getNextCursor());
+
+        verify(eventRecordRepository).findPageAfter(from, to, from.plusMinutes(3), 3L, 4);
+        verify(coldStore).findPageAfter(from, to, from.plusMinutes(3), 3L, 4);
+    }
+
+    @Test
+    void testGetEvents_ShouldRejectMalformedCursor() {
+        ResponseEntity<EventPageDto> response = controller.getEvents(null, null, 10, "%%%");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    private ServletWebRequest request(String uri, String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+
+    private static EventRepository.IdAndData row(String data) {
+        return new EventRepository.IdAndData() {
+            @Override
+            public UUID getId() {
+                return UUID.randomUUID();
+            }
+
+            @Override
+            public String getData() {
+                return data;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return LocalDateTime.of(2024, 1, 1, 10, 1);
+            }
+        };
+    }
+
+    private EventRecord record(long id, LocalDateTime eventTime) {
+        EventRecord record = new EventRecord(0, eventTime);
+        record.setId(id);
+        return record;
+    }
+}
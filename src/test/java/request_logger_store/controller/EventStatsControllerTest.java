@@ -0,0 +1,64 @@
+package request_logger_store.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import request_logger_store.Dto.EventCountDto;
+import request_logger_store.repository.rollup.EventRollupRepository;
+import request_logger_store.repository.rollup.Granularity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class EventStatsControllerTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Mock
+    private EventRollupRepository rollupRepository;
+
+    private EventStatsController controller;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        controller = new EventStatsController(rollupRepository);
+    }
+
+    @Test
+    void testGetStats_ShouldAlignRangeToWholeBuckets() {
+        List<EventCountDto> counts = List.of(new EventCountDto(T0, 5));
+        when(rollupRepository.find(Granularity.HOUR, T0, T0.plusHours(3))).thenReturn(counts);
+
+        ResponseEntity<List<EventCountDto>> response =
+            controller.getStats(T0.plusMinutes(30), T0.plusHours(2).plusSeconds(1), "hour");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(counts, response.getBody());
+    }
+
+    @Test
+    void testGetStats_ShouldDefaultToLastSixtyBucketsBeforeTo() {
+        controller.getStats(null, T0, "minute");
+
+        verify(rollupRepository).find(Granularity.MINUTE, T0.minusHours(1), T0);
+    }
+
+    @Test
+    void testGetStats_ShouldRejectUnknownGranularityAndTooWideRange() {
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getStats(null, null, "week").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+            controller.getStats(T0.minusMinutes(EventStatsController.MAX_BUCKETS + 1), T0, "minute").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getStats(T0, T0, "minute").getStatusCode());
+
+        verifyNoInteractions(rollupRepository);
+    }
+}
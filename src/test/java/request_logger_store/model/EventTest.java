@@ -0,0 +1,52 @@
+package request_logger_store.model;
+
+import org.junit.jupiter.api.Test;
+import request_logger_store.Dto.EventDto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EventTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Test
+    void testFromDtos_ShouldSkipEventsWithoutTimeAndKeepPositions() {
+        String data = "[{\"dateTime\":\"2024-01-01T10:00:00\"},{\"dateTime\":null},null,"
+            + "{\"dateTime\":\"2024-01-01T10:01:00\"}]";
+
+        Event event = Event.fromDtos(data, Arrays.asList(new EventDto(T0), new EventDto(null), null,
+            new EventDto(T0.plusMinutes(1))));
+
+        assertEquals(2, event.getRecords().size());
+        assertEquals(0, event.getRecords().get(0).getPosition());
+        assertEquals(T0, event.getRecords().get(0).getEventTime());
+        assertEquals(3, event.getRecords().get(1).getPosition());
+        assertEquals(T0.plusMinutes(1), event.getRecords().get(1).getEventTime());
+        assertEquals(data, event.getData());
+    }
+
+    @Test
+    void testAssignSource_ShouldDeriveCreatedAtInUtcRegardlessOfDefaultZone() {
+        long timestamp = T0.toInstant(ZoneOffset.UTC).toEpochMilli();
+        TimeZone defaultZone = TimeZone.getDefault();
+        Event first = new Event("[]");
+        Event second = new Event("[]");
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Europe/Moscow"));
+            first.assignSource("events", 1, 42, timestamp);
+            TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+            second.assignSource("events", 1, 42, timestamp);
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+
+        assertEquals(T0, first.getCreatedAt());
+        assertEquals(first.getCreatedAt(), second.getCreatedAt());
+        assertEquals(first.getId(), second.getId());
+    }
+}
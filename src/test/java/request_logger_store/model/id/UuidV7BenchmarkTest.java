@@ -0,0 +1,93 @@
+package request_logger_store.model.id;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import request_logger_store.BenchmarkSupport;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Сравнение скорости вставки и размера индекса первичного ключа для UUID v4 (прежняя схема)
+ * и {@link UuidV7}.
+ * <p>
+ * Запуск: {@code ./mvnw test -Pbenchmark -Dtest=UuidV7BenchmarkTest} (нужен Docker).
+ * Результат выводится в лог и сохраняется в {@code target/benchmarks/uuid-keys.csv}.
+ */
+@Tag("benchmark")
+class UuidV7BenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(UuidV7BenchmarkTest.class);
+
+    private static final int ROWS = 2_000_000;
+    private static final int BATCH_SIZE = 10_000;
+    private static final String PAYLOAD = "[{\"dateTime\":[2024,1,1,10,0,0,123456789]}]";
+
+    private static final PostgreSQLContainer<?> postgres = BenchmarkSupport.startPostgres("shared_buffers=64MB");
+
+    @AfterAll
+    static void stopContainer() {
+        postgres.stop();
+    }
+
+    @Test
+    void compareRandomAndTimeOrderedKeys() throws SQLException, IOException {
+        List<String> report = new ArrayList<>();
+        report.add("key,rows,rows_per_sec,pkey_bytes,table_bytes");
+        try (Connection connection = DriverManager.getConnection(
+            postgres.getJdbcUrl() + "&reWriteBatchedInserts=true", postgres.getUsername(), postgres.getPassword())) {
+            report.add(run(connection, "uuid_v4", UUID::randomUUID));
+            report.add(run(connection, "uuid_v7", UuidV7::next));
+        }
+        BenchmarkSupport.writeCsv("uuid-keys.csv", report);
+    }
+
+    private String run(Connection connection, String table, Supplier<UUID> keys) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " (id UUID PRIMARY KEY, data TEXT NOT NULL)");
+        }
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table + " (id, data) VALUES (?, ?)")) {
+            for (int row = 1; row <= ROWS; row++) {
+                insert.setObject(1, keys.get());
+                insert.setString(2, PAYLOAD);
+                insert.addBatch();
+                if (row % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        connection.setAutoCommit(true);
+
+        long indexBytes;
+        long tableBytes;
+        try (Statement statement = connection.createStatement();
+             ResultSet sizes = statement.executeQuery("SELECT pg_relation_size('" + table + "_pkey'), pg_relation_size('" + table + "')")) {
+            sizes.next();
+            indexBytes = sizes.getLong(1);
+            tableBytes = sizes.getLong(2);
+        }
+        long rowsPerSecond = Math.round(ROWS / seconds);
+        logger.info(">>>>>Benchmark key={} rows={} rows/sec={} pkey={} MB table={} MB",
+            table, ROWS, rowsPerSecond, indexBytes >> 20, tableBytes >> 20);
+        return String.join(",", table, String.valueOf(ROWS), String.valueOf(rowsPerSecond),
+            String.valueOf(indexBytes), String.valueOf(tableBytes));
+    }
+}
@@ -0,0 +1,86 @@
+package request_logger_store.model.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidV7Test {
+
+    @Test
+    void testNext_ShouldSetVersionAndVariant() {
+        UUID uuid = UuidV7.next();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    void testNext_ShouldEmbedCurrentTime() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7.next();
+        long after = System.currentTimeMillis();
+
+        // счётчик мог «занять» несколько миллисекунд вперёд в других тестах этого класса
+        long timestamp = UuidV7.timestampMillis(uuid);
+        assertTrue(timestamp >= before && timestamp < after + 1_000);
+    }
+
+    @Test
+    void testNext_ShouldBeStrictlyIncreasingInUnsignedByteOrder() {
+        UUID previous = UuidV7.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID current = UuidV7.next();
+            assertTrue(Long.compareUnsigned(current.getMostSignificantBits(), previous.getMostSignificantBits()) > 0);
+            previous = current;
+        }
+    }
+
+    @Test
+    void testNext_ShouldBeUniqueAcrossThreads() throws Exception {
+        int threads = 8;
+        int perThread = 50_000;
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(UuidV7.next());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    void testFromSource_ShouldBeDeterministicAndEmbedTimestamp() {
+        long timestamp = 1_700_000_000_123L;
+        UUID uuid = UuidV7.fromSource(timestamp, "new-event-topic", 3, 42);
+
+        assertEquals(uuid, UuidV7.fromSource(timestamp, "new-event-topic", 3, 42));
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertEquals(timestamp, UuidV7.timestampMillis(uuid));
+        assertNotEquals(uuid, UuidV7.fromSource(timestamp, "new-event-topic", 3, 43));
+        assertNotEquals(uuid, UuidV7.fromSource(timestamp, "new-event-topic", 4, 42));
+    }
+}
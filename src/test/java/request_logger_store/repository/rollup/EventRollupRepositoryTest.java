@@ -0,0 +1,41 @@
+package request_logger_store.repository.rollup;
+
+import org.junit.jupiter.api.Test;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.model.Event;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EventRollupRepositoryTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Test
+    void testCountByBucket_ShouldFoldBatchIntoSortedBuckets() {
+        List<Event> events = List.of(
+            event(T0.plusMinutes(61), T0.plusSeconds(59)),
+            event(T0.plusSeconds(1), T0.plusMinutes(1)));
+
+        Map<LocalDateTime, Long> minutes = EventRollupRepository.countByBucket(events, Granularity.MINUTE);
+        Map<LocalDateTime, Long> hours = EventRollupRepository.countByBucket(events, Granularity.HOUR);
+
+        assertEquals(List.of(T0, T0.plusMinutes(1), T0.plusMinutes(61)), new ArrayList<>(minutes.keySet()));
+        assertEquals(List.of(2L, 1L, 1L), new ArrayList<>(minutes.values()));
+        assertEquals(Map.of(T0, 3L, T0.plusHours(1), 1L), hours);
+    }
+
+    @Test
+    void testCountByBucket_ShouldIgnoreEventsWithoutRecords() {
+        assertEquals(Map.of(), EventRollupRepository.countByBucket(List.of(new Event("[]")), Granularity.MINUTE));
+    }
+
+    private static Event event(LocalDateTime... times) {
+        return Event.fromDtos("[]", Arrays.stream(times).map(EventDto::new).toList());
+    }
+}
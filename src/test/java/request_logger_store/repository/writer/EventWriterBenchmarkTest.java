@@ -0,0 +1,125 @@
+package request_logger_store.repository.writer;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import request_logger_store.BenchmarkSupport;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.model.Event;
+import request_logger_store.repository.EventRepository;
+import request_logger_store.repository.rollup.EventRollupRepository;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнение пропускной способности реализаций {@link EventWriter} на настоящем PostgreSQL.
+ * <p>
+ * Запуск: {@code ./mvnw test -Pbenchmark -Dtest=EventWriterBenchmarkTest} (нужен Docker).
+ * Результат выводится в лог и сохраняется в {@code target/benchmarks/event-writers.csv}.
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EventWriterBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventWriterBenchmarkTest.class);
+
+    private static final int[] BATCH_SIZES = {10, 100, 1_000, 10_000, 50_000};
+    private static final int MIN_ROWS_PER_RUN = 20_000;
+    private static final int EVENTS_PER_ROW = 10;
+
+    private static final PostgreSQLContainer<?> postgres = BenchmarkSupport.startPostgres();
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        BenchmarkSupport.registerDatasource(registry, postgres);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void compareWritersThroughput() throws IOException {
+        EventRollupRepository rollupRepository = new EventRollupRepository(jdbcTemplate);
+        Map<String, EventWriter> writers = new LinkedHashMap<>();
+        writers.put("jpa", new JpaEventWriter(eventRepository, rollupRepository));
+        writers.put("jdbc", new JdbcBatchEventWriter(jdbcTemplate, rollupRepository));
+        writers.put("copy", new CopyEventWriter(jdbcTemplate, rollupRepository));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        List<String> report = new ArrayList<>();
+        report.add("writer,batch_size,rows,event_records,rows_per_sec");
+        for (int batchSize : BATCH_SIZES) {
+            int rows = Math.max(MIN_ROWS_PER_RUN, batchSize);
+            for (Map.Entry<String, EventWriter> writer : writers.entrySet()) {
+                jdbcTemplate.execute("TRUNCATE event CASCADE");
+                transaction.executeWithoutResult(status -> writer.getValue().write(batch(batchSize)));
+                jdbcTemplate.execute("TRUNCATE event CASCADE");
+
+                long start = System.nanoTime();
+                for (int written = 0; written < rows; written += batchSize) {
+                    List<Event> batch = batch(batchSize);
+                    transaction.executeWithoutResult(status -> writer.getValue().write(batch));
+                }
+                double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+                assertEquals(rows, jdbcTemplate.queryForObject("SELECT count(*) FROM event", Long.class));
+                List<Event> replay = batch(batchSize);
+                transaction.executeWithoutResult(status -> writer.getValue().write(replay));
+                assertEquals(List.of(), transaction.execute(status -> writer.getValue().write(replay)));
+                assertEquals(rows + batchSize, jdbcTemplate.queryForObject("SELECT count(*) FROM event", Long.class));
+                long rowsPerSecond = Math.round(rows / seconds);
+                logger.info(">>>>>Benchmark writer={} batch={} rows={} rows/sec={}",
+                    writer.getKey(), batchSize, rows, rowsPerSecond);
+                report.add(String.join(",", writer.getKey(), String.valueOf(batchSize), String.valueOf(rows),
+                    String.valueOf((long) rows * EVENTS_PER_ROW), String.valueOf(rowsPerSecond)));
+            }
+        }
+
+        BenchmarkSupport.writeCsv("event-writers.csv", report);
+    }
+
+    private List<Event> batch(int size) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EventDto> eventDtos = new ArrayList<>(EVENTS_PER_ROW);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < EVENTS_PER_ROW; i++) {
+            LocalDateTime dateTime = now.plusSeconds(i);
+            eventDtos.add(new EventDto(dateTime));
+            json.append(i == 0 ? "" : ",").append("{\"dateTime\":\"").append(dateTime).append("\"}");
+        }
+        String data = json.append(']').toString();
+
+        List<Event> events = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            events.add(Event.fromDtos(data, eventDtos));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,351 @@
+package request_logger_store.service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.support.Acknowledgment;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.Dto.EventListDto;
+import request_logger_store.component.cache.FlatEventCache;
+import request_logger_store.component.db.BaseChecking;
+import request_logger_store.component.metrics.IngestMetrics;
+import request_logger_store.component.trace.InMemorySpanExporter;
+import request_logger_store.component.trace.IngestTracer;
+import request_logger_store.component.trace.Span;
+import request_logger_store.component.trace.TraceContext;
+import request_logger_store.config.mapper.Mapper;
+import request_logger_store.model.Event;
+import request_logger_store.repository.writer.EventWriter;
+import request_logger_store.service.kafka.codec.BinaryEventBatchCodec;
+import request_logger_store.service.kafka.codec.EventBatchCodecs;
+import request_logger_store.service.kafka.codec.JsonEventBatchCodec;
+import request_logger_store.service.kafka.retry.FailedRecordRouter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class KafkaBatchConsumerTest {
+
+    @Mock
+    private Mapper mapper;
+
+    @Mock
+    private EventWriter eventWriter;
+
+    @Mock
+    private BaseChecking baseChecking;
+
+    @Mock
+    private FailedRecordRouter failedRecordRouter;
+
+    @Mock
+    private FlatEventCache flatEventCache;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    @Mock
+    private Consumer<String, byte[]> kafkaConsumer;
+
+    @Captor
+    private ArgumentCaptor<List<Event>> eventsCaptor;
+
+    private ExecutorService ingestExecutor;
+
+    private final EventBatchCodecs codecs = new EventBatchCodecs(
+        List.of(new JsonEventBatchCodec(), new BinaryEventBatchCodec()), JsonEventBatchCodec.NAME);
+
+    private KafkaBatchConsumer consumer;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final IngestMetrics metrics = new IngestMetrics(meterRegistry);
+
+    private final InMemorySpanExporter spans = new InMemorySpanExporter(100);
+
+    private final IngestTracer tracer = new IngestTracer(List.of(spans), 1.0);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(mapper.objectMapper()).thenReturn(objectMapper);
+        when(baseChecking.protect(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(eventWriter.write(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        ingestExecutor = Executors.newFixedThreadPool(2);
+        consumer = new KafkaBatchConsumer(mapper, codecs, eventWriter, baseChecking, failedRecordRouter,
+            metrics, flatEventCache, tracer, ingestExecutor, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ingestExecutor.shutdownNow();
+    }
+
+    @Test
+    void testListenEvents_ShouldSaveWholeBatchOnceAndAcknowledge() throws Exception {
+        List<ConsumerRecord<String, byte[]>> records = List.of(record(0, validJson()), record(1, validJson()));
+
+        consumer.listenEvents(records, acknowledgment, kafkaConsumer);
+
+        verify(eventWriter, times(1)).write(eventsCaptor.capture());
+        assertEquals(2, eventsCaptor.getValue().size());
+        verify(flatEventCache).append(eventsCaptor.getValue());
+        verify(acknowledgment, times(1)).acknowledge();
+        assertEquals(2, meterRegistry.get("ingest.consumer.records").tag("outcome", "saved").counter().count());
+        assertEquals(1, meterRegistry.get("ingest.consumer.persist").timer().count());
+    }
+
+    @Test
+    void testListenEvents_ShouldKeepSourceIdentityAndSkipAlreadySavedOnRedelivery() throws Exception {
+        long timestamp = System.currentTimeMillis() - 60_000;
+        List<ConsumerRecord<String, byte[]>> records =
+            List.of(record(0, timestamp, validJson()), record(1, timestamp, validJson()));
+        consumer.listenEvents(records, acknowledgment, kafkaConsumer);
+        List<Event> first = written(1);
+        when(eventWriter.write(anyList())).thenAnswer(invocation -> invocation.<List<Event>>getArgument(0).subList(1, 2));
+
+        consumer.listenEvents(records, acknowledgment, kafkaConsumer);
+
+        List<Event> redelivered = written(2);
+        assertEquals(first.stream().map(Event::getId).toList(), redelivered.stream().map(Event::getId).toList());
+        assertEquals(first.get(0).getCreatedAt(), redelivered.get(0).getCreatedAt());
+        verify(flatEventCache).append(List.of(redelivered.get(1)));
+        assertEquals(3, meterRegistry.get("ingest.consumer.records").tag("outcome", "saved").counter().count());
+        assertEquals(1, meterRegistry.get("ingest.consumer.records").tag("outcome", "duplicate").counter().count());
+    }
+
+    @Test
+    void testListenEvents_ShouldSendMalformedRecordsToDeadLetterTopic() throws Exception {
+        List<ConsumerRecord<String, byte[]>> records = List.of(record(0, "not json"), record(1, ""), record(2, validJson()));
+
+        consumer.listenEvents(records, acknowledgment, kafkaConsumer);
+
+        verify(eventWriter).write(eventsCaptor.capture());
+        assertEquals(1, eventsCaptor.getValue().size());
+        verify(failedRecordRouter).toDeadLetter(eq(records.get(0)), any());
+        verify(failedRecordRouter, never()).toRetry(any(), any());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void testListenEvents_ShouldIsolateRejectedRows() throws Exception {
+        List<ConsumerRecord<String, byte[]>> records = List.of(record(0, validJson()), record(1, validJson()));
+        doThrow(new DataIntegrityViolationException("bad row"))
+            .when(eventWriter).write(argThat(events -> events.size() == 2));
+
+        consumer.listenEvents(records, acknowledgment, kafkaConsumer);
+
+        verify(eventWriter, times(2)).write(argThat(events -> events.size() == 1));
+        verify(acknowledgment).acknowledge();
+        verify(baseChecking, never()).checking();
+        verifyNoInteractions(failedRecordRouter);
+    }
+
+    @Test
+    void testListenEvents_ShouldSendRowRejectedByConstraintToDeadLetterTopic() {
+        List<ConsumerRecord<String, byte[]>> records = List.of(record(0, validJson(2001)), record(1, validJson(2002)));
+        doThrow(new DataIntegrityViolationException("bad row"))
+            .when(eventWriter).write(argThat(events -> events.size() == 2 || events.get(0).getData().contains("2002")));
+
+        consumer.listenEvents(records, acknowledgment, kafkaConsumer);
+
+        verify(failedRecordRouter).toDeadLetter(eq(records.get(1)), any(DataIntegrityViolationException.class));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void testListenEvents_ShouldSendBatchToRetryTopic_WhenSaveFailsWithDatabaseUp() {
+        List<ConsumerRecord<String, byte[]>> records = List.of(record(0, validJson()), record(1, validJson()));
+        doThrow(new IllegalStateException("deadlock")).when(eventWriter).write(anyList());
+
+        consumer.listenEvents(records, acknowledgment, kafkaConsumer);
+
+        verify(failedRecordRouter).toRetry(eq(records.get(0)), any(IllegalStateException.class));
+        verify(failedRecordRouter).toRetry(eq(records.get(1)), any(IllegalStateException.class));
+        verify(acknowledgment).acknowledge();
+        verify(acknowledgment, never()).nack(anyInt(), any(Duration.class));
+        verify(baseChecking, never()).checking();
+    }
+
+    @Test
+    void testListenEvents_ShouldNackAndCheckDatabase_WhenSaveFails() {
+        List<ConsumerRecord<String, byte[]>> records = List.of(record(0, validJson()));
+        doThrow(new DataAccessResourceFailureException("DB down")).when(eventWriter).write(anyList());
+
+        consumer.listenEvents(records, acknowledgment, kafkaConsumer);
+
+        verify(baseChecking, times(1)).checking();
+        verify(acknowledgment).nack(eq(0), any(Duration.class));
+        verify(acknowledgment, never()).acknowledge();
+        verifyNoInteractions(failedRecordRouter);
+    }
+
+    @Test
+    void testListenEvents_Parallel_ShouldSaveChunksConcurrentlyAndAcknowledge() {
+        consumer = parallelConsumer();
+        List<ConsumerRecord<String, byte[]>> records = List.of(
+            record(0, validJson(2001)), record(1, validJson(2001)), record(2, validJson(2002)), record(3, validJson(2002)));
+
+        consumer.listenEvents(records, acknowledgment, kafkaConsumer);
+
+        verify(eventWriter, times(2)).write(argThat(events -> events.size() == 2));
+        verify(acknowledgment).acknowledge();
+        verify(kafkaConsumer, never()).commitSync(anyMap());
+    }
+
+    @Test
+    void testListenEvents_Parallel_ShouldCommitContiguousPrefixAndSeekToFirstFailed() {
+        consumer = parallelConsumer();
+        List<ConsumerRecord<String, byte[]>> records = List.of(
+            record(0, validJson(2001)), record(1, validJson(2001)), record(2, validJson(2002)), record(3, validJson(2002)));
+        doThrow(new DataAccessResourceFailureException("DB down"))
+            .when(eventWriter).write(argThat(events -> events.get(0).getData().contains("2002")));
+
+        consumer.listenEvents(records, acknowledgment, kafkaConsumer);
+
+        TopicPartition partition = new TopicPartition("new-event-topic", 0);
+        verify(kafkaConsumer).commitSync(Map.of(partition, new OffsetAndMetadata(2)));
+        verify(kafkaConsumer).seek(partition, 2L);
+        verify(acknowledgment, never()).acknowledge();
+        verify(baseChecking).checking();
+    }
+
+    @Test
+    void testListenEvents_Parallel_ShouldNotCommitPastFailedHead() {
+        consumer = parallelConsumer();
+        List<ConsumerRecord<String, byte[]>> records = List.of(
+            record(0, validJson(2001)), record(1, validJson(2001)), record(2, validJson(2002)), record(3, validJson(2002)));
+        doThrow(new DataAccessResourceFailureException("DB down"))
+            .when(eventWriter).write(argThat(events -> events.get(0).getData().contains("2001")));
+
+        consumer.listenEvents(records, acknowledgment, kafkaConsumer);
+
+        verify(kafkaConsumer, never()).commitSync(anyMap());
+        verify(kafkaConsumer).seek(new TopicPartition("new-event-topic", 0), 0L);
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void testListenEvents_ShouldWaitForRunningChunksBeforeSeekingWhenInterrupted() throws Exception {
+        consumer = parallelConsumer();
+        List<ConsumerRecord<String, byte[]>> records = List.of(
+            record(0, validJson(2001)), record(1, validJson(2001)), record(2, validJson(2002)), record(3, validJson(2002)));
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(eventWriter.write(argThat(events -> events.get(0).getData().contains("2001")))).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+        AtomicBoolean interruptRestored = new AtomicBoolean();
+        Thread listener = new Thread(() -> {
+            consumer.listenEvents(records, acknowledgment, kafkaConsumer);
+            interruptRestored.set(Thread.currentThread().isInterrupted());
+        });
+        listener.start();
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        listener.interrupt();
+        Thread.sleep(100);
+        verify(kafkaConsumer, never()).seek(any(), anyLong());
+        verify(kafkaConsumer, never()).commitSync(anyMap());
+        release.countDown();
+        listener.join(5_000);
+
+        verify(kafkaConsumer).commitSync(Map.of(new TopicPartition("new-event-topic", 0), new OffsetAndMetadata(4)));
+        assertTrue(interruptRestored.get());
+        verify(baseChecking, never()).checking();
+    }
+
+    private KafkaBatchConsumer parallelConsumer() {
+        return new KafkaBatchConsumer(mapper, codecs, eventWriter, baseChecking, failedRecordRouter,
+            metrics, flatEventCache, tracer, ingestExecutor, 2);
+    }
+
+    @Test
+    void testListenEvents_ShouldDecodeMixedFormatsByHeader() throws Exception {
+        EventListDto batch = new EventListDto(List.of(new EventDto(LocalDateTime.of(2024, 1, 1, 10, 0))));
+        ConsumerRecord<String, byte[]> binary = new ConsumerRecord<>("new-event-topic", 0, 1, "key",
+            new BinaryEventBatchCodec().encode(batch));
+        binary.headers().add(EventBatchCodecs.HEADER, BinaryEventBatchCodec.NAME.getBytes(StandardCharsets.UTF_8));
+        List<ConsumerRecord<String, byte[]>> records = List.of(record(0, validJson(2024)), binary);
+
+        consumer.listenEvents(records, acknowledgment, kafkaConsumer);
+
+        verify(eventWriter).write(eventsCaptor.capture());
+        assertEquals(2, eventsCaptor.getValue().size());
+        assertEquals(eventsCaptor.getValue().get(0).getData(), eventsCaptor.getValue().get(1).getData());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void testListenEvents_ShouldContinueProducerTraceThroughDeserializeAndPersist() {
+        TraceContext trace = TraceContext.newRoot(true);
+        ConsumerRecord<String, byte[]> traced = record(0, validJson());
+        traced.headers().add(IngestTracer.TRACEPARENT, trace.traceparent().getBytes(StandardCharsets.UTF_8));
+        tracer.markSent(traced.headers(), tracer.nowMicros() - 5_000);
+
+        consumer.listenEvents(List.of(traced, record(1, validJson())), acknowledgment, kafkaConsumer);
+
+        List<Span> exported = spans.trace(trace.traceId());
+        assertEquals(List.of("kafka.delivery", "consumer.deserialize", "consumer.persist"),
+            exported.stream().map(Span::name).toList());
+        assertEquals(trace.spanId(), exported.get(0).parentSpanId());
+        assertEquals("2", exported.get(2).attributes().get("batch.size"));
+    }
+
+    private List<Event> written(int calls) {
+        verify(eventWriter, times(calls)).write(eventsCaptor.capture());
+        return eventsCaptor.getValue();
+    }
+
+    private ConsumerRecord<String, byte[]> record(long offset, long timestamp, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return new ConsumerRecord<>("new-event-topic", 0, offset, timestamp, TimestampType.CREATE_TIME, 3,
+            bytes.length, "key", bytes, new RecordHeaders(), Optional.empty());
+    }
+
+    private ConsumerRecord<String, byte[]> record(long offset, String value) {
+        return new ConsumerRecord<>("new-event-topic", 0, offset, "key", value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String validJson() {
+        return validJson(LocalDateTime.now().getYear());
+    }
+
+    private String validJson(int year) {
+        try {
+            return objectMapper.writeValueAsString(
+                new EventListDto(List.of(new EventDto(LocalDateTime.of(year, 1, 1, 10, 0)))));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
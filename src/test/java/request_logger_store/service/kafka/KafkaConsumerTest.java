@@ -1,22 +1,31 @@
 package request_logger_store.service.kafka;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.github.resilience4j.retry.Retry;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.kafka.support.Acknowledgment;
 import request_logger_store.Dto.EventDto;
 import request_logger_store.Dto.EventListDto;
+import request_logger_store.component.cache.FlatEventCache;
 import request_logger_store.component.db.BaseChecking;
+import request_logger_store.component.metrics.IngestMetrics;
+import request_logger_store.component.trace.IngestTracer;
 import request_logger_store.config.mapper.Mapper;
-import request_logger_store.model.Event;
-import request_logger_store.repository.EventRepository;
-
+import request_logger_store.repository.writer.EventWriter;
+import request_logger_store.service.kafka.codec.BinaryEventBatchCodec;
+import request_logger_store.service.kafka.codec.EventBatchCodecs;
+import request_logger_store.service.kafka.codec.JsonEventBatchCodec;
+import request_logger_store.service.kafka.retry.FailedRecordRouter;
+
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.function.Supplier;
 
 import static org.mockito.Mockito.*;
 
@@ -26,37 +35,81 @@ class KafkaConsumerTest {
     private Mapper mapper;
 
     @Mock
-    private EventRepository repository;
+    private EventWriter eventWriter;
 
     @Mock
-    private Retry retry;
+    private BaseChecking baseChecking;
 
     @Mock
-    private BaseChecking baseChecking;
+    private FailedRecordRouter failedRecordRouter;
 
-    @InjectMocks
-    private KafkaConsumer kafkaConsumer;
+    @Mock
+    private FlatEventCache flatEventCache;
 
     @Mock
     private Acknowledgment acknowledgment;
 
-    @Mock
-    private ConsumerRecord<String, String> record;
+    private KafkaConsumer kafkaConsumer;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final IngestMetrics metrics = new IngestMetrics(new SimpleMeterRegistry());
+
+    private final IngestTracer tracer = new IngestTracer(List.of(), 1.0);
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-           }
+        when(mapper.objectMapper()).thenReturn(objectMapper);
+        when(baseChecking.protect(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(eventWriter.write(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        EventBatchCodecs codecs = new EventBatchCodecs(
+            List.of(new JsonEventBatchCodec(), new BinaryEventBatchCodec()), JsonEventBatchCodec.NAME);
+        kafkaConsumer = new KafkaConsumer(mapper, eventWriter, baseChecking, codecs, failedRecordRouter, metrics,
+            flatEventCache, tracer);
+    }
 
     @Test
     void testListenOrder_ShouldCallBaseChecking_WhenSaveFails() throws Exception {
-        when(record.value()).thenReturn("{\"\": {}}");
-        when(record.key()).thenReturn("testKey");
-
-        doThrow(new RuntimeException("DB error")).when(repository).save(any(Event.class));
+        ConsumerRecord<String, byte[]> record = record(validJson());
+        doThrow(new DataAccessResourceFailureException("DB error")).when(eventWriter).write(anyList());
 
         kafkaConsumer.listenEvent(record, acknowledgment);
 
         verify(baseChecking, times(1)).checking();
+        verify(acknowledgment).nack(any(Duration.class));
+        verifyNoInteractions(failedRecordRouter);
+    }
+
+    @Test
+    void testListenEvent_ShouldSendToRetryTopic_WhenSaveFailsWithDatabaseUp() throws Exception {
+        ConsumerRecord<String, byte[]> record = record(validJson());
+        doThrow(new IllegalStateException("deadlock")).when(eventWriter).write(anyList());
+
+        kafkaConsumer.listenEvent(record, acknowledgment);
+
+        verify(failedRecordRouter).toRetry(eq(record), any(IllegalStateException.class));
+        verify(acknowledgment).acknowledge();
+        verify(baseChecking, never()).checking();
+    }
+
+    @Test
+    void testListenEvent_ShouldSendMalformedMessageToDeadLetterTopic() {
+        ConsumerRecord<String, byte[]> record = record("not json");
+
+        kafkaConsumer.listenEvent(record, acknowledgment);
+
+        verify(failedRecordRouter).toDeadLetter(eq(record), any(IOException.class));
+        verify(acknowledgment).acknowledge();
+        verifyNoInteractions(eventWriter);
+    }
+
+    private ConsumerRecord<String, byte[]> record(String value) {
+        return new ConsumerRecord<>("new-event-topic", 0, 0, "testKey", value.getBytes());
+    }
+
+    private String validJson() throws Exception {
+        return objectMapper.writeValueAsString(
+            new EventListDto(List.of(new EventDto(LocalDateTime.of(2024, 1, 1, 10, 0)))));
     }
-}
\ No newline at end of file
+}
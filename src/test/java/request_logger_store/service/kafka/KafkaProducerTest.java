@@ -2,22 +2,50 @@ package request_logger_store.service.kafka;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import request_logger_store.Dto.EventDto;
 import request_logger_store.Dto.EventListDto;
+import request_logger_store.component.metrics.IngestMetrics;
+import request_logger_store.component.trace.InMemorySpanExporter;
+import request_logger_store.component.trace.IngestTracer;
+import request_logger_store.component.trace.Span;
+import request_logger_store.component.trace.TraceContext;
+import request_logger_store.service.kafka.codec.BinaryEventBatchCodec;
+import request_logger_store.service.kafka.codec.EventBatchCodecs;
+import request_logger_store.service.kafka.codec.JsonEventBatchCodec;
+import request_logger_store.service.kafka.routing.EventRoutingStrategy;
+import request_logger_store.service.kafka.routing.RoundRobinRoutingStrategy;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.*;
 
 class KafkaProducerTest {
 
     @Mock
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
 
     @Mock
     private Retry retry;
@@ -25,15 +53,39 @@ class KafkaProducerTest {
     @Mock
     private ExecutorService executor;
 
+    @Mock
+    private ExecutorService sendExecutor;
+
+    @Mock
+    private KafkaSpool spool;
+
     @InjectMocks
     private KafkaProducer kafkaProducer;
 
     private final ObjectMapper mapper = new ObjectMapper();
 
+    private ScheduledExecutorService scheduler;
+
+    private final EventBatchCodecs codecs = new EventBatchCodecs(
+        List.of(new JsonEventBatchCodec(), new BinaryEventBatchCodec()), BinaryEventBatchCodec.NAME);
+
+    private final IngestMetrics metrics = new IngestMetrics(new SimpleMeterRegistry());
+
+    private final InMemorySpanExporter spans = new InMemorySpanExporter(100);
+
+    private final IngestTracer tracer = new IngestTracer(List.of(spans), 1.0);
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        kafkaProducer = new KafkaProducer(retry, kafkaTemplate, executor);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        kafkaProducer = new KafkaProducer(retry, kafkaTemplate, executor, sendExecutor, scheduler,
+            new RoundRobinRoutingStrategy(), codecs, spool, metrics, tracer, 3, 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
     }
 
     @Test
@@ -45,7 +97,208 @@ class KafkaProducerTest {
 
         kafkaProducer.sendEventToBroker(dto);
 
-        verify(executor, times(1)).submit(any(Runnable.class));
+        verify(executor, times(1)).submit(any(Callable.class));
+        verify(sendExecutor, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSendEventToBroker_ShouldRetryFailedFutureAndReleaseSlot() {
+        Retry fastRetry = Retry.of("test", RetryConfig.custom()
+            .maxAttempts(3)
+            .waitDuration(Duration.ofMillis(10))
+            .build());
+        ExecutorService realExecutor = Executors.newSingleThreadExecutor();
+        KafkaProducer producer = new KafkaProducer(fastRetry, kafkaTemplate, realExecutor, realExecutor, scheduler,
+            new RoundRobinRoutingStrategy(), codecs, spool, metrics, tracer, 3, 1);
+        SendResult<String, byte[]> ok = new SendResult<>(null,
+            new RecordMetadata(new TopicPartition("new-event-topic", 0), 0, 0, 0, 0, 0));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker unavailable")))
+            .thenReturn(CompletableFuture.completedFuture(ok));
+
+        try {
+            producer.sendEventToBroker(new EventListDto());
+
+            verify(kafkaTemplate, timeout(2000).times(2)).send(any(ProducerRecord.class));
+            verify(kafkaTemplate, after(200).times(2)).send(any(ProducerRecord.class));
+            assertEquals(0, producer.getInFlightCount());
+        } finally {
+            realExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSendEventToBroker_ShouldSpreadBatchesAcrossPartitions() {
+        ExecutorService realExecutor = Executors.newSingleThreadExecutor();
+        Retry singleAttempt = Retry.of("test", RetryConfig.custom().maxAttempts(1).build());
+        KafkaProducer producer = new KafkaProducer(singleAttempt, kafkaTemplate, realExecutor, realExecutor, scheduler,
+            new RoundRobinRoutingStrategy(), codecs, spool, metrics, tracer, 3, 16);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                producer.sendEventToBroker(new EventListDto());
+            }
+
+            ArgumentCaptor<ProducerRecord<String, byte[]>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+            verify(kafkaTemplate, timeout(2000).times(3)).send(captor.capture());
+            assertEquals(List.of(0, 1, 2),
+                captor.getAllValues().stream().map(ProducerRecord::partition).toList());
+            assertArrayEquals(BinaryEventBatchCodec.NAME.getBytes(StandardCharsets.UTF_8),
+                captor.getValue().headers().lastHeader(EventBatchCodecs.HEADER).value());
+        } finally {
+            realExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSendEventToBroker_ShouldSendInOrderWhenLaterBatchIsEncodedFirst() {
+        EventListDto first = new EventListDto(List.of(new EventDto(LocalDateTime.now())));
+        EventListDto second = new EventListDto();
+        CountDownLatch secondEncoded = new CountDownLatch(1);
+        EventRoutingStrategy routing = new EventRoutingStrategy() {
+            @Override
+            public String key(EventListDto batch) {
+                return null;
+            }
+
+            @Override
+            public Integer partition(EventListDto batch, int partitionCount) {
+                if (batch == first) {
+                    await(secondEncoded);
+                    return 0;
+                }
+                secondEncoded.countDown();
+                return 1;
+            }
+        };
+        ExecutorService encoders = Executors.newCachedThreadPool();
+        ExecutorService lane = Executors.newSingleThreadExecutor();
+        Retry singleAttempt = Retry.of("test", RetryConfig.custom().maxAttempts(1).build());
+        KafkaProducer producer = new KafkaProducer(singleAttempt, kafkaTemplate, encoders, lane, scheduler,
+            routing, codecs, spool, metrics, tracer, 3, 16);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+
+        try {
+            producer.sendEventToBroker(first);
+            producer.sendEventToBroker(second);
+
+            ArgumentCaptor<ProducerRecord<String, byte[]>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+            verify(kafkaTemplate, timeout(2000).times(2)).send(captor.capture());
+            assertEquals(List.of(0, 1), captor.getAllValues().stream().map(ProducerRecord::partition).toList());
+        } finally {
+            encoders.shutdownNow();
+            lane.shutdownNow();
+        }
     }
 
-}
\ No newline at end of file
+    @Test
+    void testSendEventToBroker_ShouldSpoolWhileSpoolIsNotEmpty() {
+        when(spool.isActive()).thenReturn(true);
+        when(spool.offer(any())).thenReturn(true);
+
+        kafkaProducer.sendEventToBroker(new EventListDto());
+
+        verify(spool).offer(argThat(record -> record.partition() == 0
+            && record.headers().lastHeader(EventBatchCodecs.HEADER) != null));
+        verifyNoInteractions(executor, sendExecutor, kafkaTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSendEventToBroker_ShouldSpoolWhenSendFailsAfterRetries() {
+        Retry singleAttempt = Retry.of("test", RetryConfig.custom().maxAttempts(1).build());
+        ExecutorService realExecutor = Executors.newSingleThreadExecutor();
+        KafkaProducer producer = new KafkaProducer(singleAttempt, kafkaTemplate, realExecutor, realExecutor, scheduler,
+            new RoundRobinRoutingStrategy(), codecs, spool, metrics, tracer, 3, 1);
+        when(spool.offer(any())).thenReturn(true);
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker unavailable")));
+
+        try {
+            producer.sendEventToBroker(new EventListDto());
+
+            verify(spool, timeout(2000)).offer(any());
+            assertEquals(0, producer.getInFlightCount());
+        } finally {
+            realExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSendEventToBroker_ShouldSpoolFailedRecordWhoseHeadersChangedDuringSend() {
+        Retry singleAttempt = Retry.of("test", RetryConfig.custom().maxAttempts(1).build());
+        ExecutorService realExecutor = Executors.newSingleThreadExecutor();
+        KafkaProducer producer = new KafkaProducer(singleAttempt, kafkaTemplate, realExecutor, realExecutor, scheduler,
+            new RoundRobinRoutingStrategy(), codecs, spool, metrics, tracer, 3, 1);
+        when(spool.offer(any())).thenReturn(true);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<String, byte[]> record = invocation.getArgument(0);
+            record.headers().add("__TypeId__", "byte[]".getBytes(StandardCharsets.UTF_8));
+            return CompletableFuture.failedFuture(new RuntimeException("broker unavailable"));
+        });
+
+        try {
+            producer.sendEventToBroker(new EventListDto());
+
+            verify(spool, timeout(2000)).offer(any());
+            assertEquals(0, producer.getInFlightCount());
+        } finally {
+            realExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSendEventToBroker_ShouldSpoolWhenInFlightLimitReached() {
+        KafkaProducer producer = new KafkaProducer(retry, kafkaTemplate, executor, sendExecutor, scheduler,
+            new RoundRobinRoutingStrategy(), codecs, spool, metrics, tracer, 3, 1);
+        when(spool.offer(any())).thenReturn(true);
+
+        producer.sendEventToBroker(new EventListDto());
+        producer.sendEventToBroker(new EventListDto());
+
+        verify(executor, times(1)).submit(any(Callable.class));
+        verify(spool, times(1)).offer(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSendEventToBroker_ShouldPropagateTraceAndExportProducerStages() throws Exception {
+        ExecutorService realExecutor = Executors.newSingleThreadExecutor();
+        Retry singleAttempt = Retry.of("test", RetryConfig.custom().maxAttempts(1).build());
+        KafkaProducer producer = new KafkaProducer(singleAttempt, kafkaTemplate, realExecutor, realExecutor, scheduler,
+            new RoundRobinRoutingStrategy(), codecs, spool, metrics, tracer, 3, 16);
+        SendResult<String, byte[]> ok = new SendResult<>(null,
+            new RecordMetadata(new TopicPartition("new-event-topic", 1), 0, 7, 0, 0, 0));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(ok));
+
+        try {
+            producer.sendEventToBroker(new EventListDto(List.of(new EventDto(LocalDateTime.now().minusSeconds(1)))));
+
+            ArgumentCaptor<ProducerRecord<String, byte[]>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+            verify(kafkaTemplate, timeout(2000)).send(captor.capture());
+            TraceContext trace = TraceContext.parse(new String(
+                captor.getValue().headers().lastHeader(IngestTracer.TRACEPARENT).value(), StandardCharsets.UTF_8));
+            assertNotNull(trace);
+            assertNotNull(captor.getValue().headers().lastHeader(IngestTracer.QUEUED_AT_HEADER));
+            assertNotNull(captor.getValue().headers().lastHeader(IngestTracer.SENT_AT_HEADER));
+            verify(kafkaTemplate, after(200)).send(any(ProducerRecord.class));
+            assertEquals(List.of("processor.queue", "producer.executor", "producer.send"),
+                spans.trace(trace.traceId()).stream().map(Span::name).toList());
+        } finally {
+            realExecutor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package request_logger_store.service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.Dto.EventListDto;
+import request_logger_store.component.cache.FlatEventCache;
+import request_logger_store.component.db.BaseChecking;
+import request_logger_store.component.metrics.IngestMetrics;
+import request_logger_store.component.trace.IngestTracer;
+import request_logger_store.config.mapper.Mapper;
+import request_logger_store.repository.writer.EventWriter;
+import request_logger_store.service.kafka.codec.BinaryEventBatchCodec;
+import request_logger_store.service.kafka.codec.EventBatchCodecs;
+import request_logger_store.service.kafka.codec.JsonEventBatchCodec;
+import request_logger_store.service.kafka.retry.FailedRecordRouter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+class KafkaRetryTopicConsumerTest {
+
+    private static final String TOPIC = "new-event-topic-retry-0";
+
+    @Mock
+    private Mapper mapper;
+
+    @Mock
+    private EventWriter eventWriter;
+
+    @Mock
+    private BaseChecking baseChecking;
+
+    @Mock
+    private FailedRecordRouter failedRecordRouter;
+
+    @Mock
+    private FlatEventCache flatEventCache;
+
+    @Mock
+    private KafkaListenerEndpointRegistry registry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @Mock
+    private ExecutorService ingestExecutor;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @Mock
+    private Consumer<String, byte[]> kafkaConsumer;
+
+    private KafkaRetryTopicConsumer consumer;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final IngestMetrics metrics = new IngestMetrics(new SimpleMeterRegistry());
+
+    private final IngestTracer tracer = new IngestTracer(List.of(), 1.0);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(mapper.objectMapper()).thenReturn(objectMapper);
+        when(baseChecking.protect(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(eventWriter.write(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(registry.getListenerContainer(KafkaRetryTopicConsumer.LISTENER_ID)).thenReturn(container);
+        EventBatchCodecs codecs = new EventBatchCodecs(
+            List.of(new JsonEventBatchCodec(), new BinaryEventBatchCodec()), JsonEventBatchCodec.NAME);
+        consumer = new KafkaRetryTopicConsumer(mapper, codecs, eventWriter, baseChecking, failedRecordRouter,
+            metrics, flatEventCache, tracer, registry, ingestExecutor, scheduler);
+    }
+
+    @Test
+    void testListenRetries_ShouldProcessDueRecordsAndDeferTheRest() throws Exception {
+        long now = System.currentTimeMillis();
+        List<ConsumerRecord<String, byte[]>> records = List.of(
+            record(0, now - 1_000), record(1, now - 500), record(2, now + 60_000), record(3, now - 100));
+
+        consumer.listenRetries(records, kafkaConsumer);
+
+        verify(eventWriter).write(argThat(events -> events.size() == 2));
+        TopicPartition partition = new TopicPartition(TOPIC, 0);
+        verify(kafkaConsumer).commitSync(Map.of(partition, new OffsetAndMetadata(2)));
+        verify(kafkaConsumer).seek(partition, 2L);
+        verify(container).pausePartition(partition);
+        verify(scheduler).schedule(any(Runnable.class), longThat(delay -> delay > 50_000), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testListenRetries_ShouldPausePartition_WhenDatabaseUnavailable() throws Exception {
+        long now = System.currentTimeMillis();
+        List<ConsumerRecord<String, byte[]>> records = List.of(record(0, now - 1_000));
+        doThrow(new DataAccessResourceFailureException("DB down")).when(eventWriter).write(anyList());
+
+        consumer.listenRetries(records, kafkaConsumer);
+
+        TopicPartition partition = new TopicPartition(TOPIC, 0);
+        verify(kafkaConsumer, never()).commitSync(anyMap());
+        verify(kafkaConsumer).seek(partition, 0L);
+        verify(container).pausePartition(partition);
+        verify(baseChecking).checking();
+        verifyNoInteractions(failedRecordRouter);
+    }
+
+    private ConsumerRecord<String, byte[]> record(long offset, long dueAt) throws Exception {
+        byte[] value = objectMapper.writeValueAsBytes(
+            new EventListDto(List.of(new EventDto(LocalDateTime.of(2024, 1, 1, 10, 0)))));
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(TOPIC, 0, offset, "key", value);
+        record.headers().add(FailedRecordRouter.DUE_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(dueAt).array());
+        record.headers().add(EventBatchCodecs.HEADER, JsonEventBatchCodec.NAME.getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+}
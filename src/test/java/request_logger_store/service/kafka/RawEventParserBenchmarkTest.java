@@ -0,0 +1,104 @@
+package request_logger_store.service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import request_logger_store.BenchmarkSupport;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.Dto.EventListDto;
+import request_logger_store.model.Event;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Выделение памяти на одно сообщение: разбор строки через {@link EventListDto} с повторной сериализацией
+ * ({@link KafkaBatchConsumer}) против потокового разбора байтов ({@link RawEventParser}).
+ * <p>
+ * Запуск: {@code ./mvnw test -Pbenchmark -Dtest=RawEventParserBenchmarkTest}.
+ * Результат выводится в лог и сохраняется в {@code target/benchmarks/ingest-allocation.csv}.
+ */
+@Tag("benchmark")
+class RawEventParserBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RawEventParserBenchmarkTest.class);
+
+    private static final int[] EVENTS_PER_MESSAGE = {1, 10, 100, 1_000};
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 20_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void compareAllocationPerMessage() throws Exception {
+        List<String> report = new ArrayList<>();
+        report.add("path,events_per_message,message_bytes,bytes_allocated_per_message,ns_per_message");
+        for (int eventsPerMessage : EVENTS_PER_MESSAGE) {
+            byte[] value = message(eventsPerMessage);
+            int iterations = Math.max(200, MEASURED_ITERATIONS / eventsPerMessage);
+
+            assertEquals(stringPath(value).getData(), RawEventParser.parse(value).getData());
+            report.add(measure("string", value, eventsPerMessage, iterations, this::stringPath));
+            report.add(measure("bytes", value, eventsPerMessage, iterations, RawEventParser::parse));
+        }
+
+        BenchmarkSupport.writeCsv("ingest-allocation.csv", report);
+    }
+
+    private String measure(String path, byte[] value, int eventsPerMessage, int iterations, Parser parser)
+        throws Exception {
+        for (int i = 0; i < Math.max(iterations, WARMUP_ITERATIONS / eventsPerMessage); i++) {
+            parser.parse(value);
+        }
+        long sink = 0;
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += parser.parse(value).getRecords().size();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        assertEquals((long) iterations * eventsPerMessage, sink);
+
+        long bytesPerMessage = allocated / iterations;
+        long nanosPerMessage = elapsed / iterations;
+        logger.info(">>>>>Benchmark path={} events={} message={}B allocated/msg={}B ns/msg={}",
+            path, eventsPerMessage, value.length, bytesPerMessage, nanosPerMessage);
+        return String.join(",", path, String.valueOf(eventsPerMessage), String.valueOf(value.length),
+            String.valueOf(bytesPerMessage), String.valueOf(nanosPerMessage));
+    }
+
+    /**
+     * Путь {@link KafkaBatchConsumer}: {@code StringDeserializer}, DTO и повторная сериализация массива.
+     */
+    private Event stringPath(byte[] value) throws Exception {
+        String messageValue = new String(value, StandardCharsets.UTF_8);
+        EventListDto eventListDto = objectMapper.readValue(messageValue, EventListDto.class);
+        String jsonList = objectMapper.writeValueAsString(eventListDto.getEventDto());
+        return Event.fromDtos(jsonList, eventListDto.getEventDto());
+    }
+
+    private byte[] message(int events) throws Exception {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 10, 0, 0, 123456789);
+        List<EventDto> dtos = new ArrayList<>(events);
+        for (int i = 0; i < events; i++) {
+            dtos.add(new EventDto(now.plusSeconds(i)));
+        }
+        return objectMapper.writeValueAsBytes(new EventListDto(dtos));
+    }
+
+    @FunctionalInterface
+    private interface Parser {
+        Event parse(byte[] value) throws Exception;
+    }
+}
@@ -0,0 +1,81 @@
+package request_logger_store.service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.Dto.EventListDto;
+import request_logger_store.model.Event;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawEventParserTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void testParse_ShouldMatchDtoPath() throws Exception {
+        List<EventDto> dtos = List.of(
+            new EventDto(LocalDateTime.of(2024, 1, 1, 10, 0)),
+            new EventDto(LocalDateTime.of(2024, 1, 1, 10, 0, 5, 123456789)));
+        byte[] value = objectMapper.writeValueAsBytes(new EventListDto(dtos));
+
+        Event event = RawEventParser.parse(value);
+
+        assertEquals(objectMapper.writeValueAsString(dtos), event.getData());
+        assertEquals(2, event.getRecords().size());
+        assertEquals(dtos.get(0).getDateTime(), event.getRecords().get(0).getEventTime());
+        assertEquals(dtos.get(1).getDateTime(), event.getRecords().get(1).getEventTime());
+        assertEquals(1, event.getRecords().get(1).getPosition());
+    }
+
+    @Test
+    void testParse_ShouldKeepOriginalBytesAndAcceptIsoStrings() throws Exception {
+        String array = "[ {\"dateTime\" : \"2024-03-01T12:30:00\", \"extra\": {\"a\": [1]}}, null, {\"dateTime\":null} ]";
+        byte[] value = ("{\"other\":1, \"eventDto\": " + array + " }").getBytes(StandardCharsets.UTF_8);
+
+        Event event = RawEventParser.parse(value);
+
+        assertEquals(array, event.getData());
+        assertEquals(1, event.getRecords().size());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 12, 30), event.getRecords().get(0).getEventTime());
+    }
+
+    @Test
+    void testParse_ShouldSkipEventsWithoutTime() throws Exception {
+        String array = "[{\"dateTime\":null},{},{\"dateTime\":[2024,1,1,10,0]}]";
+        byte[] value = ("{\"eventDto\":" + array + "}").getBytes(StandardCharsets.UTF_8);
+
+        Event event = RawEventParser.parse(value);
+
+        assertEquals(array, event.getData());
+        assertEquals(1, event.getRecords().size());
+        assertEquals(2, event.getRecords().get(0).getPosition());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), event.getRecords().get(0).getEventTime());
+        assertEquals(Event.fromDtos(array, objectMapper.readValue(value, EventListDto.class).getEventDto())
+            .getRecords().size(), event.getRecords().size());
+    }
+
+    @Test
+    void testParse_ShouldTreatMissingArrayAsNull() throws Exception {
+        Event event = RawEventParser.parse("{}".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("null", event.getData());
+        assertTrue(event.getRecords().isEmpty());
+        assertNull(RawEventParser.parse(new byte[0]));
+    }
+
+    @Test
+    void testParse_ShouldRejectMalformedMessages() {
+        for (String value : Arrays.asList("not json", "[1]", "{\"eventDto\":[1]}", "{\"eventDto\":[{\"dateTime\":[2024]}]}",
+            "{\"eventDto\":[{\"dateTime\":\"yesterday\"}]}", "{\"eventDto\":[]} trailing", "{\"eventDto\":[")) {
+            assertThrows(IOException.class, () -> RawEventParser.parse(value.getBytes(StandardCharsets.UTF_8)), value);
+        }
+    }
+}
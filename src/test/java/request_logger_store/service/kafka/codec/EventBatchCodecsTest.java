@@ -0,0 +1,99 @@
+package request_logger_store.service.kafka.codec;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import request_logger_store.Dto.EventDto;
+import request_logger_store.Dto.EventListDto;
+import request_logger_store.model.Event;
+import request_logger_store.model.EventRecord;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventBatchCodecsTest {
+
+    private final BinaryEventBatchCodec binary = new BinaryEventBatchCodec();
+    private final JsonEventBatchCodec json = new JsonEventBatchCodec();
+    private final EventBatchCodecs codecs = new EventBatchCodecs(List.of(json, binary), JsonEventBatchCodec.NAME);
+
+    @Test
+    void testBinary_ShouldRoundTripIncludingNullsAndBackwardTime() throws Exception {
+        List<EventDto> events = Arrays.asList(
+            new EventDto(LocalDateTime.of(2024, 1, 1, 10, 0, 0, 123456789)),
+            null,
+            new EventDto(null),
+            new EventDto(LocalDateTime.of(2024, 1, 1, 10, 0, 1)),
+            new EventDto(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999999999)));
+
+        EventListDto decoded = binary.decode(binary.encode(new EventListDto(events)));
+
+        assertEquals(events.size(), decoded.getEventDto().size());
+        for (int i = 0; i < events.size(); i++) {
+            EventDto expected = events.get(i);
+            EventDto actual = decoded.getEventDto().get(i);
+            assertEquals(expected == null, actual == null);
+            if (expected != null) {
+                assertEquals(expected.getDateTime(), actual.getDateTime());
+            }
+        }
+        assertNull(binary.decode(binary.encode(new EventListDto(null))).getEventDto());
+    }
+
+    @Test
+    void testDecode_ShouldLeaveEventsWithoutTimeOutOfEventRecordsLikeJson() throws Exception {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 10, 0);
+        EventListDto batch = new EventListDto(Arrays.asList(new EventDto(null), new EventDto(time)));
+
+        for (EventBatchCodec codec : List.of(json, binary)) {
+            List<EventDto> decoded = codec.decode(codec.encode(batch)).getEventDto();
+            assertEquals(2, decoded.size(), codec.name());
+            assertNull(decoded.get(0).getDateTime(), codec.name());
+
+            List<EventRecord> records = Event.fromDtos("[]", decoded).getRecords();
+            assertEquals(1, records.size(), codec.name());
+            assertEquals(1, records.get(0).getPosition(), codec.name());
+            assertEquals(time, records.get(0).getEventTime(), codec.name());
+        }
+    }
+
+    @Test
+    void testBinary_ShouldBeMuchSmallerThanJson() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0, 0, 123456789);
+        List<EventDto> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            events.add(new EventDto(start.plusSeconds(i)));
+        }
+        EventListDto batch = new EventListDto(events);
+
+        assertTrue(binary.encode(batch).length * 5 < json.encode(batch).length);
+    }
+
+    @Test
+    void testBinary_ShouldRejectCorruptedValues() {
+        for (byte[] value : List.of(new byte[0], new byte[]{2, 1}, new byte[]{1, 2, 7}, new byte[]{1, 2, 2, 2},
+            new byte[]{1, 1, 0})) {
+            assertThrows(IOException.class, () -> binary.decode(value), Arrays.toString(value));
+        }
+    }
+
+    @Test
+    void testDecoderFor_ShouldSelectByHeaderAndFallBackToJson() throws Exception {
+        RecordHeaders headers = new RecordHeaders();
+        assertSame(json, codecs.decoderFor(headers));
+        assertSame(json, codecs.decoderFor(null));
+
+        headers.add(EventBatchCodecs.HEADER, BinaryEventBatchCodec.NAME.getBytes(StandardCharsets.UTF_8));
+        assertSame(binary, codecs.decoderFor(headers));
+
+        RecordHeaders unknown = new RecordHeaders();
+        unknown.add(EventBatchCodecs.HEADER, "avro".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> codecs.decoderFor(unknown));
+        assertThrows(IllegalArgumentException.class, () -> new EventBatchCodecs(List.of(json), "avro"));
+    }
+}
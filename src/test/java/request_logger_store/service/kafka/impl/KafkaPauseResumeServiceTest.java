@@ -1,11 +1,13 @@
 package request_logger_store.service.kafka.impl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.kafka.common.TopicPartition;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
 import org.springframework.kafka.listener.MessageListenerContainer;
+import request_logger_store.component.metrics.IngestMetrics;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
@@ -18,6 +20,9 @@ class KafkaPauseResumeServiceTest {
     @Mock
     private MessageListenerContainer container;
 
+    @Spy
+    private IngestMetrics metrics = new IngestMetrics(new SimpleMeterRegistry());
+
     @InjectMocks
     private KafkaPauseResumeService pauseResumeService;
 
@@ -34,6 +39,7 @@ class KafkaPauseResumeServiceTest {
         pauseResumeService.pause();
 
         verify(container, times(1)).pause();
+        verify(metrics).recordPaused();
     }
 
     @Test
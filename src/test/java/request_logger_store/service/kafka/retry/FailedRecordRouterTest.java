@@ -0,0 +1,201 @@
+package request_logger_store.service.kafka.retry;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.hibernate.exception.JDBCConnectionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import request_logger_store.component.metrics.IngestMetrics;
+import request_logger_store.model.Event;
+import request_logger_store.model.id.UuidV7;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FailedRecordRouterTest {
+
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Captor
+    private ArgumentCaptor<ProducerRecord<String, byte[]>> sent;
+
+    private FailedRecordRouter router;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final IngestMetrics metrics = new IngestMetrics(meterRegistry);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        router = new FailedRecordRouter(kafkaTemplate, metrics,
+            List.of(Duration.ofSeconds(5), Duration.ofSeconds(30)), Duration.ofSeconds(1));
+    }
+
+    @Test
+    void testRetryTopics_ShouldNameOneTopicPerTier() {
+        assertArrayEquals(new String[]{"new-event-topic-retry-0", "new-event-topic-retry-1"}, router.retryTopics());
+    }
+
+    @Test
+    void testToRetry_ShouldWalkTiersAndEndInDeadLetterTopic() {
+        ConsumerRecord<String, byte[]> record = record("new-event-topic", new RecordHeaders());
+        long before = System.currentTimeMillis();
+
+        router.toRetry(record, new IllegalStateException("deadlock"));
+        ProducerRecord<String, byte[]> first = lastSent();
+        assertEquals("new-event-topic-retry-0", first.topic());
+        assertEquals(1, intHeader(first, FailedRecordRouter.ATTEMPT_HEADER));
+        assertTrue(FailedRecordRouter.dueAt(consumed(first)) >= before + 5_000);
+        assertEquals("new-event-topic", stringHeader(first, KafkaHeaders.DLT_ORIGINAL_TOPIC));
+        assertEquals(IllegalStateException.class.getName(), stringHeader(first, KafkaHeaders.DLT_EXCEPTION_FQCN));
+        assertArrayEquals(record.value(), first.value());
+        assertEquals(record.timestamp(), first.timestamp());
+
+        router.toRetry(consumed(first), new IllegalStateException("deadlock again"));
+        ProducerRecord<String, byte[]> second = lastSent();
+        assertEquals("new-event-topic-retry-1", second.topic());
+        assertEquals(2, intHeader(second, FailedRecordRouter.ATTEMPT_HEADER));
+        assertEquals("new-event-topic", stringHeader(second, KafkaHeaders.DLT_ORIGINAL_TOPIC));
+        assertEquals(1, count(second, FailedRecordRouter.DUE_HEADER));
+
+        router.toRetry(consumed(second), new IllegalStateException("still failing"));
+        ProducerRecord<String, byte[]> dead = lastSent();
+        assertEquals(FailedRecordRouter.DLT_TOPIC, dead.topic());
+        assertEquals("still failing", stringHeader(dead, KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+        assertNull(dead.headers().lastHeader(FailedRecordRouter.DUE_HEADER));
+        assertEquals(2, meterRegistry.get("ingest.consumer.records").tag("outcome", "retry").counter().count());
+        assertEquals(1, meterRegistry.get("ingest.consumer.records").tag("outcome", "dead-letter").counter().count());
+    }
+
+    @Test
+    void testToDeadLetter_ShouldKeepOriginalHeaders() {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("event-codec", "binary-v1".getBytes(StandardCharsets.UTF_8));
+
+        router.toDeadLetter(record("new-event-topic", headers), new IllegalArgumentException("bad json"));
+
+        ProducerRecord<String, byte[]> dead = lastSent();
+        assertEquals(FailedRecordRouter.DLT_TOPIC, dead.topic());
+        assertEquals("binary-v1", stringHeader(dead, "event-codec"));
+        assertEquals(7L, ByteBuffer.wrap(dead.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_OFFSET).value()).getLong());
+    }
+
+    @Test
+    void testAssignSource_ShouldKeepOriginalIdentityThroughRetryTopics() {
+        ConsumerRecord<String, byte[]> record = record("new-event-topic", new RecordHeaders());
+        router.toRetry(record, new IllegalStateException("deadlock"));
+        Event original = new Event("[]");
+        Event retried = new Event("[]");
+
+        FailedRecordRouter.assignSource(original, record);
+        FailedRecordRouter.assignSource(retried, consumed(lastSent()));
+
+        assertEquals(UuidV7.fromSource(record.timestamp(), "new-event-topic", 1, 7), original.getId());
+        assertEquals(original.getId(), retried.getId());
+        assertEquals(original.getCreatedAt(), retried.getCreatedAt());
+        assertEquals(record.timestamp(), UuidV7.timestampMillis(retried.getId()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPublish_ShouldThrow_WhenBrokerRejects() {
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        assertThrows(KafkaException.class,
+            () -> router.toDeadLetter(record("new-event-topic", new RecordHeaders()), new RuntimeException("x")));
+    }
+
+    @Test
+    void testIsOutage_ShouldDetectUnavailableDatabase() {
+        CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("test");
+        circuitBreaker.transitionToOpenState();
+
+        assertTrue(FailedRecordRouter.isOutage(CallNotPermittedException.createCallNotPermittedException(circuitBreaker)));
+        assertTrue(FailedRecordRouter.isOutage(
+            new RuntimeException(new DataAccessResourceFailureException("connection refused"))));
+        assertFalse(FailedRecordRouter.isOutage(new IllegalStateException("deadlock")));
+        assertFalse(FailedRecordRouter.isOutage(new DataIntegrityViolationException("duplicate key")));
+    }
+
+    @Test
+    void testIsOutage_ShouldDetectTransactionThatCouldNotBegin() {
+        assertTrue(FailedRecordRouter.isOutage(new CannotCreateTransactionException("Could not open JPA EntityManager",
+            new IllegalStateException("Unable to acquire JDBC Connection"))));
+    }
+
+    @Test
+    void testIsOutage_ShouldDetectTransientResourceFailure() {
+        assertTrue(FailedRecordRouter.isOutage(new TransientDataAccessResourceException("connection reset")));
+    }
+
+    @Test
+    void testIsOutage_ShouldDetectPoolTimeout() {
+        assertTrue(FailedRecordRouter.isOutage(
+            new RuntimeException(new SQLTransientConnectionException("Connection is not available"))));
+    }
+
+    @Test
+    void testIsOutage_ShouldDetectLostConnection() {
+        assertTrue(FailedRecordRouter.isOutage(
+            new JDBCConnectionException("could not execute batch", new SQLException("I/O error", "08006"))));
+    }
+
+    private ProducerRecord<String, byte[]> lastSent() {
+        verify(kafkaTemplate, atLeastOnce()).send(sent.capture());
+        return sent.getValue();
+    }
+
+    private static ConsumerRecord<String, byte[]> record(String topic, RecordHeaders headers) {
+        return new ConsumerRecord<>(topic, 1, 7, 1_700_000_000_000L, TimestampType.CREATE_TIME, 0, 0, "key",
+            "{\"eventDto\":[]}".getBytes(StandardCharsets.UTF_8), headers, Optional.empty());
+    }
+
+    private static ConsumerRecord<String, byte[]> consumed(ProducerRecord<String, byte[]> produced) {
+        return new ConsumerRecord<>(produced.topic(), 0, 0, produced.timestamp(), TimestampType.CREATE_TIME, 0, 0,
+            produced.key(), produced.value(), new RecordHeaders(produced.headers().toArray()), Optional.empty());
+    }
+
+    private static int intHeader(ProducerRecord<String, byte[]> record, String key) {
+        return ByteBuffer.wrap(record.headers().lastHeader(key).value()).getInt();
+    }
+
+    private static String stringHeader(ProducerRecord<String, byte[]> record, String key) {
+        return new String(record.headers().lastHeader(key).value(), StandardCharsets.UTF_8);
+    }
+
+    private static int count(ProducerRecord<String, byte[]> record, String key) {
+        int count = 0;
+        for (Header ignored : record.headers().headers(key)) {
+            count++;
+        }
+        return count;
+    }
+}